@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -17,6 +18,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -37,6 +39,7 @@ public class AdminFraudController {
     private final FraudDetectionService fraudDetectionService;
     private final AmlService amlService;
     private final UserService userService;
+    private final FraudBacktestService fraudBacktestService;
 
     // ========== FRAUD RULES ==========
 
@@ -90,6 +93,7 @@ public class AdminFraudController {
                 .timeWindowMinutes(rule.getTimeWindowMinutes())
                 .riskScoreThreshold(rule.getRiskScoreThreshold())
                 .isActive(rule.getIsActive())
+                .isShadow(rule.getIsShadow())
                 .description(rule.getDescription())
                 .ruleConditions(rule.getRuleConditions())
                 .build();
@@ -172,6 +176,30 @@ public class AdminFraudController {
         }
     }
 
+    // ========== RULE BACKTESTS ==========
+
+    @GetMapping("/backtests")
+    public String backtests(Model model) {
+        model.addAttribute("backtests", fraudBacktestService.getBacktests());
+        model.addAttribute("rules", fraudRuleService.getAllRules());
+        return "admin/fraud/backtests";
+    }
+
+    @PostMapping("/backtests")
+    public String startBacktest(@RequestParam(required = false) List<Long> ruleIds,
+                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                RedirectAttributes redirectAttributes) {
+        try {
+            long id = fraudBacktestService.start(ruleIds != null ? ruleIds : List.of(),
+                    from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+            redirectAttributes.addFlashAttribute("success", "Backtest #" + id + " started");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/admin/fraud/backtests";
+    }
+
     // ========== KYC VERIFICATIONS ==========
 
     @GetMapping("/kyc")
@@ -33,6 +33,7 @@ public class ApiController {
     private final UserService userService;
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final TransferExecutor transferExecutor;
     private final CardService cardService;
     private final StatementService statementService;
 
@@ -62,7 +63,7 @@ public class ApiController {
 
         try {
             User sender = userService.findByUsername(authentication.getName());
-            Transaction transaction = transactionService.createTransfer(
+            Transaction transaction = transferExecutor.transfer(
                     sender.getId(), request.getReceiverEmail(), request.getAmount(), request.getDescription());
             
             Map<String, Object> response = new HashMap<>();
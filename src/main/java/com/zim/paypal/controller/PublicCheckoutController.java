@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 /**
  * Public controller for checkout pages (no authentication required)
@@ -40,6 +41,7 @@ public class PublicCheckoutController {
 
             model.addAttribute("button", button);
             model.addAttribute("checkoutRequest", new CheckoutRequestDto());
+            model.addAttribute("idempotencyKey", UUID.randomUUID().toString()); // Makes resubmits replay
             return "merchant/checkout";
         } catch (Exception e) {
             model.addAttribute("error", "Payment button not found");
@@ -3,6 +3,7 @@ package com.zim.paypal.controller;
 import com.zim.paypal.model.dto.*;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.service.*;
+import com.zim.paypal.util.PageCursor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +34,7 @@ public class WebController {
     private final UserService userService;
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final TransferExecutor transferExecutor;
     private final CardService cardService;
     private final StatementService statementService;
     private final MoneyRequestService moneyRequestService;
@@ -72,8 +74,7 @@ public class WebController {
         List<Card> cards = cardService.findActiveCardsByUser(user.getId());
 
         // Get recent transactions
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<Transaction> transactions = transactionService.getTransactionsByUser(user.getId(), pageable);
+        CursorPage<TransactionView> transactions = transactionService.getTransactionsByUser(user.getId(), null, 10);
 
         // Get pending money requests
         List<MoneyRequest> pendingRequests = 
@@ -117,7 +118,7 @@ public class WebController {
 
         try {
             User sender = userService.findByUsername(authentication.getName());
-            Transaction transaction = transactionService.createTransfer(
+            Transaction transaction = transferExecutor.transfer(
                     sender.getId(), request.getReceiverEmail(), request.getAmount(), request.getDescription());
             redirectAttributes.addFlashAttribute("success", "Money sent successfully!");
             return "redirect:/dashboard";
@@ -221,16 +222,21 @@ public class WebController {
 
     @GetMapping("/transactions")
     public String transactions(Authentication authentication,
-                              @RequestParam(defaultValue = "0") int page,
+                              @RequestParam(required = false) String cursor,
                               @RequestParam(defaultValue = "20") int size,
                               Model model) {
         User user = userService.findByUsername(authentication.getName());
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Transaction> transactions = transactionService.getTransactionsByUser(user.getId(), pageable);
+        try {
+            PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            // A stale or edited link shows the newest page rather than an error page
+            log.warn("Ignoring invalid transaction page cursor for user {}", user.getId());
+            cursor = null;
+        }
+        CursorPage<TransactionView> transactions = transactionService.getTransactionsByUser(user.getId(), cursor, size);
 
         model.addAttribute("transactions", transactions);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", transactions.getTotalPages());
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
         return "transactions";
     }
 
@@ -414,11 +420,7 @@ public class WebController {
                               RedirectAttributes redirectAttributes) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            BigDecimal cashValue = rewardsService.redeemPoints(user.getId(), points);
-            
-            // Deposit the redeemed cash into account
-            Account account = accountService.findActiveAccountByUser(user);
-            accountService.deposit(account.getId(), cashValue);
+            BigDecimal cashValue = rewardsService.redeemPointsToAccount(user.getId(), points);
             
             redirectAttributes.addFlashAttribute("success", 
                     "Redeemed " + points + " points for $" + cashValue + "!");
@@ -1,5 +1,6 @@
 package com.zim.paypal.controller.api;
 
+import com.zim.paypal.model.dto.AccountView;
 import com.zim.paypal.model.dto.ApiResponse;
 import com.zim.paypal.model.entity.Account;
 import com.zim.paypal.model.entity.User;
@@ -57,10 +58,10 @@ public class AccountApiController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Account>>> getAccounts(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<AccountView>>> getAccounts(Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            List<Account> accounts = accountService.findByUser(user);
+            List<AccountView> accounts = accountService.getAccountViews(user.getId());
             return ResponseEntity.ok(ApiResponse.success(accounts));
         } catch (Exception e) {
             log.error("Error getting accounts: {}", e.getMessage());
@@ -70,7 +71,7 @@ public class AccountApiController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Account>> createAccount(
+    public ResponseEntity<ApiResponse<AccountView>> createAccount(
             @RequestParam(required = false) Long currencyId,
             Authentication authentication) {
         try {
@@ -78,7 +79,7 @@ public class AccountApiController {
             Account account = currencyId != null ?
                     accountService.createAccount(user, currencyId) :
                     accountService.createDefaultAccount(user);
-            return ResponseEntity.ok(ApiResponse.success("Account created successfully", account));
+            return ResponseEntity.ok(ApiResponse.success("Account created successfully", AccountView.from(account)));
         } catch (Exception e) {
             log.error("Error creating account: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -87,18 +88,15 @@ public class AccountApiController {
     }
 
     @GetMapping("/{accountId}")
-    public ResponseEntity<ApiResponse<Account>> getAccount(@PathVariable Long accountId,
-                                                           Authentication authentication) {
+    public ResponseEntity<ApiResponse<AccountView>> getAccount(@PathVariable Long accountId,
+                                                               Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            Account account = accountService.findById(accountId);
-            
-            if (!account.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(403)
-                        .body(ApiResponse.error("Access denied"));
-            }
-            
+            AccountView account = accountService.getAccountView(accountId, user.getId());
             return ResponseEntity.ok(ApiResponse.success(account));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Access denied"));
         } catch (Exception e) {
             log.error("Error getting account: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -106,4 +104,3 @@ public class AccountApiController {
         }
     }
 }
-
@@ -0,0 +1,39 @@
+package com.zim.paypal.controller.api;
+
+import com.zim.paypal.model.dto.ApiResponse;
+import com.zim.paypal.model.dto.FeeQuoteRequest;
+import com.zim.paypal.model.dto.FeeQuoteResult;
+import com.zim.paypal.service.FeeScheduleEngine;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API Controller for fee previews
+ * 
+ * @author Zim Development Team
+ */
+@RestController
+@RequestMapping("/api/fees")
+@RequiredArgsConstructor
+@Slf4j
+public class FeeApiController {
+
+    private final FeeScheduleEngine feeScheduleEngine;
+
+    @PostMapping("/quote")
+    public ResponseEntity<ApiResponse<FeeQuoteResult>> quote(@Valid @RequestBody FeeQuoteRequest request) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(feeScheduleEngine.quote(request)));
+        } catch (Exception e) {
+            log.error("Error quoting fees: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -1,28 +1,40 @@
 package com.zim.paypal.controller.api;
 
 import com.zim.paypal.model.dto.ApiResponse;
+import com.zim.paypal.model.dto.BatchTransferRequest;
+import com.zim.paypal.model.dto.BatchTransferResult;
+import com.zim.paypal.model.dto.CursorPage;
+import com.zim.paypal.model.dto.TransactionView;
 import com.zim.paypal.model.dto.TransferRequest;
 import com.zim.paypal.model.entity.Transaction;
 import com.zim.paypal.model.entity.User;
+import com.zim.paypal.service.TransactionExportService;
 import com.zim.paypal.service.TransactionService;
+import com.zim.paypal.service.TransferExecutor;
 import com.zim.paypal.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 /**
@@ -37,17 +49,18 @@ import java.util.Map;
 public class TransactionApiController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final TransferExecutor transferExecutor;
     private final UserService userService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<Transaction>>> getTransactions(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<ApiResponse<CursorPage<TransactionView>>> getTransactions(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Transaction> transactions = transactionService.getTransactionsByUserId(user.getId(), pageable);
+            CursorPage<TransactionView> transactions = transactionService.getTransactionsByUser(user.getId(), cursor, size);
             return ResponseEntity.ok(ApiResponse.success(transactions));
         } catch (Exception e) {
             log.error("Error getting transactions: {}", e.getMessage());
@@ -57,13 +70,13 @@ public class TransactionApiController {
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<ApiResponse<Transaction>> transfer(@Valid @RequestBody TransferRequest request,
-                                                           Authentication authentication) {
+    public ResponseEntity<ApiResponse<TransactionView>> transfer(@Valid @RequestBody TransferRequest request,
+                                                               Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            Transaction transaction = transactionService.createTransfer(
+            Transaction transaction = transferExecutor.transfer(
                     user.getId(), request.getReceiverEmail(), request.getAmount(), request.getDescription());
-            return ResponseEntity.ok(ApiResponse.success("Transfer successful", transaction));
+            return ResponseEntity.ok(ApiResponse.success("Transfer successful", TransactionView.from(transaction)));
         } catch (Exception e) {
             log.error("Error transferring: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -71,8 +84,22 @@ public class TransactionApiController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchTransferResult>> batchTransfer(@Valid @RequestBody BatchTransferRequest request,
+                                                                          Authentication authentication) {
+        try {
+            User user = userService.findByUsername(authentication.getName());
+            BatchTransferResult result = transferExecutor.batchTransfer(user.getId(), request);
+            return ResponseEntity.ok(ApiResponse.success("Batch processed", result));
+        } catch (Exception e) {
+            log.error("Error processing batch transfer: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping("/deposit")
-    public ResponseEntity<ApiResponse<Transaction>> deposit(
+    public ResponseEntity<ApiResponse<TransactionView>> deposit(
             @RequestParam BigDecimal amount,
             @RequestParam(required = false) String description,
             Authentication authentication) {
@@ -80,7 +107,7 @@ public class TransactionApiController {
             User user = userService.findByUsername(authentication.getName());
             Transaction transaction = transactionService.createDeposit(
                     user.getId(), amount, description != null ? description : "Deposit");
-            return ResponseEntity.ok(ApiResponse.success("Deposit successful", transaction));
+            return ResponseEntity.ok(ApiResponse.success("Deposit successful", TransactionView.from(transaction)));
         } catch (Exception e) {
             log.error("Error depositing: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -88,20 +115,51 @@ public class TransactionApiController {
         }
     }
 
-    @GetMapping("/{transactionId}")
-    public ResponseEntity<ApiResponse<Transaction>> getTransaction(@PathVariable Long transactionId,
-                                                                   Authentication authentication) {
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            Transaction transaction = transactionService.findById(transactionId);
-            
-            if (!transaction.getSender().getId().equals(user.getId()) &&
-                (transaction.getReceiver() == null || !transaction.getReceiver().getId().equals(user.getId()))) {
-                return ResponseEntity.status(403)
-                        .body(ApiResponse.error("Access denied"));
+            TransactionExportService.ExportFormat exportFormat =
+                    TransactionExportService.ExportFormat.valueOf(format.toUpperCase());
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("Start date must not be after end date");
             }
-            
+            boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType()));
+            headers.setContentDispositionFormData("attachment", "transactions_"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                    + "." + exportFormat.getExtension());
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+
+            StreamingResponseBody body = out ->
+                    transactionExportService.export(user.getId(), from, to, exportFormat, gzip, out);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error exporting transactions: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{transactionId}")
+    public ResponseEntity<ApiResponse<TransactionView>> getTransaction(@PathVariable Long transactionId,
+                                                                       Authentication authentication) {
+        try {
+            User user = userService.findByUsername(authentication.getName());
+            TransactionView transaction = transactionService.getTransactionView(transactionId, user.getId());
             return ResponseEntity.ok(ApiResponse.success(transaction));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Access denied"));
         } catch (Exception e) {
             log.error("Error getting transaction: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -109,4 +167,3 @@ public class TransactionApiController {
         }
     }
 }
-
@@ -2,9 +2,10 @@ package com.zim.paypal.controller.api;
 
 import com.zim.paypal.model.dto.ApiResponse;
 import com.zim.paypal.model.dto.WebhookDto;
+import com.zim.paypal.model.dto.WebhookEventView;
+import com.zim.paypal.model.dto.WebhookView;
 import com.zim.paypal.model.entity.User;
 import com.zim.paypal.model.entity.Webhook;
-import com.zim.paypal.model.entity.WebhookEvent;
 import com.zim.paypal.service.UserService;
 import com.zim.paypal.service.WebhookService;
 import jakarta.validation.Valid;
@@ -33,10 +34,12 @@ public class WebhookController {
     private final UserService userService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Webhook>>> getWebhooks(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<WebhookView>>> getWebhooks(Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
-            List<Webhook> webhooks = webhookService.getWebhooksByUser(user);
+            List<WebhookView> webhooks = webhookService.getWebhooksByUser(user).stream()
+                    .map(WebhookView::from)
+                    .toList();
             return ResponseEntity.ok(ApiResponse.success(webhooks));
         } catch (Exception e) {
             log.error("Error getting webhooks: {}", e.getMessage());
@@ -46,12 +49,15 @@ public class WebhookController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Webhook>> createWebhook(@Valid @RequestBody WebhookDto webhookDto,
-                                                              Authentication authentication) {
+    public ResponseEntity<ApiResponse<WebhookView>> createWebhook(@Valid @RequestBody WebhookDto webhookDto,
+                                                                  Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
             Webhook webhook = webhookService.createWebhook(webhookDto, user);
-            return ResponseEntity.ok(ApiResponse.success("Webhook created successfully", webhook));
+            // The signing secret is shown once, at creation
+            WebhookView view = WebhookView.from(webhook);
+            view.setSecret(webhook.getSecret());
+            return ResponseEntity.ok(ApiResponse.success("Webhook created successfully", view));
         } catch (Exception e) {
             log.error("Error creating webhook: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -60,8 +66,8 @@ public class WebhookController {
     }
 
     @GetMapping("/{webhookId}")
-    public ResponseEntity<ApiResponse<Webhook>> getWebhook(@PathVariable Long webhookId,
-                                                           Authentication authentication) {
+    public ResponseEntity<ApiResponse<WebhookView>> getWebhook(@PathVariable Long webhookId,
+                                                               Authentication authentication) {
         try {
             User user = userService.findByUsername(authentication.getName());
             Webhook webhook = webhookService.getWebhookById(webhookId);
@@ -71,7 +77,7 @@ public class WebhookController {
                         .body(ApiResponse.error("Access denied"));
             }
             
-            return ResponseEntity.ok(ApiResponse.success(webhook));
+            return ResponseEntity.ok(ApiResponse.success(WebhookView.from(webhook)));
         } catch (Exception e) {
             log.error("Error getting webhook: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -80,7 +86,7 @@ public class WebhookController {
     }
 
     @GetMapping("/{webhookId}/events")
-    public ResponseEntity<ApiResponse<Page<WebhookEvent>>> getWebhookEvents(
+    public ResponseEntity<ApiResponse<Page<WebhookEventView>>> getWebhookEvents(
             @PathVariable Long webhookId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -94,7 +100,7 @@ public class WebhookController {
                         .body(ApiResponse.error("Access denied"));
             }
             
-            Page<WebhookEvent> events = webhookService.getWebhookEvents(webhook, PageRequest.of(page, size));
+            Page<WebhookEventView> events = webhookService.getWebhookEvents(webhookId, PageRequest.of(page, size));
             return ResponseEntity.ok(ApiResponse.success(events));
         } catch (Exception e) {
             log.error("Error getting webhook events: {}", e.getMessage());
@@ -0,0 +1,51 @@
+package com.zim.paypal.model.dto;
+
+import com.zim.paypal.model.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat read model of an account for API responses.
+ * Field order matches the JPQL constructor expressions in AccountRepository.
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountView {
+
+    private Long id;
+    private String accountNumber;
+    private BigDecimal balance;
+    private String currencyCode;
+    private String currencySymbol;
+    private Account.AccountType accountType;
+    private Account.AccountStatus status;
+    private LocalDateTime createdAt;
+
+    /**
+     * Build a view from an account whose currency is already loaded
+     * 
+     * @param account Account entity
+     * @return Account view
+     */
+    public static AccountView from(Account account) {
+        return AccountView.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .balance(account.getBalance())
+                .currencyCode(account.getCurrencyCode())
+                .currencySymbol(account.getCurrency() != null ? account.getCurrency().getSymbol() : null)
+                .accountType(account.getAccountType())
+                .status(account.getStatus())
+                .createdAt(account.getCreatedAt())
+                .build();
+    }
+}
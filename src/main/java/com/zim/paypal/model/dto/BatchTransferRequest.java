@@ -0,0 +1,33 @@
+package com.zim.paypal.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for bulk payout request (many transfers from one wallet)
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 5000, message = "A batch can contain at most 5000 transfers")
+    @Valid
+    private List<TransferRequest> transfers;
+
+    /**
+     * Description used for items that do not carry their own
+     */
+    private String description;
+}
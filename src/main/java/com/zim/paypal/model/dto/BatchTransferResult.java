@@ -0,0 +1,46 @@
+package com.zim.paypal.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO for bulk payout result with per-item outcomes
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResult {
+
+    private String batchReference;
+    private int requestedCount;
+    private int completedCount;
+    private int failedCount;
+    private BigDecimal totalAmount;
+    private BigDecimal totalFee;
+    private List<ItemResult> items;
+
+    /**
+     * Outcome of a single payout item
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private String receiverEmail;
+        private BigDecimal amount;
+        private BigDecimal fee;
+        private String status;
+        private String transactionNumber;
+        private String failureReason;
+    }
+}
@@ -0,0 +1,34 @@
+package com.zim.paypal.model.dto;
+
+import com.zim.paypal.model.entity.Transaction;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO for previewing fees on many amounts at once
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeQuoteRequest {
+
+    @Builder.Default
+    private Transaction.TransactionType transactionType = Transaction.TransactionType.TRANSFER;
+
+    @NotEmpty(message = "At least one amount is required")
+    @Size(max = 1000, message = "At most 1000 amounts can be quoted at once")
+    private List<@NotNull(message = "Amount is required")
+            @DecimalMin(value = "0.00", message = "Amount must not be negative") BigDecimal> amounts;
+}
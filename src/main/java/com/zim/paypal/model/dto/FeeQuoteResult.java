@@ -0,0 +1,41 @@
+package com.zim.paypal.model.dto;
+
+import com.zim.paypal.model.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO for fee previews, all priced on one fee schedule version
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeQuoteResult {
+
+    private Transaction.TransactionType transactionType;
+    private long scheduleVersion;
+    private List<Item> quotes;
+
+    /**
+     * Fee breakdown for a single amount
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private BigDecimal amount;
+        private BigDecimal charges;
+        private BigDecimal taxes;
+        private BigDecimal totalFee;
+        private BigDecimal totalAmount;
+    }
+}
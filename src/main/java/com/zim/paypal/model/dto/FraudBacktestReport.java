@@ -0,0 +1,80 @@
+package com.zim.paypal.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for a fraud rule backtest: how often a candidate rule set would have
+ * fired on past transactions, and how its hits overlap the live rules'
+ *
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudBacktestReport {
+
+    private long id;
+    private String status;
+    private List<String> candidateRules;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int chunksDone;
+    private int chunksTotal;
+    private long transactionsScored;
+    private long candidateFlagged;
+    private long liveFlagged;
+    private long bothFlagged;
+    private List<RuleHits> ruleHits;
+    private String error;
+
+    /**
+     * Share of scored transactions the candidate rules flag
+     */
+    public double getCandidateHitRate() {
+        return transactionsScored > 0 ? (double) candidateFlagged / transactionsScored : 0.0;
+    }
+
+    /**
+     * Share of scored transactions the live rules flag
+     */
+    public double getLiveHitRate() {
+        return transactionsScored > 0 ? (double) liveFlagged / transactionsScored : 0.0;
+    }
+
+    /**
+     * Transactions only the candidate rules flag
+     */
+    public long getCandidateOnlyFlagged() {
+        return candidateFlagged - bothFlagged;
+    }
+
+    /**
+     * Transactions only the live rules flag
+     */
+    public long getLiveOnlyFlagged() {
+        return liveFlagged - bothFlagged;
+    }
+
+    /**
+     * Transactions one rule would have fired on
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RuleHits {
+        private String ruleName;
+        private boolean candidate;
+        private long hits;
+        private double hitRate;
+    }
+}
@@ -47,6 +47,9 @@ public class FraudRuleDto {
     @Builder.Default
     private Boolean isActive = true;
 
+    @Builder.Default
+    private Boolean isShadow = false;
+
     private String description;
 
     private String ruleConditions;
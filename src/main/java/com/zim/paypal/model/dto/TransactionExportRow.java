@@ -0,0 +1,44 @@
+package com.zim.paypal.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of one exported transaction row, as seen by the
+ * exporting user
+ *
+ * @author Zim Development Team
+ */
+public interface TransactionExportRow {
+
+    Long getId();
+
+    String getTransactionNumber();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getCompletedAt();
+
+    String getTransactionType();
+
+    String getStatus();
+
+    /**
+     * IN when money reached the exporting user, OUT when it left them
+     */
+    String getDirection();
+
+    BigDecimal getAmount();
+
+    BigDecimal getFee();
+
+    BigDecimal getNetAmount();
+
+    String getCurrencyCode();
+
+    String getCounterparty();
+
+    String getDescription();
+
+    String getReferenceNumber();
+}
@@ -0,0 +1,16 @@
+package com.zim.paypal.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Full key of a transaction row: its ID and the created_at the table is
+ * partitioned on
+ *
+ * @author Zim Development Team
+ */
+public interface TransactionKey {
+
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+}
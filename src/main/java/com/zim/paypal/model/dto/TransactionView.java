@@ -0,0 +1,98 @@
+package com.zim.paypal.model.dto;
+
+import com.zim.paypal.model.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat read model of a transaction for API responses and history pages.
+ * Field order matches the JPQL constructor expressions in TransactionRepository.
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionView {
+
+    private Long id;
+    private String transactionNumber;
+    private Transaction.TransactionType transactionType;
+    private Transaction.PaymentMethod paymentMethod;
+    private Transaction.TransactionStatus status;
+    private BigDecimal amount;
+    private BigDecimal fee;
+    private BigDecimal netAmount;
+    private String currencyCode;
+    private String description;
+    private String referenceNumber;
+    private String failureReason;
+    private Long senderId;
+    private String senderUsername;
+    private String senderEmail;
+    private Long receiverId;
+    private String receiverUsername;
+    private String receiverEmail;
+    private Long accountId;
+    private String accountNumber;
+    private Long cardId;
+    private Long moneyRequestId;
+    private Long invoiceId;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    /**
+     * Build a view from a transaction whose parties are already loaded
+     * 
+     * @param transaction Transaction entity
+     * @return Transaction view
+     */
+    public static TransactionView from(Transaction transaction) {
+        TransactionViewBuilder view = TransactionView.builder()
+                .id(transaction.getId())
+                .transactionNumber(transaction.getTransactionNumber())
+                .transactionType(transaction.getTransactionType())
+                .paymentMethod(transaction.getPaymentMethod())
+                .status(transaction.getStatus())
+                .amount(transaction.getAmount())
+                .fee(transaction.getFee())
+                .netAmount(transaction.getNetAmount())
+                .currencyCode(transaction.getCurrencyCode())
+                .description(transaction.getDescription())
+                .referenceNumber(transaction.getReferenceNumber())
+                .failureReason(transaction.getFailureReason())
+                .createdAt(transaction.getCreatedAt())
+                .completedAt(transaction.getCompletedAt());
+        if (transaction.getSender() != null) {
+            view.senderId(transaction.getSender().getId())
+                    .senderUsername(transaction.getSender().getUsername())
+                    .senderEmail(transaction.getSender().getEmail());
+        }
+        if (transaction.getReceiver() != null) {
+            view.receiverId(transaction.getReceiver().getId())
+                    .receiverUsername(transaction.getReceiver().getUsername())
+                    .receiverEmail(transaction.getReceiver().getEmail());
+        }
+        if (transaction.getAccount() != null) {
+            view.accountId(transaction.getAccount().getId())
+                    .accountNumber(transaction.getAccount().getAccountNumber());
+        }
+        // Only identifiers of these, which never initialize a lazy proxy
+        if (transaction.getCard() != null) {
+            view.cardId(transaction.getCard().getId());
+        }
+        if (transaction.getMoneyRequest() != null) {
+            view.moneyRequestId(transaction.getMoneyRequest().getId());
+        }
+        if (transaction.getInvoice() != null) {
+            view.invoiceId(transaction.getInvoice().getId());
+        }
+        return view.build();
+    }
+}
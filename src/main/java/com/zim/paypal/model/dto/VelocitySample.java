@@ -0,0 +1,20 @@
+package com.zim.paypal.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The parts of a sent transaction velocity checks look at
+ *
+ * @author Zim Development Team
+ */
+public interface VelocitySample {
+
+    Long getId();
+
+    Long getSenderId();
+
+    LocalDateTime getCreatedAt();
+
+    BigDecimal getAmount();
+}
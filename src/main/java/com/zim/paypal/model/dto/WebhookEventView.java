@@ -0,0 +1,34 @@
+package com.zim.paypal.model.dto;
+
+import com.zim.paypal.model.entity.Webhook;
+import com.zim.paypal.model.entity.WebhookEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat read model of a webhook delivery for API responses.
+ * Field order matches the JPQL constructor expression in WebhookEventRepository.
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEventView {
+
+    private Long id;
+    private Webhook.EventType eventType;
+    private WebhookEvent.DeliveryStatus status;
+    private String payload;
+    private Integer responseCode;
+    private String responseBody;
+    private Integer attempts;
+    private LocalDateTime lastAttemptAt;
+    private LocalDateTime nextRetryAt;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,53 @@
+package com.zim.paypal.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zim.paypal.model.entity.Webhook;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flat read model of a webhook for API responses. The signing secret is only
+ * returned once, when the webhook is created.
+ * 
+ * @author Zim Development Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookView {
+
+    private Long id;
+    private String url;
+    private List<Webhook.EventType> events;
+    private Boolean isActive;
+    private String description;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String secret;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Build a view from a webhook, without its secret
+     * 
+     * @param webhook Webhook entity
+     * @return Webhook view
+     */
+    public static WebhookView from(Webhook webhook) {
+        return WebhookView.builder()
+                .id(webhook.getId())
+                .url(webhook.getUrl())
+                .events(new ArrayList<>(webhook.getEvents()))
+                .isActive(webhook.getIsActive())
+                .description(webhook.getDescription())
+                .createdAt(webhook.getCreatedAt())
+                .updatedAt(webhook.getUpdatedAt())
+                .build();
+    }
+}
@@ -53,6 +53,11 @@ public class Account {
     @Builder.Default
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Part of the balance held for risk review, which cannot be debited
+    @Column(name = "held_amount", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal heldAmount = BigDecimal.ZERO;
+
     @Column(name = "currency_code", nullable = false, length = 3)
     @Builder.Default
     private String currencyCode = "USD";
@@ -110,26 +115,35 @@ public class Account {
      * Withdraw money from account
      * 
      * @param amount Amount to withdraw
-     * @throws IllegalArgumentException if amount is negative, zero, or exceeds balance
+     * @throws IllegalArgumentException if amount is negative, zero, or exceeds the available balance
      */
     public void withdraw(BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
-        if (this.balance.compareTo(amount) < 0) {
+        if (!hasSufficientBalance(amount)) {
             throw new IllegalArgumentException("Insufficient balance");
         }
         this.balance = this.balance.subtract(amount);
     }
 
     /**
-     * Check if account has sufficient balance
+     * Get the balance less the amount held for risk review
+     * 
+     * @return Available balance
+     */
+    public BigDecimal getAvailableBalance() {
+        return heldAmount == null ? balance : balance.subtract(heldAmount);
+    }
+
+    /**
+     * Check if account has sufficient available balance
      * 
      * @param amount Amount to check
-     * @return true if balance is sufficient
+     * @return true if the available balance is sufficient
      */
     public boolean hasSufficientBalance(BigDecimal amount) {
-        return this.balance.compareTo(amount) >= 0;
+        return getAvailableBalance().compareTo(amount) >= 0;
     }
 
     /**
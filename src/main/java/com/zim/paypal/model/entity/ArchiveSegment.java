@@ -0,0 +1,84 @@
+package com.zim.paypal.model.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * ArchiveSegment entity: one compressed, checksummed file of rows moved out
+ * of an OLTP table. Segment files are written once and never modified.
+ *
+ * @author Zim Development Team
+ */
+@Entity
+@Immutable
+@Table(name = "archive_segments", indexes = {
+    @Index(name = "idx_archive_segment_created", columnList = "record_type, min_created_at, max_created_at"),
+    @Index(name = "idx_archive_segment_key", columnList = "record_type, min_key, max_key")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+@ToString
+public class ArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "record_type", nullable = false, length = 30)
+    @NotNull(message = "Record type is required")
+    private RecordType recordType;
+
+    /** Path relative to the archive directory */
+    @Column(name = "file_path", nullable = false, unique = true, length = 500)
+    private String filePath;
+
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+
+    @Column(name = "byte_size", nullable = false)
+    private Long byteSize;
+
+    /** SHA-256 of the file, hex encoded */
+    @Column(name = "checksum", nullable = false, length = 64)
+    private String checksum;
+
+    @Column(name = "min_created_at", nullable = false)
+    private LocalDateTime minCreatedAt;
+
+    @Column(name = "max_created_at", nullable = false)
+    private LocalDateTime maxCreatedAt;
+
+    /** Smallest business key in the segment (transaction number for transactions) */
+    @Column(name = "min_key", length = 50)
+    private String minKey;
+
+    @Column(name = "max_key", length = 50)
+    private String maxKey;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Kind of rows a segment holds
+     */
+    public enum RecordType {
+        TRANSACTION, NOTIFICATION, RISK_SCORE, WEBHOOK_EVENT
+    }
+
+    /**
+     * Kind of owner in the sparse owner index
+     */
+    public enum OwnerType {
+        USER, ACCOUNT
+    }
+}
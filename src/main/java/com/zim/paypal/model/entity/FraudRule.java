@@ -68,6 +68,11 @@ public class FraudRule {
     @Builder.Default
     private Boolean isActive = true;
 
+    /** Shadow rules are scored for comparison only and never affect a transaction */
+    @Column(name = "is_shadow", nullable = false)
+    @Builder.Default
+    private Boolean isShadow = false;
+
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
 
@@ -0,0 +1,100 @@
+package com.zim.paypal.model.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * LedgerEntry entity representing one leg of a double-entry journal posting.
+ * Entries are append-only; every money movement writes a balanced set of legs
+ * in the same database transaction as the balance change.
+ * 
+ * @author Zim Development Team
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries", indexes = {
+    @Index(name = "idx_ledger_account_entry", columnList = "account_id, id"),
+    @Index(name = "idx_ledger_account_created", columnList = "account_id, created_at"),
+    @Index(name = "idx_ledger_transaction", columnList = "transaction_id")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+@ToString
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Originating transaction, kept as a plain id so the journal never depends on
+     * the lifecycle of the transactions table
+     */
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    /**
+     * Wallet account for WALLET legs, null for system ledger accounts
+     */
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ledger_account", nullable = false, length = 30)
+    @NotNull(message = "Ledger account is required")
+    private LedgerAccount ledgerAccount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 10)
+    @NotNull(message = "Entry type is required")
+    private EntryType entryType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
+    private BigDecimal amount;
+
+    @Column(name = "currency_code", nullable = false, length = 3)
+    @Builder.Default
+    private String currencyCode = "USD";
+
+    @Column(name = "description", length = 255)
+    private String description;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Enumeration for ledger accounts
+     */
+    public enum LedgerAccount {
+        WALLET, EXTERNAL_FUNDING, FEE_REVENUE, MERCHANT_SETTLEMENT, REWARDS, OPENING_BALANCE
+    }
+
+    /**
+     * Enumeration for entry types
+     */
+    public enum EntryType {
+        DEBIT, CREDIT
+    }
+
+    /**
+     * Signed effect of this entry on a wallet balance
+     * 
+     * @return Amount for credits, negated amount for debits
+     */
+    public BigDecimal getSignedAmount() {
+        return entryType == EntryType.CREDIT ? amount : amount.negate();
+    }
+}
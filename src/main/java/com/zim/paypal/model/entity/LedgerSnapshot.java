@@ -0,0 +1,56 @@
+package com.zim.paypal.model.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * LedgerSnapshot entity holding a wallet balance checkpoint.
+ * The balance covers every ledger entry of the account up to lastEntryId,
+ * and snapshotAt is the latest creation time among those entries.
+ * 
+ * @author Zim Development Team
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_snapshots", indexes = {
+    @Index(name = "idx_ledger_snapshot_account", columnList = "account_id, snapshot_at"),
+    @Index(name = "idx_ledger_snapshot_entry", columnList = "last_entry_id")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+@ToString
+public class LedgerSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    @NotNull(message = "Account is required")
+    private Long accountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @NotNull(message = "Balance is required")
+    private BigDecimal balance;
+
+    @Column(name = "last_entry_id", nullable = false)
+    @NotNull(message = "Last entry ID is required")
+    private Long lastEntryId;
+
+    @Column(name = "snapshot_at", nullable = false)
+    @NotNull(message = "Snapshot time is required")
+    private LocalDateTime snapshotAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,131 @@
+package com.zim.paypal.model.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * OutboxEvent entity: a side effect recorded in the same transaction as the
+ * change that caused it, dispatched to consumers after commit
+ *
+ * @author Zim Development Team
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_dispatch", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_outbox_claim", columnList = "claim_token")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    @NotNull(message = "Event type is required")
+    private EventType eventType;
+
+    /** Transaction ID for transaction events */
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** Reference number, e.g. the batch reference of a bulk payout */
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    /** Comma-separated consumers that already handled the event (checkpoint for retries) */
+    @Column(name = "completed_consumers")
+    private String completedConsumers;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    /**
+     * Enumeration for event types
+     */
+    public enum EventType {
+        TRANSACTION_COMPLETED, BATCH_TRANSFER_COMPLETED, TRANSFER_RISK_DEFERRED
+    }
+
+    /**
+     * Enumeration for outbox status
+     */
+    public enum OutboxStatus {
+        PENDING, PROCESSED, FAILED
+    }
+
+    /**
+     * Get consumers that already handled the event
+     */
+    public Set<String> getCompletedConsumerSet() {
+        Set<String> consumers = new LinkedHashSet<>();
+        if (completedConsumers != null && !completedConsumers.isEmpty()) {
+            consumers.addAll(Arrays.asList(completedConsumers.split(",")));
+        }
+        return consumers;
+    }
+
+    /**
+     * Mark as processed by all consumers
+     */
+    public void markAsProcessed(Set<String> consumers) {
+        this.status = OutboxStatus.PROCESSED;
+        this.completedConsumers = String.join(",", consumers);
+        this.processedAt = LocalDateTime.now();
+        this.claimToken = null;
+        this.lastError = null;
+    }
+
+    /**
+     * Record a failed attempt; retry later or give up after the maximum attempts
+     */
+    public void recordFailure(Set<String> consumers, String error, LocalDateTime nextAttempt, int maxAttempts) {
+        this.attempts++;
+        this.completedConsumers = String.join(",", consumers);
+        this.claimToken = null;
+        this.lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (this.attempts >= maxAttempts) {
+            this.status = OutboxStatus.FAILED;
+        } else {
+            this.nextAttemptAt = nextAttempt;
+        }
+    }
+}
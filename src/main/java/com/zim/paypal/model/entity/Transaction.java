@@ -22,7 +22,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_transaction_card", columnList = "card_id"),
     @Index(name = "idx_transaction_type", columnList = "transaction_type"),
     @Index(name = "idx_transaction_status", columnList = "status"),
-    @Index(name = "idx_transaction_created", columnList = "created_at")
+    @Index(name = "idx_transaction_created", columnList = "created_at"),
+    @Index(name = "idx_transaction_reference", columnList = "reference_number")
 })
 @Getter
 @Setter
@@ -52,6 +52,11 @@ public class TransactionReversal {
     @JoinColumn(name = "processed_by_id")
     private User processedBy;
 
+    // Account whose funds are held until the reversal is rejected or processed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "held_account_id")
+    private Account heldAccount;
+
     @Column(nullable = false, precision = 19, scale = 2)
     @NotNull(message = "Reversal amount is required")
     private BigDecimal reversalAmount;
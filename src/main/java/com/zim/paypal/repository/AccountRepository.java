@@ -1,12 +1,18 @@
 package com.zim.paypal.repository;
 
+import com.zim.paypal.model.dto.AccountView;
 import com.zim.paypal.model.entity.Account;
 import com.zim.paypal.model.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +24,10 @@ import java.util.Optional;
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
+    String VIEW_SELECT = "SELECT new com.zim.paypal.model.dto.AccountView(" +
+            "a.id, a.accountNumber, a.balance, a.currencyCode, c.symbol, a.accountType, a.status, a.createdAt) " +
+            "FROM Account a LEFT JOIN a.currency c ";
+
     /**
      * Find account by account number
      * 
@@ -34,6 +44,25 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     List<Account> findByUser(User user);
 
+    /**
+     * Find flat views of a user's accounts, with currency joined in the same query
+     * 
+     * @param userId User ID
+     * @return List of account views
+     */
+    @Query(VIEW_SELECT + "WHERE a.user.id = :userId ORDER BY a.id")
+    List<AccountView> findViewsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find a flat view of an account owned by a user
+     * 
+     * @param id Account ID
+     * @param userId Owner user ID
+     * @return Optional account view
+     */
+    @Query(VIEW_SELECT + "WHERE a.id = :id AND a.user.id = :userId")
+    Optional<AccountView> findViewByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
     /**
      * Find active account by user
      * 
@@ -59,5 +88,78 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     @Query("SELECT COUNT(a) FROM Account a WHERE a.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
-}
 
+    /**
+     * Debit an active account in a single guarded update.
+     * The row is only touched when the balance covers the amount, so concurrent
+     * debits can never drive it negative or overwrite each other.
+     * Managed Account instances are not refreshed by this update.
+     * 
+     * @param accountId Account ID
+     * @param amount Amount to debit
+     * @return Number of rows updated (0 if missing, inactive or insufficient balance)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE a.id = :accountId AND a.balance - a.heldAmount >= :amount AND a.status = 'ACTIVE'")
+    int debitIfSufficient(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Credit an active account in a single update.
+     * Managed Account instances are not refreshed by this update.
+     * 
+     * @param accountId Account ID
+     * @param amount Amount to credit
+     * @return Number of rows updated (0 if missing or inactive)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE a.id = :accountId AND a.status = 'ACTIVE'")
+    int credit(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Hold part of an account's balance for risk review. The hold may exceed
+     * what is still available, in which case nothing more can be debited.
+     * 
+     * @param accountId Account ID
+     * @param amount Amount to hold
+     * @return Number of rows updated (0 if missing)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.heldAmount = a.heldAmount + :amount, a.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE a.id = :accountId")
+    int hold(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Release an amount held by {@link #hold}.
+     * 
+     * @param accountId Account ID
+     * @param amount Amount to release
+     * @return Number of rows updated (0 if missing)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.heldAmount = CASE WHEN a.heldAmount > :amount " +
+           "THEN a.heldAmount - :amount ELSE 0 END, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :accountId")
+    int release(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Find active accounts of several users, oldest first, with the user fetched
+     * 
+     * @param userIds User IDs
+     * @return List of accounts
+     */
+    @Query("SELECT a FROM Account a JOIN FETCH a.user u WHERE u.id IN :userIds AND a.status = 'ACTIVE' " +
+           "ORDER BY a.createdAt ASC")
+    List<Account> findActiveAccountsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Lock accounts with SELECT ... FOR UPDATE in one statement. Rows are locked in
+     * ascending ID order, so callers locking overlapping sets cannot deadlock.
+     * 
+     * @param ids Account IDs
+     * @return Locked accounts, ordered by ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> lockAllByIdInOrder(@Param("ids") Collection<Long> ids);
+}
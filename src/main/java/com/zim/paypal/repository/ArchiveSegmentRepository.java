@@ -0,0 +1,30 @@
+package com.zim.paypal.repository;
+
+import com.zim.paypal.model.entity.ArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for ArchiveSegment entity
+ *
+ * @author Zim Development Team
+ */
+@Repository
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+
+    /**
+     * Find segments whose business key range covers a key
+     *
+     * @param recordType Record type
+     * @param key Business key, e.g. a transaction number
+     * @return Candidate segments, newest first
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.recordType = :recordType " +
+           "AND s.minKey <= :key AND s.maxKey >= :key ORDER BY s.id DESC")
+    List<ArchiveSegment> findByKeyRange(@Param("recordType") ArchiveSegment.RecordType recordType,
+                                        @Param("key") String key);
+}
@@ -47,6 +47,16 @@ public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long
            "AND (er.effectiveTo IS NULL OR er.effectiveTo >= :now)")
     List<ExchangeRate> findEffectiveRates(@Param("now") LocalDateTime now);
 
+    /**
+     * Find when the next active rate takes effect
+     * 
+     * @param now Current date time
+     * @return Earliest future effective from, or null if none
+     */
+    @Query("SELECT MIN(er.effectiveFrom) FROM ExchangeRate er WHERE er.isActive = true " +
+           "AND er.effectiveFrom > :now")
+    LocalDateTime findNextEffectiveFrom(@Param("now") LocalDateTime now);
+
     /**
      * Find rates by from currency
      * 
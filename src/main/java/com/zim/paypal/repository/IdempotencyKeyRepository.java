@@ -0,0 +1,70 @@
+package com.zim.paypal.repository;
+
+import com.zim.paypal.model.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository interface for IdempotencyKey entity
+ *
+ * @author Zim Development Team
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    /**
+     * Find key by scope and client-supplied key
+     *
+     * @param scope Caller scope
+     * @param idempotencyKey Client-supplied key
+     * @return Optional key
+     */
+    Optional<IdempotencyKey> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    /**
+     * Delete expired completed keys. Keys still in progress never expire: the
+     * request may have moved money without storing its outcome.
+     *
+     * @param now Current date time
+     * @return Number of deleted keys
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now " +
+           "AND k.status = com.zim.paypal.model.entity.IdempotencyKey.KeyStatus.COMPLETED")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Delete one key if it is completed and expired, so it can be claimed again
+     *
+     * @param id Key ID
+     * @param now Current date time
+     * @return Number of deleted keys, 0 or 1
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.id = :id AND k.expiresAt < :now " +
+           "AND k.status = com.zim.paypal.model.entity.IdempotencyKey.KeyStatus.COMPLETED")
+    int deleteIfExpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Renew the lease of keys still in progress
+     *
+     * @param ids Key IDs
+     * @param until New lease end
+     * @return Number of renewed keys
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyKey k SET k.expiresAt = :until WHERE k.id IN :ids " +
+           "AND k.status = com.zim.paypal.model.entity.IdempotencyKey.KeyStatus.IN_PROGRESS")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,90 @@
+package com.zim.paypal.repository;
+
+import com.zim.paypal.model.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for LedgerEntry entity
+ * 
+ * @author Zim Development Team
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Find journal legs for a transaction
+     * 
+     * @param transactionId Transaction ID
+     * @return List of ledger entries
+     */
+    List<LedgerEntry> findByTransactionIdOrderByIdAsc(Long transactionId);
+
+    /**
+     * Sum signed wallet movements after a snapshot and before a point in time
+     * 
+     * @param accountId Account ID
+     * @param afterId Exclusive lower bound on entry ID (snapshot's last entry)
+     * @param before Exclusive upper bound on creation time
+     * @return Net balance change
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.entryType = 'CREDIT' THEN e.amount ELSE -e.amount END), 0) " +
+           "FROM LedgerEntry e WHERE e.accountId = :accountId AND e.id > :afterId AND e.createdAt < :before")
+    BigDecimal sumSignedAmountAfter(@Param("accountId") Long accountId,
+                                    @Param("afterId") Long afterId,
+                                    @Param("before") LocalDateTime before);
+
+    /**
+     * Sum wallet entries of one type within a time range
+     * 
+     * @param accountId Account ID
+     * @param entryType Entry type
+     * @param from Inclusive start time
+     * @param to Exclusive end time
+     * @return Total amount
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e WHERE e.accountId = :accountId " +
+           "AND e.entryType = :entryType AND e.createdAt >= :from AND e.createdAt < :to")
+    BigDecimal sumAmountByTypeBetween(@Param("accountId") Long accountId,
+                                      @Param("entryType") LedgerEntry.EntryType entryType,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+
+    /**
+     * Find the highest entry ID created before a point in time
+     * 
+     * @param before Exclusive upper bound on creation time
+     * @return Highest entry ID, or null if none
+     */
+    @Query("SELECT MAX(e.id) FROM LedgerEntry e WHERE e.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Aggregate net wallet movements per account over an entry ID range
+     * 
+     * @param afterId Exclusive lower bound on entry ID
+     * @param uptoId Inclusive upper bound on entry ID
+     * @return Per-account deltas
+     */
+    @Query("SELECT e.accountId AS accountId, " +
+           "SUM(CASE WHEN e.entryType = 'CREDIT' THEN e.amount ELSE -e.amount END) AS delta, " +
+           "MAX(e.createdAt) AS lastCreatedAt " +
+           "FROM LedgerEntry e WHERE e.accountId IS NOT NULL AND e.id > :afterId AND e.id <= :uptoId " +
+           "GROUP BY e.accountId")
+    List<AccountDelta> aggregateDeltas(@Param("afterId") Long afterId, @Param("uptoId") Long uptoId);
+
+    /**
+     * Projection of per-account movement over an entry range
+     */
+    interface AccountDelta {
+        Long getAccountId();
+        BigDecimal getDelta();
+        LocalDateTime getLastCreatedAt();
+    }
+}
@@ -0,0 +1,49 @@
+package com.zim.paypal.repository;
+
+import com.zim.paypal.model.entity.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for LedgerSnapshot entity
+ * 
+ * @author Zim Development Team
+ */
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+
+    /**
+     * Find the latest snapshot whose covered entries all precede a point in time
+     * 
+     * @param accountId Account ID
+     * @param before Exclusive upper bound on snapshot time
+     * @return Optional LedgerSnapshot
+     */
+    Optional<LedgerSnapshot> findFirstByAccountIdAndSnapshotAtLessThanOrderByLastEntryIdDesc(
+            Long accountId, LocalDateTime before);
+
+    /**
+     * Find the latest snapshot of each given account
+     * 
+     * @param accountIds Account IDs
+     * @return List of snapshots
+     */
+    @Query("SELECT s FROM LedgerSnapshot s WHERE s.accountId IN :accountIds AND s.lastEntryId = " +
+           "(SELECT MAX(s2.lastEntryId) FROM LedgerSnapshot s2 WHERE s2.accountId = s.accountId)")
+    List<LedgerSnapshot> findLatestByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Find the entry ID up to which the journal has been checkpointed
+     * 
+     * @return Highest covered entry ID, or null if no snapshot exists
+     */
+    @Query("SELECT MAX(s.lastEntryId) FROM LedgerSnapshot s")
+    Long findHighWatermark();
+}
@@ -0,0 +1,69 @@
+package com.zim.paypal.repository;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for OutboxEvent entity
+ *
+ * @author Zim Development Team
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Find IDs of pending events that are due, oldest first
+     *
+     * @param now Current date time
+     * @param pageable Batch size
+     * @return Event IDs
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim due events for a dispatcher run. The lease pushes next attempt forward,
+     * so events of a dispatcher that dies mid-batch become due again.
+     *
+     * @param ids Candidate event IDs
+     * @param claimToken Token identifying this run
+     * @param now Current date time
+     * @param leaseUntil End of the lease
+     * @return Number of claimed events
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.claimToken = :claimToken, e.nextAttemptAt = :leaseUntil " +
+           "WHERE e.id IN :ids AND e.status = 'PENDING' AND e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Find events claimed by a dispatcher run
+     *
+     * @param claimToken Claim token
+     * @return Claimed events, oldest first
+     */
+    List<OutboxEvent> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    /**
+     * Delete processed events older than a cutoff
+     *
+     * @param before Cutoff date time
+     * @return Number of deleted events
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'PROCESSED' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -6,6 +6,8 @@ import com.zim.paypal.model.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -67,5 +69,16 @@ public interface SuspiciousActivityRepository extends JpaRepository<SuspiciousAc
      * @return List of activities
      */
     List<SuspiciousActivity> findByCreatedAtAfterOrderByCreatedAtDesc(LocalDateTime date);
-}
 
+    /**
+     * Risk factors of a user's activities created after date. Compared by the
+     * caller, as risk_factors is a TEXT column.
+     *
+     * @param userId User ID
+     * @param date Date
+     * @return Risk factors, one entry per activity
+     */
+    @Query("SELECT sa.riskFactors FROM SuspiciousActivity sa WHERE sa.user.id = :userId AND sa.createdAt > :date")
+    List<String> findRiskFactorsByUserIdAndCreatedAtAfter(@Param("userId") Long userId,
+                                                          @Param("date") LocalDateTime date);
+}
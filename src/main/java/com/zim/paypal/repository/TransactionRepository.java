@@ -1,18 +1,28 @@
 package com.zim.paypal.repository;
 
+import com.zim.paypal.model.dto.TransactionExportRow;
+import com.zim.paypal.model.dto.TransactionKey;
+import com.zim.paypal.model.dto.TransactionView;
+import com.zim.paypal.model.dto.VelocitySample;
 import com.zim.paypal.model.entity.Account;
 import com.zim.paypal.model.entity.Transaction;
 import com.zim.paypal.model.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Transaction entity
@@ -22,6 +32,13 @@ import java.util.Optional;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    String VIEW_SELECT = "SELECT new com.zim.paypal.model.dto.TransactionView(" +
+            "t.id, t.transactionNumber, t.transactionType, t.paymentMethod, t.status, t.amount, t.fee, " +
+            "t.netAmount, t.currencyCode, t.description, t.referenceNumber, t.failureReason, " +
+            "s.id, s.username, s.email, r.id, r.username, r.email, a.id, a.accountNumber, " +
+            "t.card.id, t.moneyRequest.id, t.invoice.id, t.createdAt, t.completedAt) " +
+            "FROM Transaction t LEFT JOIN t.sender s LEFT JOIN t.receiver r LEFT JOIN t.account a ";
+
     /**
      * Find transaction by transaction number
      * 
@@ -58,30 +75,124 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     Page<Transaction> findByAccountOrderByCreatedAtDesc(Account account, Pageable pageable);
 
     /**
-     * Find transactions by user (sender or receiver)
+     * Find the keys of a page of a user's transactions (sent, received or
+     * deposited), newest first, strictly after the (createdAt, id) position.
+     * Reads one range of the user_transactions primary key without touching
+     * transactions, so every page costs the same however deep it is.
      * 
-     * @param user User entity
-     * @param pageable Pageable object
-     * @return Page of transactions
+     * @param userId User ID
+     * @param createdAt Created-at of the last row of the previous page
+     * @param id ID of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return Transaction keys ordered by created_at and id, descending
+     */
+    @Query(value = "SELECT ut.transaction_id AS id, ut.created_at AS createdAt FROM user_transactions ut " +
+           "WHERE ut.user_id = :userId AND (ut.created_at, ut.transaction_id) < (:createdAt, :id) " +
+           "ORDER BY ut.created_at DESC, ut.transaction_id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<TransactionKey> findPageKeysByUserBefore(@Param("userId") Long userId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  @Param("limit") int limit);
+
+    /**
+     * Find flat views of transactions, with parties joined in the same query.
+     * The created_at bounds let the database skip partitions outside them.
+     * 
+     * @param ids Transaction IDs
+     * @param startDate Oldest created_at among the IDs
+     * @param endDate Newest created_at among the IDs
+     * @return Transaction views, in no particular order
+     */
+    @Query(VIEW_SELECT + "WHERE t.id IN :ids AND t.createdAt BETWEEN :startDate AND :endDate")
+    List<TransactionView> findViewsByIdIn(@Param("ids") Collection<Long> ids,
+                                          @Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Find a flat view of a transaction, with parties joined in the same query
+     * 
+     * @param id Transaction ID
+     * @return Optional transaction view
+     */
+    @Query(VIEW_SELECT + "WHERE t.id = :id")
+    Optional<TransactionView> findViewById(@Param("id") Long id);
+
+    /**
+     * Count a user's participation in a transaction (0 or 1)
+     * 
+     * @param userId User ID
+     * @param transactionId Transaction ID
+     * @return Number of participation rows
      */
-    @Query("SELECT t FROM Transaction t WHERE t.sender = :user OR t.receiver = :user ORDER BY t.createdAt DESC")
-    Page<Transaction> findByUserOrderByCreatedAtDesc(@Param("user") User user, Pageable pageable);
+    @Query(value = "SELECT COUNT(*) FROM user_transactions ut " +
+           "WHERE ut.transaction_id = :transactionId AND ut.user_id = :userId",
+           nativeQuery = true)
+    long countParticipation(@Param("userId") Long userId, @Param("transactionId") Long transactionId);
 
     /**
-     * Find transactions by user and date range
+     * Find a user's transactions (sent, received or deposited) in a date range
      * 
-     * @param user User entity
+     * @param userId User ID
      * @param startDate Start date
      * @param endDate End date
-     * @param pageable Pageable object
-     * @return Page of transactions
+     * @return Transactions, newest first
      */
-    @Query("SELECT t FROM Transaction t WHERE (t.sender = :user OR t.receiver = :user) " +
-           "AND t.createdAt BETWEEN :startDate AND :endDate ORDER BY t.createdAt DESC")
-    Page<Transaction> findByUserAndDateRange(@Param("user") User user, 
-                                              @Param("startDate") LocalDateTime startDate,
-                                              @Param("endDate") LocalDateTime endDate,
-                                              Pageable pageable);
+    @Query(value = "SELECT t.* FROM user_transactions ut JOIN transactions t ON t.id = ut.transaction_id " +
+           "WHERE ut.user_id = :userId AND ut.created_at BETWEEN :startDate AND :endDate " +
+           "AND t.created_at BETWEEN :startDate AND :endDate " +
+           "ORDER BY ut.created_at DESC, ut.transaction_id DESC",
+           nativeQuery = true)
+    List<Transaction> findByUserAndDateRange(@Param("userId") Long userId,
+                                             @Param("startDate") LocalDateTime startDate,
+                                             @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Count a user's transactions (sent, received or deposited) in a date range
+     * 
+     * @param userId User ID
+     * @param startDate Start date
+     * @param endDate End date
+     * @return Number of transactions
+     */
+    @Query(value = "SELECT COUNT(*) FROM user_transactions ut " +
+           "WHERE ut.user_id = :userId AND ut.created_at BETWEEN :startDate AND :endDate",
+           nativeQuery = true)
+    long countByUserAndDateRange(@Param("userId") Long userId,
+                                 @Param("startDate") LocalDateTime startDate,
+                                 @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Stream a user's transactions (sent, received or deposited) in a date range,
+     * oldest first, for export. Rows are read-only projections fetched from a
+     * forward-only cursor in chunks, so memory stays flat however long the
+     * history is. Must be consumed inside a transaction and closed.
+     * 
+     * @param userId User ID
+     * @param startDate Start date (inclusive)
+     * @param endDate End date (exclusive)
+     * @return Stream of export rows
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(value = "SELECT t.id AS id, t.transaction_number AS transactionNumber, t.created_at AS createdAt, " +
+           "t.completed_at AS completedAt, t.transaction_type AS transactionType, t.status AS status, " +
+           "ut.direction AS direction, t.amount AS amount, t.fee AS fee, t.net_amount AS netAmount, " +
+           "t.currency_code AS currencyCode, " +
+           "CASE WHEN ut.direction = 'OUT' THEN r.email ELSE s.email END AS counterparty, " +
+           "t.description AS description, t.reference_number AS referenceNumber " +
+           "FROM user_transactions ut JOIN transactions t ON t.id = ut.transaction_id " +
+           "LEFT JOIN users s ON s.id = t.sender_id LEFT JOIN users r ON r.id = t.receiver_id " +
+           "WHERE ut.user_id = :userId AND ut.created_at >= :startDate AND ut.created_at < :endDate " +
+           "AND t.created_at >= :startDate AND t.created_at < :endDate " +
+           "ORDER BY ut.created_at, ut.transaction_id",
+           nativeQuery = true)
+    Stream<TransactionExportRow> streamExportRows(@Param("userId") Long userId,
+                                                  @Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
 
     /**
      * Find transactions by account and date range
@@ -98,17 +209,73 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
                                                  @Param("endDate") LocalDateTime endDate);
 
     /**
-     * Find transactions by sender user ID and date range (for limit checking)
+     * Velocity samples of everything a user sent since a point in time
      * 
-     * @param userId User ID
-     * @param startDate Start date
-     * @param endDate End date
-     * @return List of transactions
+     * @param userId Sender user ID
+     * @param since Oldest created_at to include
+     * @return Samples, oldest first
      */
-    @Query("SELECT t FROM Transaction t WHERE t.sender.id = :userId " +
-           "AND t.createdAt BETWEEN :startDate AND :endDate ORDER BY t.createdAt DESC")
-    List<Transaction> findBySenderIdAndCreatedAtBetween(@Param("userId") Long userId,
-                                                        @Param("startDate") LocalDateTime startDate,
-                                                        @Param("endDate") LocalDateTime endDate);
-}
+    @Query("SELECT t.id AS id, t.sender.id AS senderId, t.createdAt AS createdAt, t.amount AS amount " +
+           "FROM Transaction t WHERE t.sender.id = :userId AND t.createdAt >= :since ORDER BY t.createdAt")
+    List<VelocitySample> findVelocitySamplesBySender(@Param("userId") Long userId,
+                                                     @Param("since") LocalDateTime since);
+
+    /**
+     * Velocity samples since a point in time of every user who sent anything
+     * since a later point in time
+     * 
+     * @param since Oldest created_at to include
+     * @param activeSince Senders must have sent something since this
+     * @return Samples, oldest first
+     */
+    @Query("SELECT t.id AS id, t.sender.id AS senderId, t.createdAt AS createdAt, t.amount AS amount " +
+           "FROM Transaction t WHERE t.createdAt >= :since AND t.sender.id IN " +
+           "(SELECT a.sender.id FROM Transaction a WHERE a.createdAt >= :activeSince) ORDER BY t.createdAt")
+    List<VelocitySample> findVelocitySamplesOfActiveSenders(@Param("since") LocalDateTime since,
+                                                            @Param("activeSince") LocalDateTime activeSince);
+
+    /**
+     * Count transactions by status
+     * 
+     * @param status Transaction status
+     * @return Number of transactions
+     */
+    long countByStatus(Transaction.TransactionStatus status);
 
+    /**
+     * Sum the amounts of transactions by status
+     * 
+     * @param status Transaction status
+     * @return Total amount
+     */
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.status = :status")
+    BigDecimal sumAmountByStatus(@Param("status") Transaction.TransactionStatus status);
+
+    /**
+     * Count transactions created since a time; scans only the recent partitions
+     * 
+     * @param since Start time
+     * @return Number of transactions
+     */
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
+
+    /**
+     * Find transactions sharing a reference number (e.g. a payout batch)
+     * 
+     * @param referenceNumber Reference number
+     * @return List of transactions with sender, receiver and account fetched
+     */
+    @Query("SELECT t FROM Transaction t LEFT JOIN FETCH t.sender LEFT JOIN FETCH t.receiver LEFT JOIN FETCH t.account " +
+           "WHERE t.referenceNumber = :referenceNumber ORDER BY t.id ASC")
+    List<Transaction> findByReferenceNumberWithParties(@Param("referenceNumber") String referenceNumber);
+
+    /**
+     * Find transaction by ID with sender, receiver and account fetched
+     * 
+     * @param id Transaction ID
+     * @return Optional transaction
+     */
+    @Query("SELECT t FROM Transaction t LEFT JOIN FETCH t.sender LEFT JOIN FETCH t.receiver LEFT JOIN FETCH t.account " +
+           "WHERE t.id = :id")
+    Optional<Transaction> findByIdWithParties(@Param("id") Long id);
+}
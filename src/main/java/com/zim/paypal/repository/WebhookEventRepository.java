@@ -1,10 +1,13 @@
 package com.zim.paypal.repository;
 
+import com.zim.paypal.model.dto.WebhookEventView;
 import com.zim.paypal.model.entity.Webhook;
 import com.zim.paypal.model.entity.WebhookEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -27,6 +30,19 @@ public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long
      */
     Page<WebhookEvent> findByWebhookOrderByCreatedAtDesc(Webhook webhook, Pageable pageable);
 
+    /**
+     * Find flat views of a webhook's deliveries
+     * 
+     * @param webhookId Webhook ID
+     * @param pageable Pageable object
+     * @return Page of delivery views
+     */
+    @Query(value = "SELECT new com.zim.paypal.model.dto.WebhookEventView(e.id, e.eventType, e.status, e.payload, " +
+                   "e.responseCode, e.responseBody, e.attempts, e.lastAttemptAt, e.nextRetryAt, e.createdAt) " +
+                   "FROM WebhookEvent e WHERE e.webhook.id = :webhookId ORDER BY e.createdAt DESC",
+           countQuery = "SELECT COUNT(e) FROM WebhookEvent e WHERE e.webhook.id = :webhookId")
+    Page<WebhookEventView> findViewsByWebhookId(@Param("webhookId") Long webhookId, Pageable pageable);
+
     /**
      * Find pending events
      * 
@@ -3,6 +3,8 @@ package com.zim.paypal.repository;
 import com.zim.paypal.model.entity.User;
 import com.zim.paypal.model.entity.Webhook;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,12 +18,13 @@ import java.util.List;
 public interface WebhookRepository extends JpaRepository<Webhook, Long> {
 
     /**
-     * Find webhooks by user
+     * Find webhooks by user, with subscribed events fetched in the same query
      * 
      * @param user User entity
      * @return List of webhooks
      */
-    List<Webhook> findByUserOrderByCreatedAtDesc(User user);
+    @Query("SELECT DISTINCT w FROM Webhook w LEFT JOIN FETCH w.events WHERE w.user = :user ORDER BY w.createdAt DESC")
+    List<Webhook> findByUserOrderByCreatedAtDesc(@Param("user") User user);
 
     /**
      * Find active webhooks by user
@@ -5,19 +5,21 @@ import com.zim.paypal.model.entity.AccountLimit;
 import com.zim.paypal.model.entity.User;
 import com.zim.paypal.repository.AccountLimitRepository;
 import com.zim.paypal.repository.AccountRepository;
-import com.zim.paypal.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * Service for account limit management and validation
+ * Service for account limit management and validation. Checks read the
+ * role's resolved {@link LimitPolicyEngine.LimitPolicy} and the user's
+ * period spend.
  * 
  * @author Zim Development Team
  */
@@ -29,7 +31,9 @@ public class AccountLimitService {
 
     private final AccountLimitRepository limitRepository;
     private final AccountRepository accountRepository;
-    private final TransactionRepository transactionRepository;
+    private final SpendAggregateService spendAggregateService;
+    private final LimitPolicyEngine limitPolicyEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new account limit
@@ -64,6 +68,7 @@ public class AccountLimitService {
                 .build();
 
         AccountLimit savedLimit = limitRepository.save(limit);
+        eventPublisher.publishEvent(new LimitPolicyEngine.LimitsChangedEvent());
         log.info("Account limit created: {} by user: {}", limitDto.getLimitCode(), createdBy.getUsername());
         return savedLimit;
     }
@@ -105,6 +110,7 @@ public class AccountLimitService {
         limit.setUpdatedBy(updatedBy);
 
         AccountLimit savedLimit = limitRepository.save(limit);
+        eventPublisher.publishEvent(new LimitPolicyEngine.LimitsChangedEvent());
         log.info("Account limit updated: {} by user: {}", limitDto.getLimitCode(), updatedBy.getUsername());
         return savedLimit;
     }
@@ -151,25 +157,11 @@ public class AccountLimitService {
      */
     @Transactional(readOnly = true)
     public boolean canCreateAccount(Long userId, User.UserRole userRole) {
-        List<AccountLimit> limits = limitRepository.findByUserRoleAndLimitTypeAndIsActiveTrue(
-                userRole, AccountLimit.LimitType.ACCOUNT_COUNT);
-
-        if (limits.isEmpty()) {
+        LimitPolicyEngine.LimitPolicy policy = limitPolicyEngine.getPolicy(userRole);
+        if (policy.maxAccounts() == Integer.MAX_VALUE) {
             return true; // No limit configured
         }
-
-        // Get the most restrictive limit
-        AccountLimit limit = limits.stream()
-                .filter(l -> l.getMaxAccountsPerUser() != null)
-                .min((l1, l2) -> Integer.compare(l1.getMaxAccountsPerUser(), l2.getMaxAccountsPerUser()))
-                .orElse(null);
-
-        if (limit == null || limit.getMaxAccountsPerUser() == null) {
-            return true;
-        }
-
-        long currentAccountCount = accountRepository.countByUserId(userId);
-        return currentAccountCount < limit.getMaxAccountsPerUser();
+        return policy.allowsAnotherAccount(accountRepository.countByUserId(userId));
     }
 
     /**
@@ -182,92 +174,38 @@ public class AccountLimitService {
      */
     @Transactional(readOnly = true)
     public boolean isTransactionAmountAllowed(Long userId, User.UserRole userRole, BigDecimal amount) {
-        List<AccountLimit> limits = limitRepository.findByUserRoleAndLimitTypeAndIsActiveTrue(
-                userRole, AccountLimit.LimitType.TRANSACTION_AMOUNT);
-
-        if (limits.isEmpty()) {
-            return true; // No limit configured
-        }
-
-        // Check per-transaction limit
-        AccountLimit transactionLimit = limits.stream()
-                .filter(l -> l.getMaxTransactionAmount() != null)
-                .min((l1, l2) -> l1.getMaxTransactionAmount().compareTo(l2.getMaxTransactionAmount()))
-                .orElse(null);
-
-        if (transactionLimit != null && transactionLimit.getMaxTransactionAmount() != null) {
-            if (amount.compareTo(transactionLimit.getMaxTransactionAmount()) > 0) {
-                return false;
-            }
-        }
-
-        // Check daily limit
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
-
-        BigDecimal dailyTotal = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                userId, startOfDay, endOfDay)
-                .stream()
-                .map(t -> t.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        AccountLimit dailyLimit = limits.stream()
-                .filter(l -> l.getMaxDailyAmount() != null)
-                .min((l1, l2) -> l1.getMaxDailyAmount().compareTo(l2.getMaxDailyAmount()))
-                .orElse(null);
-
-        if (dailyLimit != null && dailyLimit.getMaxDailyAmount() != null) {
-            if (dailyTotal.add(amount).compareTo(dailyLimit.getMaxDailyAmount()) > 0) {
-                return false;
-            }
-        }
-
-        // Check weekly limit
-        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
-        LocalDateTime startOfWeek = weekStart.atStartOfDay();
-        LocalDateTime endOfWeek = weekStart.plusWeeks(1).atStartOfDay();
-
-        BigDecimal weeklyTotal = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                userId, startOfWeek, endOfWeek)
-                .stream()
-                .map(t -> t.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        AccountLimit weeklyLimit = limits.stream()
-                .filter(l -> l.getMaxWeeklyAmount() != null)
-                .min((l1, l2) -> l1.getMaxWeeklyAmount().compareTo(l2.getMaxWeeklyAmount()))
-                .orElse(null);
-
-        if (weeklyLimit != null && weeklyLimit.getMaxWeeklyAmount() != null) {
-            if (weeklyTotal.add(amount).compareTo(weeklyLimit.getMaxWeeklyAmount()) > 0) {
-                return false;
-            }
-        }
-
-        // Check monthly limit
-        LocalDate monthStart = today.withDayOfMonth(1);
-        LocalDateTime startOfMonth = monthStart.atStartOfDay();
-        LocalDateTime endOfMonth = monthStart.plusMonths(1).atStartOfDay();
-
-        BigDecimal monthlyTotal = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                userId, startOfMonth, endOfMonth)
-                .stream()
-                .map(t -> t.getAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        AccountLimit monthlyLimit = limits.stream()
-                .filter(l -> l.getMaxMonthlyAmount() != null)
-                .min((l1, l2) -> l1.getMaxMonthlyAmount().compareTo(l2.getMaxMonthlyAmount()))
-                .orElse(null);
+        return isBatchAmountAllowed(userId, userRole, amount, amount, 1);
+    }
 
-        if (monthlyLimit != null && monthlyLimit.getMaxMonthlyAmount() != null) {
-            if (monthlyTotal.add(amount).compareTo(monthlyLimit.getMaxMonthlyAmount()) > 0) {
-                return false;
-            }
-        }
+    /**
+     * Check if a movement about to be sent is within limits, using the
+     * period spend already in its risk context
+     * 
+     * @param context Risk context from {@link RiskContextLoader#forSend}
+     * @return true if allowed
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isTransactionAmountAllowed(RiskContext context) {
+        return limitPolicyEngine.getPolicy(context.getUser().getRole())
+                .allows(context.getAmount(), context.getSpent(), context.getAmount(), 1);
+    }
 
-        return true;
+    /**
+     * Check if a batch of transactions is within limits.
+     * The per-transaction limit applies to the largest item, period limits to the batch total and count.
+     * 
+     * @param userId User ID
+     * @param userRole User role
+     * @param largestAmount Largest single transaction amount
+     * @param totalAmount Total amount of the batch
+     * @param count Number of transactions in the batch
+     * @return true if allowed
+     */
+    @Transactional(readOnly = true)
+    public boolean isBatchAmountAllowed(Long userId, User.UserRole userRole,
+                                        BigDecimal largestAmount, BigDecimal totalAmount, int count) {
+        return limitPolicyEngine.getPolicy(userRole)
+                .allows(largestAmount, spendAggregateService.totals(userId, LocalDate.now()), totalAmount, count);
     }
 
     /**
@@ -1,19 +1,27 @@
 package com.zim.paypal.service;
 
+import com.zim.paypal.model.dto.AccountView;
 import com.zim.paypal.model.entity.Account;
 import com.zim.paypal.model.entity.Currency;
 import com.zim.paypal.model.entity.User;
 import com.zim.paypal.repository.AccountRepository;
 import com.zim.paypal.service.CurrencyService;
 import com.zim.paypal.service.AccountLimitService;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Service for account management operations
@@ -29,6 +37,11 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final CurrencyService currencyService;
     private final AccountLimitService accountLimitService;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdGenerator idGenerator;
+
+    private static final String CREDIT_SQL =
+            "UPDATE accounts SET balance = balance + ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND status = 'ACTIVE'";
 
     /**
      * Create default account for user
@@ -145,21 +158,14 @@ public class AccountService {
      * 
      * @param accountId Account ID
      * @param amount Amount to deposit
-     * @return Updated account
-     * @throws IllegalArgumentException if amount is invalid
+     * @throws IllegalArgumentException if amount is invalid or account not found
+     * @throws IllegalStateException if account is not active
      */
-    public Account deposit(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
-        
-        if (!account.isActive()) {
-            throw new IllegalStateException("Account is not active");
+    public void deposit(Long accountId, BigDecimal amount) {
+        if (!credit(accountId, amount)) {
+            throw balanceUpdateRejected(accountId, amount);
         }
-        
-        account.deposit(amount);
-        Account savedAccount = accountRepository.save(account);
-        log.info("Deposited {} {} to account: {}", amount, account.getCurrencyCode(), account.getAccountNumber());
-        return savedAccount;
+        log.info("Deposited {} to account ID: {}", amount, accountId);
     }
 
     /**
@@ -167,21 +173,141 @@ public class AccountService {
      * 
      * @param accountId Account ID
      * @param amount Amount to withdraw
-     * @return Updated account
-     * @throws IllegalArgumentException if amount is invalid or insufficient balance
+     * @throws IllegalArgumentException if amount is invalid, account not found or insufficient balance
+     * @throws IllegalStateException if account is not active
      */
-    public Account withdraw(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
-        
-        if (!account.isActive()) {
-            throw new IllegalStateException("Account is not active");
+    public void withdraw(Long accountId, BigDecimal amount) {
+        if (!debitIfSufficient(accountId, amount)) {
+            throw balanceUpdateRejected(accountId, amount);
+        }
+        log.info("Withdrew {} from account ID: {}", amount, accountId);
+    }
+
+    /**
+     * Debit account with a single guarded update (active and sufficient balance)
+     * 
+     * @param accountId Account ID
+     * @param amount Amount to debit
+     * @return true if the balance was debited
+     * @throws IllegalArgumentException if amount is not positive
+     */
+    public boolean debitIfSufficient(Long accountId, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Withdrawal amount must be positive");
+        }
+        return accountRepository.debitIfSufficient(accountId, amount) == 1;
+    }
+
+    /**
+     * Credit account with a single guarded update (active only)
+     * 
+     * @param accountId Account ID
+     * @param amount Amount to credit
+     * @return true if the balance was credited
+     * @throws IllegalArgumentException if amount is not positive
+     */
+    public boolean credit(Long accountId, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Deposit amount must be positive");
+        }
+        return accountRepository.credit(accountId, amount) == 1;
+    }
+
+    /**
+     * Move funds between two accounts. Both rows are locked in ID order with a single
+     * SELECT ... FOR UPDATE before either leg is applied, so concurrent transfers in
+     * opposite directions between the same wallets queue instead of deadlocking.
+     * 
+     * @param fromAccountId Account to debit
+     * @param debitAmount Amount to debit (amount plus fee)
+     * @param toAccountId Account to credit
+     * @param creditAmount Amount to credit
+     * @throws IllegalArgumentException if an account is missing or balance is insufficient
+     * @throws IllegalStateException if the receiving account is not active
+     */
+    public void transfer(Long fromAccountId, BigDecimal debitAmount, Long toAccountId, BigDecimal creditAmount) {
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        lockInOrder(List.of(fromAccountId, toAccountId));
+        if (!debitIfSufficient(fromAccountId, debitAmount)) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        if (!credit(toAccountId, creditAmount)) {
+            throw new IllegalStateException("Receiver account is not active");
         }
-        
-        account.withdraw(amount);
-        Account savedAccount = accountRepository.save(account);
-        log.info("Withdrew {} {} from account: {}", amount, account.getCurrencyCode(), account.getAccountNumber());
-        return savedAccount;
+    }
+
+    /**
+     * Lock accounts for the rest of the transaction, in ascending ID order
+     * 
+     * @param accountIds Account IDs
+     * @throws IllegalArgumentException if any account is not found
+     */
+    public void lockInOrder(Collection<Long> accountIds) {
+        Set<Long> ids = new TreeSet<>(accountIds);
+        if (accountRepository.lockAllByIdInOrder(ids).size() != ids.size()) {
+            throw new IllegalArgumentException("Account not found");
+        }
+    }
+
+    /**
+     * Credit many active accounts in one JDBC batch.
+     * Rows are updated in account ID order so concurrent batches lock in the same order.
+     * 
+     * @param amountsByAccountId Amount to credit per account ID
+     * @throws IllegalStateException if any account is missing or not active
+     */
+    public void creditAll(Map<Long, BigDecimal> amountsByAccountId) {
+        List<Map.Entry<Long, BigDecimal>> credits = new ArrayList<>(new TreeMap<>(amountsByAccountId).entrySet());
+        for (Map.Entry<Long, BigDecimal> credit : credits) {
+            if (credit.getValue() == null || credit.getValue().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Deposit amount must be positive");
+            }
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(CREDIT_SQL, credits, credits.size(), (ps, credit) -> {
+            ps.setBigDecimal(1, credit.getValue());
+            ps.setLong(2, credit.getKey());
+        });
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    throw new IllegalStateException("Receiver account is not active");
+                }
+            }
+        }
+        log.info("Credited {} accounts in batch", credits.size());
+    }
+
+    /**
+     * Get flat views of a user's accounts
+     * 
+     * @param userId User ID
+     * @return List of account views
+     */
+    @Transactional(readOnly = true)
+    public List<AccountView> getAccountViews(Long userId) {
+        return accountRepository.findViewsByUserId(userId);
+    }
+
+    /**
+     * Get a flat view of an account owned by a user
+     * 
+     * @param accountId Account ID
+     * @param userId User ID
+     * @return Account view
+     * @throws IllegalArgumentException if account not found
+     * @throws IllegalStateException if the account belongs to another user
+     */
+    @Transactional(readOnly = true)
+    public AccountView getAccountView(Long accountId, Long userId) {
+        return accountRepository.findViewByIdAndUserId(accountId, userId).orElseThrow(() -> {
+            if (accountRepository.existsById(accountId)) {
+                return new IllegalStateException("Access denied");
+            }
+            return new IllegalArgumentException("Account not found: " + accountId);
+        });
     }
 
     /**
@@ -209,17 +335,28 @@ public class AccountService {
         return account.getBalance();
     }
 
+    /**
+     * Build the exception explaining why a guarded balance update touched no row.
+     * Only runs on the failure path, so the happy path stays a single statement.
+     */
+    private RuntimeException balanceUpdateRejected(Long accountId, BigDecimal amount) {
+        Account account = accountRepository.findById(accountId).orElse(null);
+        if (account == null) {
+            return new IllegalArgumentException("Account not found: " + accountId);
+        }
+        if (!account.isActive()) {
+            return new IllegalStateException("Account is not active");
+        }
+        return new IllegalArgumentException("Insufficient balance");
+    }
+
     /**
      * Generate unique account number
      * 
      * @return Account number
      */
     private String generateAccountNumber() {
-        String accountNumber;
-        do {
-            accountNumber = "ZIM" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (accountRepository.existsByAccountNumber(accountNumber));
-        return accountNumber;
+        return idGenerator.next(IdGenerator.IdType.ACCOUNT);
     }
 }
 
@@ -37,6 +37,10 @@ public class AdminService {
     private final CardRepository cardRepository;
     private final MoneyRequestRepository moneyRequestRepository;
     private final RewardsRepository rewardsRepository;
+    private final RiskContextLoader riskContextLoader;
+    private final RiskOrchestrator riskOrchestrator;
+    private final ShadowRiskConsumer shadowRiskConsumer;
+    private final TransferGraphService transferGraphService;
 
     /**
      * Get dashboard statistics
@@ -72,13 +76,8 @@ public class AdminService {
         
         // Transaction statistics
         long totalTransactions = transactionRepository.count();
-        long completedTransactions = transactionRepository.findAll().stream()
-                .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED)
-                .count();
-        BigDecimal totalTransactionVolume = transactionRepository.findAll().stream()
-                .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long completedTransactions = transactionRepository.countByStatus(Transaction.TransactionStatus.COMPLETED);
+        BigDecimal totalTransactionVolume = transactionRepository.sumAmountByStatus(Transaction.TransactionStatus.COMPLETED);
         
         stats.put("totalTransactions", totalTransactions);
         stats.put("completedTransactions", completedTransactions);
@@ -107,13 +106,17 @@ public class AdminService {
         long recentUsers = userRepository.findAll().stream()
                 .filter(u -> u.getCreatedAt().isAfter(yesterday))
                 .count();
-        long recentTransactions = transactionRepository.findAll().stream()
-                .filter(t -> t.getCreatedAt().isAfter(yesterday))
-                .count();
+        long recentTransactions = transactionRepository.countByCreatedAtGreaterThanEqual(yesterday);
         
         stats.put("recentUsers", recentUsers);
         stats.put("recentTransactions", recentTransactions);
         
+        // Risk check statistics
+        stats.putAll(riskContextLoader.getStatistics());
+        stats.putAll(riskOrchestrator.getStatistics());
+        stats.putAll(shadowRiskConsumer.getStatistics());
+        stats.putAll(transferGraphService.getStatistics());
+        
         return stats;
     }
 
@@ -5,6 +5,7 @@ import com.zim.paypal.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -24,10 +25,11 @@ import java.util.List;
 public class AmlService {
 
     private final SuspiciousActivityRepository suspiciousActivityRepository;
-    private final TransactionRepository transactionRepository;
-    private final KycVerificationRepository kycVerificationRepository;
+    private final VelocityStore velocityStore;
+    private final KycStatusCache kycStatusCache;
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final RiskContextLoader riskContextLoader;
 
     // AML reporting thresholds (configurable)
     private static final BigDecimal CTR_THRESHOLD = new BigDecimal("10000.00"); // Currency Transaction Report
@@ -40,71 +42,120 @@ public class AmlService {
      * @return true if transaction passes AML checks
      */
     public boolean performAmlCheck(Transaction transaction) {
-        User user = transaction.getSender();
-        if (user == null) {
-            user = transaction.getAccount() != null ? transaction.getAccount().getUser() : null;
-        }
+        return performAmlCheck(transaction, riskContextLoader.forTransaction(transaction));
+    }
 
-        if (user == null) {
-            return false;
+    /**
+     * Perform AML check on transaction against an already loaded risk context
+     * 
+     * @param transaction Transaction to check
+     * @param context Risk context of the transaction's user, or null if it has none
+     * @return true if transaction passes AML checks
+     */
+    public boolean performAmlCheck(Transaction transaction, RiskContext context) {
+        return recordAssessment(transaction, context, assess(transaction, context));
+    }
+
+    /**
+     * Run the AML checks without writing anything, so they can run off the
+     * request thread before the transaction is saved
+     * 
+     * @param transaction Transaction to check, saved or not
+     * @param context Risk context of the transaction's user, or null if it has none
+     * @return Assessment, or null if the transaction has no user
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Assessment assess(Transaction transaction, RiskContext context) {
+        if (context == null) {
+            return null;
         }
 
         // Check KYC status
-        if (!isKycVerified(user)) {
-            createSuspiciousActivity(user, transaction, 
-                    SuspiciousActivity.ActivityType.MONEY_LAUNDERING,
+        if (!context.isKycVerified()) {
+            return new Assessment(false, false, SuspiciousActivity.ActivityType.MONEY_LAUNDERING,
                     "Transaction attempted without KYC verification");
-            return false;
         }
 
         // Check CTR threshold
-        if (transaction.getAmount().compareTo(CTR_THRESHOLD) >= 0) {
-            logAmlEvent(user, transaction, "CTR_THRESHOLD_EXCEEDED", 
-                    "Transaction amount exceeds CTR threshold: " + transaction.getAmount());
-        }
+        boolean ctrThresholdExceeded = transaction.getAmount().compareTo(CTR_THRESHOLD) >= 0;
 
         // Check for structuring
-        if (isStructuring(user, transaction)) {
-            createSuspiciousActivity(user, transaction,
-                    SuspiciousActivity.ActivityType.STRUCTURING,
+        if (isStructuring(context, transaction)) {
+            return new Assessment(false, ctrThresholdExceeded, SuspiciousActivity.ActivityType.STRUCTURING,
                     "Possible structuring detected");
-            return false;
         }
 
         // Check for unusual transaction patterns
-        if (isUnusualPattern(user, transaction)) {
-            createSuspiciousActivity(user, transaction,
-                    SuspiciousActivity.ActivityType.UNUSUAL_PATTERN,
+        if (isUnusualPattern(context, transaction)) {
+            return new Assessment(true, ctrThresholdExceeded, SuspiciousActivity.ActivityType.UNUSUAL_PATTERN,
                     "Unusual transaction pattern detected");
         }
 
-        return true;
+        return new Assessment(true, ctrThresholdExceeded, null, null);
+    }
+
+    /**
+     * Record an assessment: log CTR events and create the suspicious activity
+     * it found, if any
+     * 
+     * @param transaction Saved transaction
+     * @param context Risk context of the transaction's user, or null if it has none
+     * @param assessment Assessment from {@link #assess}, or null if the transaction has no user
+     * @return true if transaction passes AML checks
+     */
+    public boolean recordAssessment(Transaction transaction, RiskContext context, Assessment assessment) {
+        if (context == null || assessment == null) {
+            return false;
+        }
+        User user = context.getUser();
+
+        if (assessment.ctrThresholdExceeded()) {
+            logAmlEvent(user, transaction, "CTR_THRESHOLD_EXCEEDED", 
+                    "Transaction amount exceeds CTR threshold: " + transaction.getAmount());
+        }
+
+        if (assessment.activityType() != null) {
+            createSuspiciousActivity(user, transaction, assessment.activityType(), assessment.description());
+        }
+
+        return assessment.passed();
+    }
+
+    /**
+     * Whether an earlier check of a transaction failed, from the suspicious
+     * activity {@link #recordAssessment} recorded for it
+     * 
+     * @param transaction Checked transaction
+     * @return true if a failing activity type was recorded
+     */
+    @Transactional(readOnly = true)
+    public boolean hasFailedCheck(Transaction transaction) {
+        return suspiciousActivityRepository.findByTransaction(transaction).stream()
+                .map(SuspiciousActivity::getActivityType)
+                .anyMatch(type -> type == SuspiciousActivity.ActivityType.MONEY_LAUNDERING
+                        || type == SuspiciousActivity.ActivityType.STRUCTURING);
     }
 
     /**
      * Check if user is KYC verified
+     * 
+     * @param user User entity
+     * @return true if the latest verification is approved and not expired
      */
-    private boolean isKycVerified(User user) {
-        return kycVerificationRepository.findLatestByUser(user)
-                .map(KycVerification::isValid)
-                .orElse(false);
+    @Transactional(readOnly = true)
+    public boolean isKycVerified(User user) {
+        return kycStatusCache.isVerified(user.getId());
     }
 
     /**
      * Check for structuring (breaking large transactions into smaller ones)
      */
-    private boolean isStructuring(User user, Transaction transaction) {
-        LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-        List<Transaction> recentTransactions = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                user.getId(), last24Hours, LocalDateTime.now());
-
-        BigDecimal totalAmount = recentTransactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private boolean isStructuring(RiskContext context, Transaction transaction) {
+        VelocityStore.Window recent = context.getLast24Hours();
 
         // If multiple transactions totaling near threshold
-        if (recentTransactions.size() >= 3 && 
-            totalAmount.add(transaction.getAmount()).compareTo(CTR_THRESHOLD) >= 0 &&
+        if (recent.count() >= 3 && 
+            recent.amount().add(transaction.getAmount()).compareTo(CTR_THRESHOLD) >= 0 &&
             transaction.getAmount().compareTo(CTR_THRESHOLD) < 0) {
             return true;
         }
@@ -115,10 +166,11 @@ public class AmlService {
     /**
      * Check for unusual transaction patterns
      */
-    private boolean isUnusualPattern(User user, Transaction transaction) {
+    private boolean isUnusualPattern(RiskContext context, Transaction transaction) {
         // Check for rapid cross-border transactions
         // Check for transactions at unusual hours
-        LocalDateTime transactionTime = transaction.getCreatedAt();
+        LocalDateTime transactionTime = transaction.getCreatedAt() != null
+                ? transaction.getCreatedAt() : context.getLoadedAt();
         int hour = transactionTime.getHour();
         
         // Transactions between 2 AM and 5 AM are unusual
@@ -131,14 +183,9 @@ public class AmlService {
         if (amount.remainder(new BigDecimal("100")).compareTo(BigDecimal.ZERO) == 0 &&
             amount.compareTo(new BigDecimal("1000")) >= 0) {
             // Multiple round number transactions might indicate structuring
-            LocalDateTime last7Days = LocalDateTime.now().minusDays(7);
-            List<Transaction> recentRoundTransactions = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                    user.getId(), last7Days, LocalDateTime.now())
-                    .stream()
-                    .filter(t -> t.getAmount().remainder(new BigDecimal("100")).compareTo(BigDecimal.ZERO) == 0)
-                    .toList();
+            int recentRoundCount = context.getLast7Days().roundAmountCount();
             
-            if (recentRoundTransactions.size() >= 5) {
+            if (recentRoundCount >= 5) {
                 return true;
             }
         }
@@ -189,23 +236,28 @@ public class AmlService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         LocalDateTime last30Days = LocalDateTime.now().minusDays(30);
-        List<Transaction> transactions = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                userId, last30Days, LocalDateTime.now());
-
-        BigDecimal totalVolume = transactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        VelocityStore.Window sent = velocityStore.window(userId, last30Days, LocalDateTime.now());
 
         long suspiciousCount = suspiciousActivityRepository.findByUserOrderByCreatedAtDesc(user, 
                 org.springframework.data.domain.PageRequest.of(0, 100))
                 .getTotalElements();
 
-        return new AmlReport(user, transactions.size(), totalVolume, suspiciousCount);
+        return new AmlReport(user, sent.count(), sent.amount(), suspiciousCount);
     }
 
     /**
      * AML Report data class
      */
     public record AmlReport(User user, int transactionCount, BigDecimal totalVolume, long suspiciousActivityCount) {}
-}
 
+    /**
+     * Outcome of the AML checks on one transaction, before anything is recorded
+     * 
+     * @param passed Whether the transaction may proceed
+     * @param ctrThresholdExceeded Whether a KYC-verified user's amount reaches the CTR threshold
+     * @param activityType Suspicious activity found, or null
+     * @param description Description of the suspicious activity, or null
+     */
+    public record Assessment(boolean passed, boolean ctrThresholdExceeded,
+                             SuspiciousActivity.ActivityType activityType, String description) {}
+}
@@ -0,0 +1,200 @@
+package com.zim.paypal.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zim.paypal.model.entity.ArchiveSegment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes archive segment files: gzip-compressed JSON lines, one
+ * header line followed by one line per archived row, with a SHA-256 of the
+ * file kept in the catalogue. Files are written to a temporary name, synced
+ * and renamed into place, and never modified afterwards; every read verifies
+ * the checksum before returning anything.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@Slf4j
+public class ArchiveSegmentStore {
+
+    @Value("${app.archive.directory:archive}")
+    private String directory;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter MONTH_PATH = DateTimeFormatter.ofPattern("yyyy/MM");
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    /**
+     * Write rows to a new segment file
+     *
+     * @param recordType Kind of rows
+     * @param minCreatedAt Oldest row, used to place the file
+     * @param records Rows as column name to value maps
+     * @return Location, size and checksum of the file
+     * @throws IOException if the file cannot be written
+     */
+    public WrittenSegment write(ArchiveSegment.RecordType recordType, LocalDateTime minCreatedAt,
+                                List<Map<String, Object>> records) throws IOException {
+        String type = recordType.name().toLowerCase();
+        String relativePath = type + "/" + minCreatedAt.format(MONTH_PATH) + "/" + type + "-" + UUID.randomUUID() + ".jsonl.gz";
+        Path target = resolve(relativePath);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        MessageDigest digest = sha256();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            DigestOutputStream digestOut = new DigestOutputStream(file, digest);
+            GZIPOutputStream gzipOut = new GZIPOutputStream(digestOut, BUFFER_SIZE);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            writer.write(objectMapper.writeValueAsString(Map.of(
+                    "format", FORMAT_VERSION, "recordType", recordType.name(), "rowCount", records.size())));
+            writer.write('\n');
+            for (Map<String, Object> record : records) {
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.write('\n');
+            }
+            writer.flush();
+            gzipOut.finish();
+            digestOut.flush();
+            file.getChannel().force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        return new WrittenSegment(relativePath, Files.size(target), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Find the first row of a segment matching a predicate. The whole file is
+     * read so its checksum can be verified before the row is returned.
+     *
+     * @param segment Segment to read
+     * @param predicate Row filter
+     * @return Matching row, or null
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file does not match its checksum
+     */
+    public Map<String, Object> find(ArchiveSegment segment, Predicate<Map<String, Object>> predicate) throws IOException {
+        List<Map<String, Object>> matches = new ArrayList<>(1);
+        scan(segment, record -> {
+            if (matches.isEmpty() && predicate.test(record)) {
+                matches.add(record);
+            }
+        });
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Count the rows of a segment matching a predicate
+     *
+     * @param segment Segment to read
+     * @param predicate Row filter
+     * @return Number of matching rows
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the file does not match its checksum
+     */
+    public long count(ArchiveSegment segment, Predicate<Map<String, Object>> predicate) throws IOException {
+        long[] count = new long[1];
+        scan(segment, record -> {
+            if (predicate.test(record)) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Remove a segment file that was never catalogued
+     *
+     * @param relativePath Path relative to the archive directory
+     */
+    public void delete(String relativePath) {
+        try {
+            Files.deleteIfExists(resolve(relativePath));
+        } catch (IOException e) {
+            log.warn("Could not remove uncatalogued archive segment {}: {}", relativePath, e.getMessage());
+        }
+    }
+
+    private void scan(ArchiveSegment segment, Consumer<Map<String, Object>> consumer) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream file = Files.newInputStream(resolve(segment.getFilePath()))) {
+            DigestInputStream digestIn = new DigestInputStream(file, digest);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(digestIn, BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            reader.readLine(); // header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> record = objectMapper.readValue(line, Map.class);
+                consumer.accept(record);
+            }
+            // Bytes after the gzip trailer still count towards the checksum
+            byte[] rest = new byte[BUFFER_SIZE];
+            while (digestIn.read(rest) != -1) {
+                // drain
+            }
+        }
+
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        if (!checksum.equals(segment.getChecksum())) {
+            throw new IllegalStateException("Archive segment " + segment.getFilePath() + " failed checksum verification");
+        }
+    }
+
+    private Path resolve(String relativePath) {
+        return Paths.get(directory).resolve(relativePath);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Result of writing a segment file
+     */
+    public record WrittenSegment(String filePath, long byteSize, String checksum) {}
+}
@@ -0,0 +1,244 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.ArchiveSegment;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.AccountRepository;
+import com.zim.paypal.repository.ArchiveSegmentRepository;
+import com.zim.paypal.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves transactions, notifications, risk scores and webhook deliveries older
+ * than the archive horizon out of the live tables into immutable segment
+ * files, and reads archived transactions back for lookups and statements.
+ *
+ * Transactions are only archived once final and no longer referenced by
+ * reversals, AML cases, gateway payments, money requests, bill splits or
+ * service purchases. Ledger entries stay in the database, so balances are
+ * not affected by archiving.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveService {
+
+    private final ArchiveWriter archiveWriter;
+    private final ArchiveSegmentStore archiveSegmentStore;
+    private final ArchiveSegmentRepository archiveSegmentRepository;
+    private final TransactionPartitionService transactionPartitionService;
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.archive.horizon-days:730}")
+    private int horizonDays;
+
+    @Value("${app.archive.segment-rows:10000}")
+    private int segmentRows;
+
+    private static final String RISK_SCORES_SQL =
+            "SELECT * FROM risk_scores WHERE created_at < ? ORDER BY created_at, id LIMIT ?";
+
+    private static final String NOTIFICATIONS_SQL =
+            "SELECT * FROM notifications WHERE created_at < ? ORDER BY created_at, id LIMIT ?";
+
+    private static final String WEBHOOK_EVENTS_SQL =
+            "SELECT e.*, w.user_id AS webhook_user_id FROM webhook_event_deliveries e " +
+            "JOIN webhooks w ON w.id = e.webhook_id " +
+            "WHERE e.created_at < ? AND e.status IN ('SUCCESS', 'FAILED') ORDER BY e.created_at, e.id LIMIT ?";
+
+    private static final String TRANSACTIONS_SQL =
+            "SELECT t.* FROM transactions t " +
+            "WHERE t.created_at < ? AND t.status IN ('COMPLETED', 'FAILED', 'CANCELLED', 'REFUNDED') " +
+            "AND NOT EXISTS (SELECT 1 FROM transaction_reversals r WHERE r.transaction_id = t.id OR r.reversal_transaction_id = t.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM suspicious_activities s WHERE s.transaction_id = t.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM risk_scores rs WHERE rs.transaction_id = t.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM gateway_transactions g WHERE g.transaction_id = t.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM money_requests m WHERE m.transaction_id = t.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM bill_split_participants b WHERE b.transaction_id = t.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM service_purchases p WHERE p.transaction_id = t.id) " +
+            "ORDER BY t.created_at, t.id LIMIT ?";
+
+    private static final String USER_TRANSACTION_SEGMENTS_SQL =
+            "SELECT o.segment_id, o.row_count, o.min_created_at, o.max_created_at FROM archive_segment_owners o " +
+            "JOIN archive_segments s ON s.id = o.segment_id " +
+            "WHERE o.owner_type = ? AND o.owner_id = ? AND s.record_type = ? " +
+            "AND o.min_created_at <= ? AND o.max_created_at >= ?";
+
+    /**
+     * Archive everything past the horizon (runs daily)
+     */
+    @Scheduled(cron = "0 45 2 * * ?") // Run daily at 02:45
+    public void archiveAgedRows() {
+        archiveBefore(LocalDate.now().minusDays(horizonDays).atStartOfDay());
+    }
+
+    /**
+     * Archive rows created before a point in time, plus any detached
+     * transaction partitions
+     *
+     * @param horizon Rows created before this are archived
+     * @return Number of rows archived
+     */
+    public long archiveBefore(LocalDateTime horizon) {
+        Timestamp before = Timestamp.valueOf(horizon);
+        // Risk scores go first: transactions that still have one are kept live
+        long archived = archive(new ArchiveWriter.Source(ArchiveSegment.RecordType.RISK_SCORE, "risk_scores", RISK_SCORES_SQL, before))
+                + archive(new ArchiveWriter.Source(ArchiveSegment.RecordType.NOTIFICATION, "notifications", NOTIFICATIONS_SQL, before))
+                + archive(new ArchiveWriter.Source(ArchiveSegment.RecordType.WEBHOOK_EVENT, "webhook_event_deliveries", WEBHOOK_EVENTS_SQL, before))
+                + archive(new ArchiveWriter.Source(ArchiveSegment.RecordType.TRANSACTION, "transactions", TRANSACTIONS_SQL, before));
+
+        for (String partition : transactionPartitionService.getDetachedPartitions()) {
+            archived += archive(new ArchiveWriter.Source(ArchiveSegment.RecordType.TRANSACTION, partition,
+                    "SELECT t.* FROM " + partition + " t ORDER BY t.created_at, t.id LIMIT ?"));
+            Long remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class);
+            if (remaining != null && remaining == 0) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped archived transaction partition {}", partition);
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Archive a source in segments until it is drained
+     *
+     * @param source Rows to archive
+     * @return Number of rows archived
+     */
+    private long archive(ArchiveWriter.Source source) {
+        long total = 0;
+        try {
+            int archived;
+            do {
+                archived = archiveWriter.archiveBatch(source, segmentRows);
+                total += archived;
+            } while (archived == segmentRows);
+        } catch (Exception e) {
+            log.error("Error archiving {}: {}", source.table(), e.getMessage(), e);
+        }
+        if (total > 0) {
+            log.info("Archived {} rows from {}", total, source.table());
+        }
+        return total;
+    }
+
+    /**
+     * Find an archived transaction by number. Only segments whose number
+     * range covers it are read.
+     *
+     * @param transactionNumber Transaction number
+     * @return Detached transaction, if archived
+     */
+    public Optional<Transaction> findTransaction(String transactionNumber) {
+        for (ArchiveSegment segment : archiveSegmentRepository.findByKeyRange(
+                ArchiveSegment.RecordType.TRANSACTION, transactionNumber)) {
+            Map<String, Object> record;
+            try {
+                record = archiveSegmentStore.find(segment, r -> transactionNumber.equals(r.get("transaction_number")));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read archive segment " + segment.getFilePath(), e);
+            }
+            if (record != null) {
+                return Optional.of(toTransaction(record));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Count a user's archived transactions in a date range. Segments lying
+     * entirely inside the range are counted from the owner index; only
+     * segments straddling a range boundary are read.
+     *
+     * @param userId User ID
+     * @param startDate Start date (inclusive)
+     * @param endDate End date (inclusive)
+     * @return Number of archived transactions
+     */
+    public long countUserTransactions(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        long count = 0;
+        for (Map<String, Object> entry : jdbcTemplate.queryForList(USER_TRANSACTION_SEGMENTS_SQL,
+                ArchiveSegment.OwnerType.USER.name(), userId, ArchiveSegment.RecordType.TRANSACTION.name(),
+                Timestamp.valueOf(endDate), Timestamp.valueOf(startDate))) {
+            LocalDateTime min = ((Timestamp) entry.get("min_created_at")).toLocalDateTime();
+            LocalDateTime max = ((Timestamp) entry.get("max_created_at")).toLocalDateTime();
+            if (!min.isBefore(startDate) && !max.isAfter(endDate)) {
+                count += ((Number) entry.get("row_count")).longValue();
+                continue;
+            }
+            ArchiveSegment segment = archiveSegmentRepository.findById(((Number) entry.get("segment_id")).longValue())
+                    .orElseThrow(() -> new IllegalStateException("Archive segment not found: " + entry.get("segment_id")));
+            try {
+                count += archiveSegmentStore.count(segment, record -> {
+                    LocalDateTime createdAt = LocalDateTime.parse((String) record.get("created_at"));
+                    return !createdAt.isBefore(startDate) && !createdAt.isAfter(endDate)
+                            && involves(record, userId);
+                });
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read archive segment " + segment.getFilePath(), e);
+            }
+        }
+        return count;
+    }
+
+    private boolean involves(Map<String, Object> record, Long userId) {
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> participants = (List<Map<String, Object>>) record.get("participants");
+        return participants != null && participants.stream()
+                .anyMatch(p -> ((Number) p.get("user_id")).longValue() == userId);
+    }
+
+    private Transaction toTransaction(Map<String, Object> record) {
+        return Transaction.builder()
+                .id(longValue(record, "id"))
+                .transactionNumber((String) record.get("transaction_number"))
+                .sender(Optional.ofNullable(longValue(record, "sender_id")).flatMap(userRepository::findById).orElse(null))
+                .receiver(Optional.ofNullable(longValue(record, "receiver_id")).flatMap(userRepository::findById).orElse(null))
+                .account(Optional.ofNullable(longValue(record, "account_id")).flatMap(accountRepository::findById).orElse(null))
+                .amount(decimalValue(record, "amount"))
+                .currencyCode((String) record.get("currency_code"))
+                .transactionType(Transaction.TransactionType.valueOf((String) record.get("transaction_type")))
+                .paymentMethod(Transaction.PaymentMethod.valueOf((String) record.get("payment_method")))
+                .status(Transaction.TransactionStatus.valueOf((String) record.get("status")))
+                .description((String) record.get("description"))
+                .referenceNumber((String) record.get("reference_number"))
+                .fee(decimalValue(record, "fee"))
+                .netAmount(decimalValue(record, "net_amount"))
+                .failureReason((String) record.get("failure_reason"))
+                .createdAt(dateTimeValue(record, "created_at"))
+                .completedAt(dateTimeValue(record, "completed_at"))
+                .build();
+    }
+
+    private static Long longValue(Map<String, Object> record, String column) {
+        Object value = record.get(column);
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static BigDecimal decimalValue(Map<String, Object> record, String column) {
+        Object value = record.get(column);
+        return value != null ? new BigDecimal(value.toString()) : null;
+    }
+
+    private static LocalDateTime dateTimeValue(Map<String, Object> record, String column) {
+        Object value = record.get(column);
+        return value != null ? LocalDateTime.parse((String) value) : null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.ArchiveSegment;
+import com.zim.paypal.repository.ArchiveSegmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves one batch of aged rows into a segment file. Each batch runs in its
+ * own transaction: the file is written first, then the segment is catalogued,
+ * indexed and the source rows deleted. If the transaction rolls back the file
+ * is removed again, so rows are never lost nor left catalogued twice.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ArchiveWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArchiveSegmentRepository archiveSegmentRepository;
+    private final ArchiveSegmentStore archiveSegmentStore;
+
+    private static final int IN_CHUNK_SIZE = 500;
+
+    private static final String INSERT_OWNER_SQL =
+            "INSERT INTO archive_segment_owners (owner_type, owner_id, segment_id, row_count, min_created_at, max_created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Archive the next batch of rows from a source
+     *
+     * @param source Rows to archive
+     * @param limit Maximum rows in the segment
+     * @return Number of rows archived (0 when the source is drained)
+     */
+    public int archiveBatch(Source source, int limit) {
+        List<Object> args = new ArrayList<>(List.of(source.args()));
+        args.add(limit);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(source.selectSql(), args.toArray());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Map<String, Object>> records = new ArrayList<>(rows.size());
+        List<Long> ids = new ArrayList<>(rows.size());
+        LocalDateTime minCreatedAt = null;
+        LocalDateTime maxCreatedAt = null;
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> record = toRecord(row);
+            records.add(record);
+            ids.add(((Number) record.get("id")).longValue());
+            LocalDateTime createdAt = LocalDateTime.parse((String) record.get("created_at"));
+            minCreatedAt = minCreatedAt == null || createdAt.isBefore(minCreatedAt) ? createdAt : minCreatedAt;
+            maxCreatedAt = maxCreatedAt == null || createdAt.isAfter(maxCreatedAt) ? createdAt : maxCreatedAt;
+        }
+
+        String minKey = null;
+        String maxKey = null;
+        if (source.recordType() == ArchiveSegment.RecordType.TRANSACTION) {
+            attachParticipants(records, ids);
+            for (Map<String, Object> record : records) {
+                String number = (String) record.get("transaction_number");
+                minKey = minKey == null || number.compareTo(minKey) < 0 ? number : minKey;
+                maxKey = maxKey == null || number.compareTo(maxKey) > 0 ? number : maxKey;
+            }
+        }
+
+        ArchiveSegmentStore.WrittenSegment written;
+        try {
+            written = archiveSegmentStore.write(source.recordType(), minCreatedAt, records);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write archive segment for " + source.table(), e);
+        }
+        // Drop the file again if anything below (or the commit) fails
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    archiveSegmentStore.delete(written.filePath());
+                }
+            }
+        });
+
+        ArchiveSegment segment = archiveSegmentRepository.save(ArchiveSegment.builder()
+                .recordType(source.recordType())
+                .filePath(written.filePath())
+                .rowCount(records.size())
+                .byteSize(written.byteSize())
+                .checksum(written.checksum())
+                .minCreatedAt(minCreatedAt)
+                .maxCreatedAt(maxCreatedAt)
+                .minKey(minKey)
+                .maxKey(maxKey)
+                .build());
+        insertOwners(segment.getId(), collectOwners(source.recordType(), records));
+
+        if (source.recordType() == ArchiveSegment.RecordType.TRANSACTION) {
+            deleteByColumn("user_transactions", "transaction_id", ids);
+        }
+        int deleted = deleteByColumn(source.table(), "id", ids);
+        if (deleted != ids.size()) {
+            // Another node archived or removed some of these rows concurrently
+            throw new IllegalStateException("Rows of " + source.table() + " changed while archiving, retrying next run");
+        }
+
+        log.debug("Archived {} rows of {} into {}", records.size(), source.table(), written.filePath());
+        return records.size();
+    }
+
+    /**
+     * Plain JSON-friendly copy of a row: lower-case column names, timestamps as ISO strings
+     */
+    private Map<String, Object> toRecord(Map<String, Object> row) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            Object value = column.getValue();
+            if (value instanceof Timestamp timestamp) {
+                value = timestamp.toLocalDateTime().toString();
+            } else if (value instanceof java.sql.Date date) {
+                value = date.toLocalDate().toString();
+            }
+            record.put(column.getKey().toLowerCase(), value);
+        }
+        return record;
+    }
+
+    /**
+     * Copy each transaction's user_transactions rows into its record, so
+     * per-user reads of the archive know who took part
+     */
+    private void attachParticipants(List<Map<String, Object>> records, List<Long> ids) {
+        Map<Long, List<Map<String, Object>>> participants = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            jdbcTemplate.query("SELECT transaction_id, user_id, direction FROM user_transactions WHERE transaction_id IN ("
+                            + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        participants.computeIfAbsent(rs.getLong("transaction_id"), id -> new ArrayList<>())
+                                .add(Map.of("user_id", rs.getLong("user_id"), "direction", rs.getString("direction")));
+                    },
+                    chunk.toArray());
+        }
+        for (Map<String, Object> record : records) {
+            record.put("participants", participants.getOrDefault(
+                    ((Number) record.get("id")).longValue(), Collections.emptyList()));
+        }
+    }
+
+    private Map<OwnerKey, OwnerStats> collectOwners(ArchiveSegment.RecordType recordType, List<Map<String, Object>> records) {
+        Map<OwnerKey, OwnerStats> owners = new HashMap<>();
+        for (Map<String, Object> record : records) {
+            LocalDateTime createdAt = LocalDateTime.parse((String) record.get("created_at"));
+            switch (recordType) {
+                case TRANSACTION -> {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> participants = (List<Map<String, Object>>) record.get("participants");
+                    for (Map<String, Object> participant : participants) {
+                        addOwner(owners, ArchiveSegment.OwnerType.USER, participant.get("user_id"), createdAt);
+                    }
+                    addOwner(owners, ArchiveSegment.OwnerType.ACCOUNT, record.get("account_id"), createdAt);
+                }
+                case WEBHOOK_EVENT -> addOwner(owners, ArchiveSegment.OwnerType.USER, record.get("webhook_user_id"), createdAt);
+                default -> addOwner(owners, ArchiveSegment.OwnerType.USER, record.get("user_id"), createdAt);
+            }
+        }
+        return owners;
+    }
+
+    private void addOwner(Map<OwnerKey, OwnerStats> owners, ArchiveSegment.OwnerType ownerType,
+                          Object ownerId, LocalDateTime createdAt) {
+        if (ownerId == null) {
+            return;
+        }
+        owners.computeIfAbsent(new OwnerKey(ownerType, ((Number) ownerId).longValue()), key -> new OwnerStats())
+                .add(createdAt);
+    }
+
+    private void insertOwners(Long segmentId, Map<OwnerKey, OwnerStats> owners) {
+        List<Map.Entry<OwnerKey, OwnerStats>> entries = new ArrayList<>(owners.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_OWNER_SQL, entries, IN_CHUNK_SIZE, (ps, entry) -> {
+            ps.setString(1, entry.getKey().ownerType().name());
+            ps.setLong(2, entry.getKey().ownerId());
+            ps.setLong(3, segmentId);
+            ps.setInt(4, entry.getValue().rowCount);
+            ps.setTimestamp(5, Timestamp.valueOf(entry.getValue().minCreatedAt));
+            ps.setTimestamp(6, Timestamp.valueOf(entry.getValue().maxCreatedAt));
+        });
+    }
+
+    private int deleteByColumn(String table, String column, List<Long> ids) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            deleted += jdbcTemplate.update("DELETE FROM " + table + " WHERE " + column + " IN ("
+                    + placeholders(chunk.size()) + ")", chunk.toArray());
+        }
+        return deleted;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + IN_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private record OwnerKey(ArchiveSegment.OwnerType ownerType, long ownerId) {}
+
+    private static final class OwnerStats {
+        private int rowCount;
+        private LocalDateTime minCreatedAt;
+        private LocalDateTime maxCreatedAt;
+
+        void add(LocalDateTime createdAt) {
+            rowCount++;
+            minCreatedAt = minCreatedAt == null || createdAt.isBefore(minCreatedAt) ? createdAt : minCreatedAt;
+            maxCreatedAt = maxCreatedAt == null || createdAt.isAfter(maxCreatedAt) ? createdAt : maxCreatedAt;
+        }
+    }
+
+    /**
+     * A table to archive from: the query selects aged rows oldest first and
+     * takes the batch limit as its last parameter
+     */
+    public record Source(ArchiveSegment.RecordType recordType, String table, String selectSql, Object... args) {}
+}
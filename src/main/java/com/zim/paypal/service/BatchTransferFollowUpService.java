@@ -0,0 +1,70 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Post-commit risk scoring for bulk payouts, run as an outbox consumer.
+ * Items are scored and held like deferred transfers, through
+ * {@link DeferredRiskConsumer#review}.
+ * Notifications, webhooks and rewards for the items go through their own
+ * per-transaction outbox events.
+ * Deliberately not transactional: every service call runs in its own transaction,
+ * so one failing item cannot roll back the stage for the rest of the batch.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferFollowUpService implements OutboxConsumer {
+
+    private final TransactionRepository transactionRepository;
+    private final DeferredRiskConsumer deferredRiskConsumer;
+
+    @Override
+    public String getName() {
+        return "batch-risk";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.BATCH_TRANSFER_COMPLETED;
+    }
+
+    /**
+     * Run fraud and AML checks for a committed batch and hold flagged items
+     *
+     * @param event Batch completion event
+     */
+    @Override
+    public void handle(OutboxEvent event) {
+        List<Transaction> transactions = transactionRepository.findByReferenceNumberWithParties(event.getReference());
+
+        int flagged = 0;
+        int failed = 0;
+        for (Transaction transaction : transactions) {
+            try {
+                if (deferredRiskConsumer.review(transaction)) {
+                    flagged++;
+                }
+            } catch (Exception e) {
+                failed++;
+                log.warn("Fraud/AML check failed for {}: {}", transaction.getTransactionNumber(), e.getMessage());
+            }
+        }
+        if (flagged > 0) {
+            log.warn("Batch transfer {} has {} transactions held for review", event.getReference(), flagged);
+        }
+        if (failed > 0) {
+            // Retried items already scored are not scored again
+            throw new IllegalStateException(failed + " transactions of batch " + event.getReference() + " were not checked");
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.dto.BatchTransferRequest;
+import com.zim.paypal.model.dto.BatchTransferResult;
+import com.zim.paypal.model.dto.TransferRequest;
+import com.zim.paypal.model.entity.*;
+import com.zim.paypal.repository.AccountRepository;
+import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.repository.UserRepository;
+import com.zim.paypal.util.IdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for bulk payouts: many transfers from one wallet in a single request.
+ * The source is debited once, receivers are resolved and credited in bulk, and
+ * transaction rows are inserted with JDBC batching. Risk checks, notifications,
+ * webhooks and rewards are dispatched from the outbox after commit.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class BatchTransferService {
+
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final UserService userService;
+    private final AccountService accountService;
+    private final LedgerService ledgerService;
+    private final AccountLimitService accountLimitService;
+    private final AmlService amlService;
+    private final CountryRestrictionService countryRestrictionService;
+    private final FeatureFlagService featureFlagService;
+    private final IdGenerator idGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private final UserTransactionService userTransactionService;
+    private final FeeScheduleEngine feeScheduleEngine;
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (transaction_number, sender_id, receiver_id, account_id, amount, currency_code, " +
+            "transaction_type, payment_method, status, description, reference_number, fee, net_amount, " +
+            "created_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Execute a bulk payout
+     *
+     * @param senderId Paying user ID
+     * @param request Batch request
+     * @return Per-item results
+     */
+    public BatchTransferResult createBatchTransfer(Long senderId, BatchTransferRequest request) {
+        User sender = userService.findById(senderId);
+
+        if (featureFlagService.isFeatureEnabled(FeatureFlag.FeatureNames.COUNTRY_RESTRICTIONS)
+                && sender.getCountryCode() != null) {
+            if (!countryRestrictionService.isTransactionAllowed(sender.getCountryCode())) {
+                throw new IllegalStateException("Transactions are not allowed from your country");
+            }
+        }
+
+        if (!amlService.isKycVerified(sender)) {
+            throw new IllegalStateException("Transaction failed AML compliance check");
+        }
+
+        Account senderAccount = accountService.findActiveAccountByUser(sender);
+        List<TransferRequest> transfers = request.getTransfers();
+        String batchReference = idGenerator.next(IdGenerator.IdType.BATCH);
+
+        // Resolve all receivers and their active accounts with two queries
+        Map<String, User> receiversByEmail = userRepository.findByEmailIn(
+                        transfers.stream().map(TransferRequest::getReceiverEmail).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getEmail, Function.identity()));
+        Map<Long, Account> accountsByUserId = new HashMap<>();
+        if (!receiversByEmail.isEmpty()) {
+            for (Account account : accountRepository.findActiveAccountsByUserIds(
+                    receiversByEmail.values().stream().map(User::getId).toList())) {
+                accountsByUserId.putIfAbsent(account.getUser().getId(), account);
+            }
+        }
+
+        BatchTransferResult.ItemResult[] results = new BatchTransferResult.ItemResult[transfers.size()];
+        List<Integer> accepted = new ArrayList<>();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal totalFee = BigDecimal.ZERO;
+        BigDecimal largestAmount = BigDecimal.ZERO;
+        // One schedule snapshot prices every item, even if an admin edits fees mid-batch
+        FeeScheduleEngine.FeeSchedule feeSchedule = feeScheduleEngine.getSchedule();
+        LocalDateTime pricedAt = LocalDateTime.now();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            User receiver = receiversByEmail.get(transfer.getReceiverEmail());
+            String failure = null;
+            if (receiver == null) {
+                failure = "User not found with email: " + transfer.getReceiverEmail();
+            } else if (receiver.getId().equals(senderId)) {
+                failure = "Cannot transfer to yourself";
+            } else if (!accountsByUserId.containsKey(receiver.getId())) {
+                failure = "No active account found for user: " + receiver.getUsername();
+            }
+
+            BigDecimal fee = failure == null ? feeSchedule.quote(
+                    Transaction.TransactionType.TRANSFER, transfer.getAmount(), pricedAt).getTotalFee() : null;
+            results[i] = BatchTransferResult.ItemResult.builder()
+                    .index(i)
+                    .receiverEmail(transfer.getReceiverEmail())
+                    .amount(transfer.getAmount())
+                    .fee(fee)
+                    .status(failure == null ? Transaction.TransactionStatus.COMPLETED.name()
+                            : Transaction.TransactionStatus.FAILED.name())
+                    .failureReason(failure)
+                    .build();
+
+            if (failure == null) {
+                accepted.add(i);
+                totalAmount = totalAmount.add(transfer.getAmount());
+                totalFee = totalFee.add(fee);
+                largestAmount = largestAmount.max(transfer.getAmount());
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            if (!accountLimitService.isBatchAmountAllowed(senderId, sender.getRole(), largestAmount, totalAmount,
+                    accepted.size())) {
+                throw new IllegalStateException("Transaction amount exceeds allowed limits");
+            }
+
+            Map<Long, BigDecimal> credits = new HashMap<>();
+            for (int i : accepted) {
+                User receiver = receiversByEmail.get(transfers.get(i).getReceiverEmail());
+                credits.merge(accountsByUserId.get(receiver.getId()).getId(), transfers.get(i).getAmount(), BigDecimal::add);
+            }
+
+            // Lock source and receivers in ID order, the same order single transfers use
+            Set<Long> lockIds = new HashSet<>(credits.keySet());
+            lockIds.add(senderAccount.getId());
+            accountService.lockInOrder(lockIds);
+
+            // Debit the source once for the whole batch
+            if (!accountService.debitIfSufficient(senderAccount.getId(), totalAmount.add(totalFee))) {
+                throw new IllegalArgumentException("Insufficient balance");
+            }
+            accountService.creditAll(credits);
+
+            insertTransactions(sender, senderAccount, request, transfers, accepted, results,
+                    receiversByEmail, batchReference);
+
+            List<Transaction> saved = transactionRepository.findByReferenceNumberWithParties(batchReference);
+            Map<Long, Long> receiverAccountIds = new HashMap<>();
+            for (Transaction transaction : saved) {
+                receiverAccountIds.put(transaction.getId(),
+                        accountsByUserId.get(transaction.getReceiver().getId()).getId());
+            }
+            ledgerService.recordTransfers(saved, senderAccount.getId(), receiverAccountIds);
+            userTransactionService.recordAll(saved);
+
+            outboxService.transactionsCompleted(saved, senderId);
+            outboxService.batchTransferCompleted(batchReference, senderId);
+        }
+
+        log.info("Batch transfer {} processed: {} completed, {} failed",
+                batchReference, accepted.size(), transfers.size() - accepted.size());
+
+        return BatchTransferResult.builder()
+                .batchReference(batchReference)
+                .requestedCount(transfers.size())
+                .completedCount(accepted.size())
+                .failedCount(transfers.size() - accepted.size())
+                .totalAmount(totalAmount)
+                .totalFee(totalFee)
+                .items(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Insert accepted items as completed TRANSFER rows in JDBC batches
+     */
+    private void insertTransactions(User sender, Account senderAccount, BatchTransferRequest request,
+                                    List<TransferRequest> transfers, List<Integer> accepted,
+                                    BatchTransferResult.ItemResult[] results,
+                                    Map<String, User> receiversByEmail, String batchReference) {
+        for (int i : accepted) {
+            results[i].setTransactionNumber(idGenerator.next(IdGenerator.IdType.TRANSACTION));
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, accepted, JDBC_BATCH_SIZE, (ps, i) -> {
+            TransferRequest transfer = transfers.get(i);
+            BatchTransferResult.ItemResult result = results[i];
+            String description = transfer.getDescription() != null ? transfer.getDescription() : request.getDescription();
+
+            ps.setString(1, result.getTransactionNumber());
+            ps.setLong(2, sender.getId());
+            ps.setLong(3, receiversByEmail.get(transfer.getReceiverEmail()).getId());
+            ps.setLong(4, senderAccount.getId());
+            ps.setBigDecimal(5, transfer.getAmount());
+            ps.setString(6, senderAccount.getCurrencyCode());
+            ps.setString(7, Transaction.TransactionType.TRANSFER.name());
+            ps.setString(8, Transaction.PaymentMethod.WALLET.name());
+            ps.setString(9, Transaction.TransactionStatus.COMPLETED.name());
+            ps.setString(10, description);
+            ps.setString(11, batchReference);
+            ps.setBigDecimal(12, result.getFee());
+            ps.setBigDecimal(13, transfer.getAmount().subtract(result.getFee()));
+            ps.setTimestamp(14, now);
+            ps.setTimestamp(15, now);
+        });
+    }
+}
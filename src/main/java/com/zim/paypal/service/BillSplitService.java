@@ -4,6 +4,7 @@ import com.zim.paypal.model.dto.BillSplitDto;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.BillSplitParticipantRepository;
 import com.zim.paypal.repository.BillSplitRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -17,7 +18,6 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Service for bill split management
@@ -35,6 +35,7 @@ public class BillSplitService {
     private final UserService userService;
     private final TransactionService transactionService;
     private final NotificationService notificationService;
+    private final IdGenerator idGenerator;
     private static final int DEFAULT_EXPIRY_DAYS = 30;
 
     /**
@@ -330,11 +331,7 @@ public class BillSplitService {
      * @return Split number
      */
     private String generateSplitNumber() {
-        String splitNumber;
-        do {
-            splitNumber = "SPLIT" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (billSplitRepository.findBySplitNumber(splitNumber).isPresent());
-        return splitNumber;
+        return idGenerator.next(IdGenerator.IdType.BILL_SPLIT);
     }
 }
 
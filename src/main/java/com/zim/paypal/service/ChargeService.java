@@ -6,7 +6,9 @@ import com.zim.paypal.model.entity.Transaction;
 import com.zim.paypal.repository.ChargeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -24,6 +26,8 @@ import java.util.List;
 public class ChargeService {
 
     private final ChargeRepository chargeRepository;
+    private final FeeScheduleEngine feeScheduleEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new charge
@@ -55,6 +59,7 @@ public class ChargeService {
                 .build();
 
         Charge savedCharge = chargeRepository.save(charge);
+        eventPublisher.publishEvent(new FeeScheduleEngine.FeeScheduleChangedEvent());
         log.info("Charge created: {} by user: {}", chargeDto.getChargeCode(), createdBy.getUsername());
         return savedCharge;
     }
@@ -93,6 +98,7 @@ public class ChargeService {
         charge.setUpdatedBy(updatedBy);
 
         Charge savedCharge = chargeRepository.save(charge);
+        eventPublisher.publishEvent(new FeeScheduleEngine.FeeScheduleChangedEvent());
         log.info("Charge updated: {} by user: {}", chargeDto.getChargeCode(), updatedBy.getUsername());
         return savedCharge;
     }
@@ -141,23 +147,15 @@ public class ChargeService {
     }
 
     /**
-     * Calculate total charges for a transaction
+     * Calculate total charges for a transaction from the compiled fee schedule
      * 
      * @param transactionType Transaction type
      * @param transactionAmount Transaction amount
      * @return Total charge amount
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal calculateTotalCharges(Transaction.TransactionType transactionType, BigDecimal transactionAmount) {
-        List<Charge> charges = getChargesForTransaction(transactionType);
-        BigDecimal totalCharges = BigDecimal.ZERO;
-
-        for (Charge charge : charges) {
-            BigDecimal chargeAmount = charge.calculateCharge(transactionAmount);
-            totalCharges = totalCharges.add(chargeAmount);
-        }
-
-        return totalCharges;
+        return feeScheduleEngine.quote(transactionType, transactionAmount).getCharges();
     }
 
     /**
@@ -171,6 +169,7 @@ public class ChargeService {
         charge.setIsActive(false);
         charge.setUpdatedBy(updatedBy);
         chargeRepository.save(charge);
+        eventPublisher.publishEvent(new FeeScheduleEngine.FeeScheduleChangedEvent());
         log.info("Charge deactivated: {} by user: {}", charge.getChargeCode(), updatedBy.getUsername());
     }
 }
@@ -5,6 +5,7 @@ import com.zim.paypal.model.entity.Currency;
 import com.zim.paypal.repository.CurrencyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +23,7 @@ import java.util.List;
 public class CurrencyService {
 
     private final CurrencyRepository currencyRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new currency
@@ -55,6 +57,7 @@ public class CurrencyService {
                 .build();
 
         Currency savedCurrency = currencyRepository.save(currency);
+        eventPublisher.publishEvent(new ExchangeRateEngine.ExchangeRatesChangedEvent());
         log.info("Currency created: {} by user: {}", currencyDto.getCurrencyCode(), createdBy.getUsername());
         return savedCurrency;
     }
@@ -95,6 +98,7 @@ public class CurrencyService {
         currency.setUpdatedBy(updatedBy);
 
         Currency savedCurrency = currencyRepository.save(currency);
+        eventPublisher.publishEvent(new ExchangeRateEngine.ExchangeRatesChangedEvent());
         log.info("Currency updated: {} by user: {}", currencyDto.getCurrencyCode(), updatedBy.getUsername());
         return savedCurrency;
     }
@@ -0,0 +1,91 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.RiskScore;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.RiskScoreRepository;
+import com.zim.paypal.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Outbox consumer running the full fraud and AML scoring of transfers that
+ * were committed with only the limit check. Transfers that score critical or
+ * fail AML are passed to every {@link RiskHoldHandler}.
+ * Scoring records its risk score and suspicious activity in one transaction,
+ * and each hold handler runs in its own. A retried event whose scoring already
+ * committed decides the holds from what was recorded instead of scoring again.
+ * Bulk payout items go through the same {@link #review} from
+ * {@link BatchTransferFollowUpService}.
+ *
+ * @author Zim Development Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeferredRiskConsumer implements OutboxConsumer {
+
+    private final TransactionRepository transactionRepository;
+    private final RiskScoreRepository riskScoreRepository;
+    private final FraudDetectionService fraudDetectionService;
+    private final AmlService amlService;
+    private final RiskContextLoader riskContextLoader;
+    private final List<RiskHoldHandler> holdHandlers;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public String getName() {
+        return "deferred-risk";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.TRANSFER_RISK_DEFERRED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Transaction transaction = transactionRepository.findByIdWithParties(event.getAggregateId())
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + event.getAggregateId()));
+        review(transaction);
+    }
+
+    /**
+     * Score a committed transfer, unless already scored, and hold it if it
+     * scores critical or fails AML
+     *
+     * @param transaction Committed transfer, with its parties loaded
+     * @return true if the transfer was held
+     */
+    public boolean review(Transaction transaction) {
+        Scores scores = riskScoreRepository.findByTransaction(transaction)
+                .map(riskScore -> new Scores(riskScore, !amlService.hasFailedCheck(transaction)))
+                .orElseGet(() -> transactionTemplate.execute(status -> score(transaction)));
+
+        String reason = !scores.amlPassed() ? "failed AML compliance check"
+                : scores.riskScore().getRiskLevel() == RiskScore.RiskLevel.CRITICAL
+                ? "critical fraud risk: " + scores.riskScore().getRiskFactors()
+                : null;
+        if (reason == null) {
+            return false;
+        }
+        log.warn("Deferred risk scoring flagged transfer {}: {}", transaction.getTransactionNumber(), reason);
+        for (RiskHoldHandler handler : holdHandlers) {
+            handler.onHold(transaction, reason);
+        }
+        return true;
+    }
+
+    private Scores score(Transaction transaction) {
+        RiskContext riskContext = riskContextLoader.forTransaction(transaction);
+        RiskScore riskScore = fraudDetectionService.analyzeTransaction(transaction, riskContext);
+        boolean amlPassed = amlService.performAmlCheck(transaction, riskContext);
+        return new Scores(riskScore, amlPassed);
+    }
+
+    private record Scores(RiskScore riskScore, boolean amlPassed) {}
+}
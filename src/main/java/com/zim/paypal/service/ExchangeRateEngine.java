@@ -0,0 +1,273 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Currency;
+import com.zim.paypal.model.entity.ExchangeRate;
+import com.zim.paypal.repository.CurrencyRepository;
+import com.zim.paypal.repository.ExchangeRateRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds the effective exchange rates into an immutable {@link RateMatrix}
+ * indexed by currency. Pairs without a direct rate are triangulated through
+ * the base currency. Besides the usual rebuilds, the matrix is rebuilt on
+ * first use after a rate starts or stops being effective.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExchangeRateEngine extends SnapshotEngine<ExchangeRateEngine.ExchangeRatesChangedEvent> {
+
+    private final ExchangeRateRepository rateRepository;
+    private final CurrencyRepository currencyRepository;
+
+    private static final long EXPIRED_RETRY_MILLIS = 10000;
+
+    private final VersionedSnapshot<RateMatrix> matrix = new VersionedSnapshot<>();
+    // Earliest time a failed rebuild of an expired matrix is tried again
+    private long expiredRetryAt;
+
+    /**
+     * Build the rates effective now and swap in the new matrix
+     */
+    @Override
+    protected void build() {
+        LocalDateTime now = LocalDateTime.now();
+        // Ordered, so unchanged currencies keep their ordinals across rebuilds
+        RateMatrix built = RateMatrix.build(currencyRepository.findAll(Sort.by("id")),
+                rateRepository.findEffectiveRates(now), rateRepository.findNextEffectiveFrom(now));
+        if (matrix.offer(built)) {
+            log.info("Exchange rate matrix version {} built for {} currencies: {} direct and {} triangulated rates",
+                    matrix.get().getVersion(), built.ordinals.size(), built.getDirectRates(),
+                    built.getTriangulatedRates());
+        }
+    }
+
+    /**
+     * Current matrix, rebuilt first if a rate has started or stopped being
+     * effective since it was built. If that rebuild fails the current matrix
+     * is returned.
+     *
+     * @return Immutable matrix
+     */
+    public RateMatrix getMatrix() {
+        RateMatrix current = matrix.get();
+        if (current.isExpired(LocalDateTime.now())) {
+            rebuildExpired();
+            current = matrix.get();
+        }
+        return current;
+    }
+
+    private synchronized void rebuildExpired() {
+        // Callers that waited for the lock find the matrix already rebuilt
+        long nowMillis = System.currentTimeMillis();
+        if (!matrix.get().isExpired(LocalDateTime.now()) || nowMillis < expiredRetryAt) {
+            return;
+        }
+        try {
+            build();
+        } catch (Exception e) {
+            expiredRetryAt = nowMillis + EXPIRED_RETRY_MILLIS;
+            log.error("Error rebuilding expired exchange rate matrix, keeping version {}: {}",
+                    matrix.get().getVersion(), e.getMessage());
+        }
+    }
+
+    /**
+     * Published by the exchange rate and currency services when an admin
+     * edits rates or currencies
+     */
+    public record ExchangeRatesChangedEvent() implements ChangeEvent {}
+
+    /**
+     * Rates between every pair of known currencies at one point in time.
+     * A pair's rate is its direct rate if one is effective; otherwise the
+     * rate into the base currency times the rate out of it, where a missing
+     * leg may be the inverse of the rate in the other direction. Triangulated
+     * rates keep 16 significant digits.
+     */
+    public static final class RateMatrix implements VersionedSnapshot.Versioned<RateMatrix> {
+
+        @Getter
+        private final long version;
+        private final Map<String, Integer> ordinals;
+        private final BigDecimal[][] rates;
+        @Getter
+        private final int directRates;
+        @Getter
+        private final int triangulatedRates;
+        // First moment the matrix no longer holds the effective rates; null if no change is scheduled
+        @Getter
+        private final LocalDateTime validUntil;
+
+        private RateMatrix(long version, Map<String, Integer> ordinals, BigDecimal[][] rates, int directRates,
+                           int triangulatedRates, LocalDateTime validUntil) {
+            this.version = version;
+            this.ordinals = ordinals;
+            this.rates = rates;
+            this.directRates = directRates;
+            this.triangulatedRates = triangulatedRates;
+            this.validUntil = validUntil;
+        }
+
+        static RateMatrix build(List<Currency> currencies, List<ExchangeRate> effectiveRates,
+                                LocalDateTime nextEffectiveFrom) {
+            Map<String, Integer> ordinals = new HashMap<>();
+            Map<Long, Integer> byId = new HashMap<>();
+            int base = -1;
+            for (Currency currency : currencies) {
+                int ordinal = ordinals.size();
+                ordinals.put(currency.getCurrencyCode(), ordinal);
+                byId.put(currency.getId(), ordinal);
+                if (Boolean.TRUE.equals(currency.getIsBaseCurrency()) && base < 0) {
+                    base = ordinal;
+                }
+            }
+
+            int size = ordinals.size();
+            ExchangeRate[][] chosen = new ExchangeRate[size][size];
+            LocalDateTime validUntil = nextEffectiveFrom;
+            for (ExchangeRate rate : effectiveRates) {
+                Integer from = byId.get(rate.getFromCurrency().getId());
+                Integer to = byId.get(rate.getToCurrency().getId());
+                if (from == null || to == null) {
+                    continue;
+                }
+                // Of overlapping rates the one that took effect last applies
+                ExchangeRate current = chosen[from][to];
+                if (current == null || rate.getEffectiveFrom().isAfter(current.getEffectiveFrom())) {
+                    chosen[from][to] = rate;
+                }
+                if (rate.getEffectiveTo() != null) {
+                    LocalDateTime expires = rate.getEffectiveTo().plusNanos(1);
+                    if (validUntil == null || expires.isBefore(validUntil)) {
+                        validUntil = expires;
+                    }
+                }
+            }
+
+            BigDecimal[][] rates = new BigDecimal[size][size];
+            int direct = 0;
+            for (int from = 0; from < size; from++) {
+                for (int to = 0; to < size; to++) {
+                    if (chosen[from][to] != null) {
+                        rates[from][to] = chosen[from][to].getRate();
+                        direct++;
+                    }
+                }
+            }
+
+            int triangulated = 0;
+            for (int from = 0; from < size; from++) {
+                rates[from][from] = BigDecimal.ONE;
+                if (base < 0) {
+                    continue;
+                }
+                BigDecimal toBase = leg(chosen, from, base);
+                if (toBase == null) {
+                    continue;
+                }
+                for (int to = 0; to < size; to++) {
+                    if (rates[from][to] != null) {
+                        continue;
+                    }
+                    BigDecimal fromBase = leg(chosen, base, to);
+                    if (fromBase != null) {
+                        rates[from][to] = toBase.multiply(fromBase, MathContext.DECIMAL64);
+                        triangulated++;
+                    }
+                }
+            }
+            return new RateMatrix(0, Collections.unmodifiableMap(ordinals), rates, direct, triangulated, validUntil);
+        }
+
+        private static BigDecimal leg(ExchangeRate[][] chosen, int from, int to) {
+            if (from == to) {
+                return BigDecimal.ONE;
+            }
+            if (chosen[from][to] != null) {
+                return chosen[from][to].getRate();
+            }
+            if (chosen[to][from] != null) {
+                return BigDecimal.ONE.divide(chosen[to][from].getRate(), MathContext.DECIMAL64);
+            }
+            return null;
+        }
+
+        /**
+         * Exchange rate between two currencies
+         *
+         * @param fromCurrencyCode From currency code
+         * @param toCurrencyCode To currency code
+         * @return Exchange rate
+         */
+        public BigDecimal rate(String fromCurrencyCode, String toCurrencyCode) {
+            if (fromCurrencyCode.equals(toCurrencyCode)) {
+                return BigDecimal.ONE;
+            }
+
+            Integer from = ordinals.get(fromCurrencyCode);
+            if (from == null) {
+                throw new IllegalArgumentException("From currency not found: " + fromCurrencyCode);
+            }
+            Integer to = ordinals.get(toCurrencyCode);
+            if (to == null) {
+                throw new IllegalArgumentException("To currency not found: " + toCurrencyCode);
+            }
+
+            BigDecimal rate = rates[from][to];
+            if (rate == null) {
+                throw new IllegalStateException(
+                        "No effective exchange rate found from " + fromCurrencyCode + " to " + toCurrencyCode);
+            }
+            return rate;
+        }
+
+        /**
+         * Convert amount from one currency to another
+         *
+         * @param amount Amount to convert
+         * @param fromCurrencyCode From currency code
+         * @param toCurrencyCode To currency code
+         * @return Converted amount
+         */
+        public BigDecimal convert(BigDecimal amount, String fromCurrencyCode, String toCurrencyCode) {
+            if (fromCurrencyCode.equals(toCurrencyCode)) {
+                return amount;
+            }
+            return amount.multiply(rate(fromCurrencyCode, toCurrencyCode)).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        boolean isExpired(LocalDateTime now) {
+            return validUntil != null && !now.isBefore(validUntil);
+        }
+
+        @Override
+        public RateMatrix withVersion(long version) {
+            return new RateMatrix(version, ordinals, rates, directRates, triangulatedRates, validUntil);
+        }
+
+        @Override
+        public boolean sameContentAs(RateMatrix other) {
+            return ordinals.equals(other.ordinals) && Arrays.deepEquals(rates, other.rates)
+                    && Objects.equals(validUntil, other.validUntil);
+        }
+    }
+}
@@ -7,7 +7,9 @@ import com.zim.paypal.repository.CurrencyRepository;
 import com.zim.paypal.repository.ExchangeRateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -15,7 +17,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * Service for exchange rate management
+ * Service for exchange rate management. Rates and conversions are read
+ * from the {@link ExchangeRateEngine} matrix.
  * 
  * @author Zim Development Team
  */
@@ -27,6 +30,8 @@ public class ExchangeRateService {
 
     private final ExchangeRateRepository rateRepository;
     private final CurrencyRepository currencyRepository;
+    private final ExchangeRateEngine exchangeRateEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new exchange rate
@@ -56,6 +61,7 @@ public class ExchangeRateService {
                 .build();
 
         ExchangeRate savedRate = rateRepository.save(rate);
+        eventPublisher.publishEvent(new ExchangeRateEngine.ExchangeRatesChangedEvent());
         log.info("Exchange rate created: {} to {} by user: {}", 
                 fromCurrency.getCurrencyCode(), toCurrency.getCurrencyCode(), createdBy.getUsername());
         return savedRate;
@@ -91,6 +97,7 @@ public class ExchangeRateService {
         rate.setUpdatedBy(updatedBy);
 
         ExchangeRate savedRate = rateRepository.save(rate);
+        eventPublisher.publishEvent(new ExchangeRateEngine.ExchangeRatesChangedEvent());
         log.info("Exchange rate updated: {} to {} by user: {}", 
                 fromCurrency.getCurrencyCode(), toCurrency.getCurrencyCode(), updatedBy.getUsername());
         return savedRate;
@@ -103,22 +110,9 @@ public class ExchangeRateService {
      * @param toCurrencyCode To currency code
      * @return Exchange rate
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal getExchangeRate(String fromCurrencyCode, String toCurrencyCode) {
-        if (fromCurrencyCode.equals(toCurrencyCode)) {
-            return BigDecimal.ONE;
-        }
-
-        Currency fromCurrency = currencyRepository.findByCurrencyCode(fromCurrencyCode)
-                .orElseThrow(() -> new IllegalArgumentException("From currency not found: " + fromCurrencyCode));
-        Currency toCurrency = currencyRepository.findByCurrencyCode(toCurrencyCode)
-                .orElseThrow(() -> new IllegalArgumentException("To currency not found: " + toCurrencyCode));
-
-        ExchangeRate rate = rateRepository.findEffectiveRate(fromCurrency, toCurrency, LocalDateTime.now())
-                .orElseThrow(() -> new IllegalStateException(
-                        "No effective exchange rate found from " + fromCurrencyCode + " to " + toCurrencyCode));
-
-        return rate.getRate();
+        return exchangeRateEngine.getMatrix().rate(fromCurrencyCode, toCurrencyCode);
     }
 
     /**
@@ -129,14 +123,9 @@ public class ExchangeRateService {
      * @param toCurrencyCode To currency code
      * @return Converted amount
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal convertAmount(BigDecimal amount, String fromCurrencyCode, String toCurrencyCode) {
-        if (fromCurrencyCode.equals(toCurrencyCode)) {
-            return amount;
-        }
-
-        BigDecimal rate = getExchangeRate(fromCurrencyCode, toCurrencyCode);
-        return amount.multiply(rate).setScale(2, java.math.RoundingMode.HALF_UP);
+        return exchangeRateEngine.getMatrix().convert(amount, fromCurrencyCode, toCurrencyCode);
     }
 
     /**
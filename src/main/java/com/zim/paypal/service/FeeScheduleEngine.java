@@ -0,0 +1,291 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.dto.FeeQuoteRequest;
+import com.zim.paypal.model.dto.FeeQuoteResult;
+import com.zim.paypal.model.entity.Charge;
+import com.zim.paypal.model.entity.Tax;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.ChargeRepository;
+import com.zim.paypal.repository.TaxRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles active charges and taxes into an immutable, versioned fee schedule
+ * per transaction type and quotes fees from it. Charges are resolved per
+ * transaction type at build time; tax effective dates are checked per quote.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeScheduleEngine extends SnapshotEngine<FeeScheduleEngine.FeeScheduleChangedEvent> {
+
+    private final ChargeRepository chargeRepository;
+    private final TaxRepository taxRepository;
+
+    private static final BigDecimal HUNDRED = new BigDecimal(100);
+
+    private final VersionedSnapshot<FeeSchedule> schedule = new VersionedSnapshot<>();
+
+    /**
+     * Compile the active charges and taxes and swap in the new schedule
+     */
+    @Override
+    protected void build() {
+        List<Charge> charges = chargeRepository.findByIsActiveTrue();
+        List<Tax> taxes = taxRepository.findByIsActiveTrue();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Transaction.TransactionType, TypeSchedule> types = new EnumMap<>(Transaction.TransactionType.class);
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            List<ChargeRule> chargeRules = new ArrayList<>();
+            for (Charge charge : charges) {
+                if (charge.getTransactionType() == type) {
+                    chargeRules.add(new ChargeRule(charge));
+                }
+            }
+            List<TaxRule> taxRules = new ArrayList<>();
+            for (Tax tax : taxes) {
+                boolean applies = tax.getTransactionType() == null || tax.getTransactionType() == type;
+                boolean expired = tax.getEffectiveTo() != null && tax.getEffectiveTo().isBefore(now);
+                if (applies && !expired) {
+                    taxRules.add(new TaxRule(tax));
+                }
+            }
+            types.put(type, new TypeSchedule(chargeRules.toArray(new ChargeRule[0]), taxRules.toArray(new TaxRule[0])));
+        }
+
+        if (schedule.offer(new FeeSchedule(0, now, Collections.unmodifiableMap(types)))) {
+            log.info("Fee schedule version {} compiled from {} charges and {} taxes",
+                    schedule.get().getVersion(), charges.size(), taxes.size());
+        }
+    }
+
+    /**
+     * Current compiled schedule
+     *
+     * @return Immutable schedule snapshot
+     */
+    public FeeSchedule getSchedule() {
+        return schedule.get();
+    }
+
+    /**
+     * Quote charges and taxes for one amount
+     *
+     * @param transactionType Transaction type
+     * @param amount Transaction amount
+     * @return Fee breakdown
+     */
+    public Quote quote(Transaction.TransactionType transactionType, BigDecimal amount) {
+        return schedule.get().quote(transactionType, amount, LocalDateTime.now());
+    }
+
+    /**
+     * Total fee (charges plus taxes) for one amount
+     *
+     * @param transactionType Transaction type
+     * @param amount Transaction amount
+     * @return Total fee
+     */
+    public BigDecimal calculateTotalFee(Transaction.TransactionType transactionType, BigDecimal amount) {
+        return quote(transactionType, amount).getTotalFee();
+    }
+
+    /**
+     * Quote many amounts against one schedule snapshot
+     *
+     * @param request Transaction type and amounts
+     * @return Per-amount fee breakdown
+     */
+    public FeeQuoteResult quote(FeeQuoteRequest request) {
+        FeeSchedule snapshot = schedule.get();
+        Transaction.TransactionType transactionType = request.getTransactionType() != null
+                ? request.getTransactionType() : Transaction.TransactionType.TRANSFER;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<FeeQuoteResult.Item> items = new ArrayList<>(request.getAmounts().size());
+        for (BigDecimal amount : request.getAmounts()) {
+            Quote quote = snapshot.quote(transactionType, amount, now);
+            items.add(FeeQuoteResult.Item.builder()
+                    .amount(amount)
+                    .charges(quote.getCharges())
+                    .taxes(quote.getTaxes())
+                    .totalFee(quote.getTotalFee())
+                    .totalAmount(amount.add(quote.getTotalFee()))
+                    .build());
+        }
+        return FeeQuoteResult.builder()
+                .transactionType(transactionType)
+                .scheduleVersion(snapshot.getVersion())
+                .quotes(items)
+                .build();
+    }
+
+    /**
+     * Published by the charge and tax services when an admin edits the schedule
+     */
+    public record FeeScheduleChangedEvent() implements ChangeEvent {}
+
+    /**
+     * Immutable compiled fee schedule
+     */
+    public static final class FeeSchedule implements VersionedSnapshot.Versioned<FeeSchedule> {
+
+        @Getter
+        private final long version;
+        @Getter
+        private final LocalDateTime compiledAt;
+        private final Map<Transaction.TransactionType, TypeSchedule> types;
+
+        FeeSchedule(long version, LocalDateTime compiledAt, Map<Transaction.TransactionType, TypeSchedule> types) {
+            this.version = version;
+            this.compiledAt = compiledAt;
+            this.types = types;
+        }
+
+        @Override
+        public FeeSchedule withVersion(long version) {
+            return new FeeSchedule(version, compiledAt, types);
+        }
+
+        @Override
+        public boolean sameContentAs(FeeSchedule other) {
+            return types.equals(other.types);
+        }
+
+        /**
+         * Quote an amount against this schedule
+         *
+         * @param transactionType Transaction type
+         * @param amount Transaction amount
+         * @param now Time at which tax effective dates are evaluated
+         * @return Fee breakdown
+         */
+        public Quote quote(Transaction.TransactionType transactionType, BigDecimal amount, LocalDateTime now) {
+            if (transactionType == null) {
+                throw new IllegalArgumentException("Transaction type is required");
+            }
+            if (amount == null || amount.signum() < 0) {
+                throw new IllegalArgumentException("Amount must be zero or positive");
+            }
+            TypeSchedule type = types.get(transactionType);
+
+            BigDecimal charges = BigDecimal.ZERO;
+            for (ChargeRule rule : type.charges) {
+                charges = charges.add(rule.apply(amount));
+            }
+            BigDecimal taxes = BigDecimal.ZERO;
+            for (TaxRule rule : type.taxes) {
+                if (rule.isEffective(now)) {
+                    taxes = taxes.add(rule.apply(amount));
+                }
+            }
+            return new Quote(version, charges, taxes, charges.add(taxes));
+        }
+    }
+
+    /**
+     * Charge and tax rules for one transaction type
+     */
+    static final class TypeSchedule {
+
+        private final ChargeRule[] charges;
+        private final TaxRule[] taxes;
+
+        TypeSchedule(ChargeRule[] charges, TaxRule[] taxes) {
+            this.charges = charges;
+            this.taxes = taxes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TypeSchedule other
+                    && Arrays.equals(charges, other.charges)
+                    && Arrays.equals(taxes, other.taxes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(charges) + Arrays.hashCode(taxes);
+        }
+    }
+
+    /**
+     * Compiled charge, same arithmetic as {@link Charge#calculateCharge}
+     */
+    private record ChargeRule(Charge.ChargeMethod method, BigDecimal fixed, BigDecimal rate,
+                              BigDecimal min, BigDecimal max) {
+
+        ChargeRule(Charge charge) {
+            this(charge.getChargeMethod(),
+                    charge.getFixedAmount(),
+                    charge.getPercentageRate() != null ? charge.getPercentageRate().divide(HUNDRED) : null,
+                    charge.getMinAmount(),
+                    charge.getMaxAmount());
+        }
+
+        BigDecimal apply(BigDecimal amount) {
+            BigDecimal charge = BigDecimal.ZERO;
+            if (method != Charge.ChargeMethod.PERCENTAGE && method != Charge.ChargeMethod.TIERED && fixed != null) {
+                charge = fixed;
+            }
+            if (method != Charge.ChargeMethod.FIXED && rate != null) {
+                charge = charge.add(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+            }
+            if (min != null && charge.compareTo(min) < 0) {
+                charge = min;
+            }
+            if (max != null && charge.compareTo(max) > 0) {
+                charge = max;
+            }
+            return charge;
+        }
+    }
+
+    /**
+     * Compiled tax, same arithmetic as {@link Tax#calculateTax}
+     */
+    private record TaxRule(BigDecimal rate, LocalDateTime effectiveFrom, LocalDateTime effectiveTo) {
+
+        TaxRule(Tax tax) {
+            this(tax.getTaxRate() != null ? tax.getTaxRate().divide(HUNDRED) : BigDecimal.ZERO,
+                    tax.getEffectiveFrom(), tax.getEffectiveTo());
+        }
+
+        boolean isEffective(LocalDateTime now) {
+            return (effectiveFrom == null || !now.isBefore(effectiveFrom))
+                    && (effectiveTo == null || !now.isAfter(effectiveTo));
+        }
+
+        BigDecimal apply(BigDecimal amount) {
+            return amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Fee breakdown for one amount
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Quote {
+        private final long scheduleVersion;
+        private final BigDecimal charges;
+        private final BigDecimal taxes;
+        private final BigDecimal totalFee;
+    }
+}
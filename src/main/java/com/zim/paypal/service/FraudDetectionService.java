@@ -2,9 +2,11 @@ package com.zim.paypal.service;
 
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.*;
+import com.zim.paypal.util.MoneyUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -23,11 +25,11 @@ import java.util.List;
 @Transactional
 public class FraudDetectionService {
 
-    private final FraudRuleRepository fraudRuleRepository;
+    private final FraudRuleEngine fraudRuleEngine;
     private final RiskScoreRepository riskScoreRepository;
     private final SuspiciousActivityRepository suspiciousActivityRepository;
-    private final TransactionRepository transactionRepository;
-    private final AccountRepository accountRepository;
+    private final VelocityStore velocityStore;
+    private final RiskContextLoader riskContextLoader;
 
     /**
      * Analyze transaction for fraud
@@ -36,140 +38,111 @@ public class FraudDetectionService {
      * @return Risk score
      */
     public RiskScore analyzeTransaction(Transaction transaction) {
-        BigDecimal riskScore = BigDecimal.ZERO;
-        List<String> riskFactors = new ArrayList<>();
+        return analyzeTransaction(transaction, riskContextLoader.forTransaction(transaction));
+    }
 
-        // Get user
-        User user = transaction.getSender();
-        if (user == null) {
-            user = transaction.getAccount() != null ? transaction.getAccount().getUser() : null;
-        }
+    /**
+     * Analyze transaction for fraud against an already loaded risk context
+     * 
+     * @param transaction Transaction to analyze
+     * @param context Risk context of the transaction's user, or null if it has none
+     * @return Risk score
+     */
+    public RiskScore analyzeTransaction(Transaction transaction, RiskContext context) {
+        return recordAssessment(transaction, context, assess(transaction, context));
+    }
 
-        if (user == null) {
-            return createRiskScore(null, transaction, BigDecimal.ZERO, RiskScore.RiskLevel.LOW, 
-                    RiskScore.ScoreType.TRANSACTION, "No user associated with transaction");
+    /**
+     * Score a transaction without writing anything, so it can run off the
+     * request thread before the transaction is saved
+     * 
+     * @param transaction Transaction to score, saved or not
+     * @param context Risk context of the transaction's user, or null if it has none
+     * @return Assessment, or null if the transaction has no user
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Assessment assess(Transaction transaction, RiskContext context) {
+        if (context == null) {
+            return null;
         }
 
-        // Check amount threshold
-        riskScore = riskScore.add(checkAmountThreshold(transaction, riskFactors));
-
-        // Check velocity (rapid transactions)
-        riskScore = riskScore.add(checkVelocity(user, transaction, riskFactors));
+        int riskScore = 0;
+        List<String> riskFactors = new ArrayList<>();
 
-        // Check unusual patterns
-        riskScore = riskScore.add(checkUnusualPatterns(user, transaction, riskFactors));
+        // Check amount threshold, velocity and structuring rules
+        FraudRuleEngine.Evaluation evaluation = checkRules(context, transaction, riskFactors);
+        riskScore += evaluation.score();
 
         // Check account age
-        riskScore = riskScore.add(checkAccountAge(user, riskFactors));
+        riskScore += checkAccountAge(context, riskFactors);
 
         // Check transaction frequency
-        riskScore = riskScore.add(checkTransactionFrequency(user, riskFactors));
-
-        // Determine risk level
-        RiskScore.RiskLevel riskLevel = determineRiskLevel(riskScore);
+        riskScore += checkTransactionFrequency(context, riskFactors);
 
-        // Create risk score record
-        RiskScore score = createRiskScore(user, transaction, riskScore, riskLevel, 
-                RiskScore.ScoreType.TRANSACTION, String.join(", ", riskFactors));
-
-        // If high risk, create suspicious activity
-        if (riskLevel == RiskScore.RiskLevel.HIGH || riskLevel == RiskScore.RiskLevel.CRITICAL) {
-            createSuspiciousActivity(user, transaction, riskLevel, riskFactors);
-        }
-
-        return score;
+        return new Assessment(riskScore, determineRiskLevel(riskScore), riskFactors, evaluation.firedRules());
     }
 
     /**
-     * Check amount threshold rules
+     * Record an assessment: save the risk score, flag high risk and execute
+     * the actions of the rules that fired
+     * 
+     * @param transaction Saved transaction
+     * @param context Risk context of the transaction's user, or null if it has none
+     * @param assessment Assessment from {@link #assess}, or null if the transaction has no user
+     * @return Risk score
      */
-    private BigDecimal checkAmountThreshold(Transaction transaction, List<String> riskFactors) {
-        BigDecimal risk = BigDecimal.ZERO;
-        List<FraudRule> rules = fraudRuleRepository.findByRuleTypeAndIsActiveTrue(FraudRule.RuleType.AMOUNT_THRESHOLD);
-
-        for (FraudRule rule : rules) {
-            if (rule.getThresholdAmount() != null && 
-                transaction.getAmount().compareTo(rule.getThresholdAmount()) > 0) {
-                risk = risk.add(new BigDecimal("15"));
-                riskFactors.add("Amount exceeds threshold: " + rule.getRuleName());
-                
-                // Execute action
-                executeRuleAction(rule, transaction);
-            }
+    public RiskScore recordAssessment(Transaction transaction, RiskContext context, Assessment assessment) {
+        if (context == null || assessment == null) {
+            return createRiskScore(null, transaction, BigDecimal.ZERO, RiskScore.RiskLevel.LOW, 
+                    RiskScore.ScoreType.TRANSACTION, "No user associated with transaction");
         }
+        User user = context.getUser();
 
-        return risk;
-    }
+        for (FraudRuleEngine.CompiledRule rule : assessment.firedRules()) {
+            executeRuleAction(rule, transaction);
+        }
 
-    /**
-     * Check velocity (rapid transactions)
-     */
-    private BigDecimal checkVelocity(User user, Transaction transaction, List<String> riskFactors) {
-        BigDecimal risk = BigDecimal.ZERO;
-        List<FraudRule> rules = fraudRuleRepository.findByRuleTypeAndIsActiveTrue(FraudRule.RuleType.VELOCITY_CHECK);
-
-        for (FraudRule rule : rules) {
-            if (rule.getTimeWindowMinutes() != null && rule.getThresholdCount() != null) {
-                LocalDateTime windowStart = LocalDateTime.now().minusMinutes(rule.getTimeWindowMinutes());
-                List<Transaction> recentTransactions = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                        user.getId(), windowStart, LocalDateTime.now());
-
-                if (recentTransactions.size() >= rule.getThresholdCount()) {
-                    risk = risk.add(new BigDecimal("20"));
-                    riskFactors.add("High velocity: " + recentTransactions.size() + 
-                            " transactions in " + rule.getTimeWindowMinutes() + " minutes");
-                    
-                    executeRuleAction(rule, transaction);
-                }
-            }
+        // Create risk score record
+        RiskScore score = createRiskScore(user, transaction, BigDecimal.valueOf(assessment.score()), 
+                assessment.riskLevel(), RiskScore.ScoreType.TRANSACTION, String.join(", ", assessment.riskFactors()));
+
+        // If high risk, create suspicious activity
+        if (assessment.riskLevel() == RiskScore.RiskLevel.HIGH || assessment.riskLevel() == RiskScore.RiskLevel.CRITICAL) {
+            createSuspiciousActivity(user, transaction, assessment.riskLevel(), assessment.riskFactors());
         }
 
-        return risk;
+        return score;
     }
 
     /**
-     * Check unusual patterns
+     * Score the compiled fraud rules
      */
-    private BigDecimal checkUnusualPatterns(User user, Transaction transaction, List<String> riskFactors) {
-        BigDecimal risk = BigDecimal.ZERO;
-
-        // Check for structuring (transactions just below reporting threshold)
-        List<FraudRule> structuringRules = fraudRuleRepository.findByRuleTypeAndIsActiveTrue(
-                FraudRule.RuleType.STRUCTURING_DETECTION);
-
-        for (FraudRule rule : structuringRules) {
-            if (rule.getThresholdAmount() != null) {
-                BigDecimal threshold = rule.getThresholdAmount();
-                BigDecimal ninetyPercent = threshold.multiply(new BigDecimal("0.90"));
-                
-                if (transaction.getAmount().compareTo(ninetyPercent) >= 0 && 
-                    transaction.getAmount().compareTo(threshold) < 0) {
-                    risk = risk.add(new BigDecimal("25"));
-                    riskFactors.add("Possible structuring: amount just below threshold");
-                    executeRuleAction(rule, transaction);
-                }
-            }
+    private FraudRuleEngine.Evaluation checkRules(RiskContext context, Transaction transaction, List<String> riskFactors) {
+        // Velocity rules sharing a window share one count
+        int[] windowCounts = context.getVelocityCounts();
+        FraudRuleEngine.Evaluation evaluation = context.getRuleSet().evaluate(
+                MoneyUtils.toCents(transaction.getAmount()), windowCounts);
+        for (FraudRuleEngine.CompiledRule rule : evaluation.firedRules()) {
+            riskFactors.add(switch (rule.ruleType()) {
+                case AMOUNT_THRESHOLD -> "Amount exceeds threshold: " + rule.ruleName();
+                case VELOCITY_CHECK -> "High velocity: " + windowCounts[rule.window()] +
+                        " transactions in " + rule.windowMinutes() + " minutes";
+                default -> "Possible structuring: amount just below threshold";
+            });
         }
-
-        return risk;
+        return evaluation;
     }
 
     /**
      * Check account age
      */
-    private BigDecimal checkAccountAge(User user, List<String> riskFactors) {
-        BigDecimal risk = BigDecimal.ZERO;
+    private int checkAccountAge(RiskContext context, List<String> riskFactors) {
+        int risk = 0;
         
-        List<Account> accounts = accountRepository.findByUser(user);
-        if (!accounts.isEmpty()) {
-            Account account = accounts.get(0);
-            long daysSinceCreation = java.time.temporal.ChronoUnit.DAYS.between(
-                    account.getCreatedAt(), LocalDateTime.now());
-            
-            if (daysSinceCreation < 7) {
-                risk = risk.add(new BigDecimal("10"));
-                riskFactors.add("New account: " + daysSinceCreation + " days old");
-            }
+        long daysSinceCreation = context.getAccountAgeDays();
+        if (daysSinceCreation >= 0 && daysSinceCreation < 7) {
+            risk += 10;
+            riskFactors.add("New account: " + daysSinceCreation + " days old");
         }
 
         return risk;
@@ -178,16 +151,14 @@ public class FraudDetectionService {
     /**
      * Check transaction frequency
      */
-    private BigDecimal checkTransactionFrequency(User user, List<String> riskFactors) {
-        BigDecimal risk = BigDecimal.ZERO;
+    private int checkTransactionFrequency(RiskContext context, List<String> riskFactors) {
+        int risk = 0;
         
-        LocalDateTime last24Hours = LocalDateTime.now().minusHours(24);
-        List<Transaction> recentTransactions = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                user.getId(), last24Hours, LocalDateTime.now());
+        int recentCount = context.getLast24Hours().count();
 
-        if (recentTransactions.size() > 50) {
-            risk = risk.add(new BigDecimal("15"));
-            riskFactors.add("High transaction frequency: " + recentTransactions.size() + " in 24 hours");
+        if (recentCount > 50) {
+            risk += 15;
+            riskFactors.add("High transaction frequency: " + recentCount + " in 24 hours");
         }
 
         return risk;
@@ -196,12 +167,12 @@ public class FraudDetectionService {
     /**
      * Determine risk level from score
      */
-    private RiskScore.RiskLevel determineRiskLevel(BigDecimal score) {
-        if (score.compareTo(new BigDecimal("70")) >= 0) {
+    private RiskScore.RiskLevel determineRiskLevel(int score) {
+        if (score >= 70) {
             return RiskScore.RiskLevel.CRITICAL;
-        } else if (score.compareTo(new BigDecimal("50")) >= 0) {
+        } else if (score >= 50) {
             return RiskScore.RiskLevel.HIGH;
-        } else if (score.compareTo(new BigDecimal("30")) >= 0) {
+        } else if (score >= 30) {
             return RiskScore.RiskLevel.MEDIUM;
         } else {
             return RiskScore.RiskLevel.LOW;
@@ -254,13 +225,13 @@ public class FraudDetectionService {
     /**
      * Execute rule action
      */
-    private void executeRuleAction(FraudRule rule, Transaction transaction) {
-        switch (rule.getActionType()) {
+    private void executeRuleAction(FraudRuleEngine.CompiledRule rule, Transaction transaction) {
+        switch (rule.actionType()) {
             case FLAG:
                 // Already flagged by creating suspicious activity
                 break;
             case BLOCK:
-                transaction.markAsFailed("Transaction blocked by fraud rule: " + rule.getRuleName());
+                transaction.markAsFailed("Transaction blocked by fraud rule: " + rule.ruleName());
                 break;
             case FREEZE_ACCOUNT:
                 if (transaction.getAccount() != null) {
@@ -282,29 +253,38 @@ public class FraudDetectionService {
      * @return Risk score
      */
     public RiskScore calculateUserRiskScore(User user) {
-        BigDecimal riskScore = BigDecimal.ZERO;
+        int riskScore = 0;
         List<String> riskFactors = new ArrayList<>();
 
         // Check recent suspicious activities
         long suspiciousCount = suspiciousActivityRepository.countByStatus(SuspiciousActivity.Status.PENDING);
         if (suspiciousCount > 0) {
-            riskScore = riskScore.add(new BigDecimal("20"));
+            riskScore += 20;
             riskFactors.add("Pending suspicious activities: " + suspiciousCount);
         }
 
         // Check transaction history
         LocalDateTime last30Days = LocalDateTime.now().minusDays(30);
-        List<Transaction> recentTransactions = transactionRepository.findBySenderIdAndCreatedAtBetween(
-                user.getId(), last30Days, LocalDateTime.now());
+        int recentCount = velocityStore.window(user.getId(), last30Days, LocalDateTime.now()).count();
 
-        if (recentTransactions.size() > 200) {
-            riskScore = riskScore.add(new BigDecimal("15"));
-            riskFactors.add("High transaction volume: " + recentTransactions.size() + " in 30 days");
+        if (recentCount > 200) {
+            riskScore += 15;
+            riskFactors.add("High transaction volume: " + recentCount + " in 30 days");
         }
 
         RiskScore.RiskLevel riskLevel = determineRiskLevel(riskScore);
-        return createRiskScore(user, null, riskScore, riskLevel, 
+        return createRiskScore(user, null, BigDecimal.valueOf(riskScore), riskLevel, 
                 RiskScore.ScoreType.USER_PROFILE, String.join(", ", riskFactors));
     }
-}
 
+    /**
+     * Fraud score of one transaction, before anything is recorded
+     * 
+     * @param score Total risk score
+     * @param riskLevel Level of the score
+     * @param riskFactors Reasons for the score
+     * @param firedRules Fraud rules that fired, whose actions still have to be executed
+     */
+    public record Assessment(int score, RiskScore.RiskLevel riskLevel, List<String> riskFactors,
+                             FraudRuleEngine.CompiledRule[] firedRules) {}
+}
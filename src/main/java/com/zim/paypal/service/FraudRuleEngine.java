@@ -0,0 +1,274 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.FraudRule;
+import com.zim.paypal.repository.FraudRuleRepository;
+import com.zim.paypal.util.MoneyUtils;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compiles the active fraud rules into an immutable, versioned rule set and
+ * scores transactions against it. Amounts are compared in cents and scores
+ * added as ints; evaluating a transaction allocates only its result. Rules in
+ * shadow mode are compiled into a separate rule set that is scored for
+ * comparison only.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FraudRuleEngine extends SnapshotEngine<FraudRuleEngine.FraudRulesChangedEvent> {
+
+    private final FraudRuleRepository fraudRuleRepository;
+
+    static final int AMOUNT_THRESHOLD_SCORE = 15;
+    static final int VELOCITY_SCORE = 20;
+    static final int STRUCTURING_SCORE = 25;
+
+    private final VersionedSnapshot<RuleSet> ruleSet = new VersionedSnapshot<>();
+    private final VersionedSnapshot<RuleSet> shadowRuleSet = new VersionedSnapshot<>();
+
+    /**
+     * Compile the active rules and swap in the new rule sets
+     */
+    @Override
+    protected void build() {
+        List<FraudRule> rules = new ArrayList<>(fraudRuleRepository.findByIsActiveTrue());
+        rules.sort(Comparator.comparing(FraudRule::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<FraudRule> liveRules = new ArrayList<>();
+        List<FraudRule> shadowRules = new ArrayList<>();
+        for (FraudRule rule : rules) {
+            (Boolean.TRUE.equals(rule.getIsShadow()) ? shadowRules : liveRules).add(rule);
+        }
+
+        if (ruleSet.offer(compile(liveRules))) {
+            log.info("Fraud rule set version {} compiled from {} active rules",
+                    ruleSet.get().getVersion(), liveRules.size());
+        }
+        if (shadowRuleSet.offer(compile(shadowRules))) {
+            log.info("Shadow fraud rule set version {} compiled from {} shadow rules",
+                    shadowRuleSet.get().getVersion(), shadowRules.size());
+        }
+    }
+
+    /**
+     * Compile rules into an unversioned rule set, e.g. a candidate set for
+     * backtesting
+     *
+     * @param rules Rules in evaluation order
+     * @return Rule set with version 0
+     */
+    public RuleSet compile(List<FraudRule> rules) {
+        List<CompiledRule> amountRules = new ArrayList<>();
+        List<CompiledRule> velocityRules = new ArrayList<>();
+        List<CompiledRule> structuringRules = new ArrayList<>();
+        List<Integer> windows = new ArrayList<>();
+        for (FraudRule rule : rules) {
+            switch (rule.getRuleType()) {
+                case AMOUNT_THRESHOLD -> {
+                    if (rule.getThresholdAmount() != null) {
+                        amountRules.add(CompiledRule.of(rule, MoneyUtils.toCents(rule.getThresholdAmount()), 0, -1));
+                    }
+                }
+                case VELOCITY_CHECK -> {
+                    if (rule.getTimeWindowMinutes() != null && rule.getThresholdCount() != null) {
+                        int window = windows.indexOf(rule.getTimeWindowMinutes());
+                        if (window < 0) {
+                            window = windows.size();
+                            windows.add(rule.getTimeWindowMinutes());
+                        }
+                        velocityRules.add(CompiledRule.of(rule, 0, rule.getThresholdCount(), window));
+                    }
+                }
+                case STRUCTURING_DETECTION -> {
+                    if (rule.getThresholdAmount() != null) {
+                        structuringRules.add(CompiledRule.of(rule, MoneyUtils.toCents(rule.getThresholdAmount()), 0, -1));
+                    }
+                }
+                default -> {
+                    // Other rule types are not evaluated per transaction
+                }
+            }
+        }
+
+        return new RuleSet(0, LocalDateTime.now(),
+                amountRules.toArray(new CompiledRule[0]),
+                velocityRules.toArray(new CompiledRule[0]),
+                structuringRules.toArray(new CompiledRule[0]),
+                windows.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Current compiled rule set
+     *
+     * @return Immutable rule set snapshot
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet.get();
+    }
+
+    /**
+     * Current compiled shadow rule set, scored for comparison only
+     *
+     * @return Immutable rule set snapshot, empty if no rule is in shadow mode
+     */
+    public RuleSet getShadowRuleSet() {
+        return shadowRuleSet.get();
+    }
+
+    /**
+     * Published by the fraud rule service when an admin edits the rules
+     */
+    public record FraudRulesChangedEvent() implements ChangeEvent {}
+
+    /**
+     * Immutable compiled rule set
+     */
+    public static final class RuleSet implements VersionedSnapshot.Versioned<RuleSet> {
+
+        private static final CompiledRule[] NONE = new CompiledRule[0];
+
+        @Getter
+        private final long version;
+        @Getter
+        private final LocalDateTime compiledAt;
+        private final CompiledRule[] amountRules;
+        private final CompiledRule[] velocityRules;
+        private final CompiledRule[] structuringRules;
+        private final int[] velocityWindows;
+
+        RuleSet(long version, LocalDateTime compiledAt, CompiledRule[] amountRules, CompiledRule[] velocityRules,
+                CompiledRule[] structuringRules, int[] velocityWindows) {
+            this.version = version;
+            this.compiledAt = compiledAt;
+            this.amountRules = amountRules;
+            this.velocityRules = velocityRules;
+            this.structuringRules = structuringRules;
+            this.velocityWindows = velocityWindows;
+        }
+
+        /**
+         * Number of distinct velocity windows the rules look at. Callers pass
+         * the sender's transaction count for each, by index.
+         *
+         * @return Window count
+         */
+        public int getVelocityWindowCount() {
+            return velocityWindows.length;
+        }
+
+        /**
+         * Whether the rule set has no rules
+         *
+         * @return true if nothing can fire
+         */
+        public boolean isEmpty() {
+            return amountRules.length == 0 && velocityRules.length == 0 && structuringRules.length == 0;
+        }
+
+        /**
+         * Length of one velocity window
+         *
+         * @param window Window index
+         * @return Window length in minutes
+         */
+        public int getVelocityWindow(int window) {
+            return velocityWindows[window];
+        }
+
+        /**
+         * Score a transaction. Rules fire in a fixed order: amount
+         * thresholds, velocity, then structuring.
+         *
+         * @param amountCents Transaction amount in cents
+         * @param windowCounts Sender's transaction count per velocity window
+         * @return Score and fired rules
+         */
+        public Evaluation evaluate(long amountCents, int[] windowCounts) {
+            int score = 0;
+            int fired = 0;
+            CompiledRule[] firedRules = NONE;
+
+            for (CompiledRule rule : amountRules) {
+                if (amountCents > rule.thresholdCents()) {
+                    score += AMOUNT_THRESHOLD_SCORE;
+                    firedRules = append(firedRules, fired++, rule);
+                }
+            }
+            for (CompiledRule rule : velocityRules) {
+                if (windowCounts[rule.window()] >= rule.thresholdCount()) {
+                    score += VELOCITY_SCORE;
+                    firedRules = append(firedRules, fired++, rule);
+                }
+            }
+            for (CompiledRule rule : structuringRules) {
+                // At least 90% of the threshold but below it
+                if (amountCents * 10 >= rule.thresholdCents() * 9 && amountCents < rule.thresholdCents()) {
+                    score += STRUCTURING_SCORE;
+                    firedRules = append(firedRules, fired++, rule);
+                }
+            }
+            return new Evaluation(version, score, fired == firedRules.length ? firedRules : Arrays.copyOf(firedRules, fired));
+        }
+
+        private static CompiledRule[] append(CompiledRule[] rules, int size, CompiledRule rule) {
+            if (size == rules.length) {
+                rules = Arrays.copyOf(rules, Math.max(4, size * 2));
+            }
+            rules[size] = rule;
+            return rules;
+        }
+
+        @Override
+        public RuleSet withVersion(long version) {
+            return new RuleSet(version, compiledAt, amountRules, velocityRules, structuringRules, velocityWindows);
+        }
+
+        @Override
+        public boolean sameContentAs(RuleSet other) {
+            return Arrays.equals(amountRules, other.amountRules)
+                    && Arrays.equals(velocityRules, other.velocityRules)
+                    && Arrays.equals(structuringRules, other.structuringRules)
+                    && Arrays.equals(velocityWindows, other.velocityWindows);
+        }
+    }
+
+    /**
+     * A rule reduced to what evaluation needs
+     *
+     * @param ruleName Rule name, for risk factors
+     * @param ruleType Rule type
+     * @param actionType Action when the rule fires
+     * @param thresholdCents Amount threshold in cents (amount and structuring rules)
+     * @param thresholdCount Transaction count threshold (velocity rules)
+     * @param window Velocity window index (velocity rules)
+     * @param windowMinutes Velocity window length (velocity rules)
+     */
+    public record CompiledRule(String ruleName, FraudRule.RuleType ruleType, FraudRule.ActionType actionType,
+                               long thresholdCents, int thresholdCount, int window, int windowMinutes) {
+
+        static CompiledRule of(FraudRule rule, long thresholdCents, int thresholdCount, int window) {
+            return new CompiledRule(rule.getRuleName(), rule.getRuleType(), rule.getActionType(), thresholdCents,
+                    thresholdCount, window, rule.getTimeWindowMinutes() != null ? rule.getTimeWindowMinutes() : 0);
+        }
+    }
+
+    /**
+     * Result of scoring one transaction
+     *
+     * @param ruleSetVersion Version of the rule set used
+     * @param score Total score of the fired rules
+     * @param firedRules Rules that fired, in evaluation order
+     */
+    public record Evaluation(long ruleSetVersion, int score, CompiledRule[] firedRules) {}
+}
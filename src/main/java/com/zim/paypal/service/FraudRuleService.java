@@ -5,6 +5,7 @@ import com.zim.paypal.model.entity.FraudRule;
 import com.zim.paypal.repository.FraudRuleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +23,7 @@ import java.util.List;
 public class FraudRuleService {
 
     private final FraudRuleRepository fraudRuleRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public FraudRule createRule(FraudRuleDto ruleDto, com.zim.paypal.model.entity.User createdBy) {
         if (fraudRuleRepository.findByRuleCode(ruleDto.getRuleCode()).isPresent()) {
@@ -38,12 +40,15 @@ public class FraudRuleService {
                 .timeWindowMinutes(ruleDto.getTimeWindowMinutes())
                 .riskScoreThreshold(ruleDto.getRiskScoreThreshold())
                 .isActive(ruleDto.getIsActive())
+                .isShadow(Boolean.TRUE.equals(ruleDto.getIsShadow()))
                 .description(ruleDto.getDescription())
                 .ruleConditions(ruleDto.getRuleConditions())
                 .createdBy(createdBy)
                 .build();
 
-        return fraudRuleRepository.save(rule);
+        FraudRule savedRule = fraudRuleRepository.save(rule);
+        eventPublisher.publishEvent(new FraudRuleEngine.FraudRulesChangedEvent());
+        return savedRule;
     }
 
     public FraudRule updateRule(Long ruleId, FraudRuleDto ruleDto, com.zim.paypal.model.entity.User updatedBy) {
@@ -65,11 +70,14 @@ public class FraudRuleService {
         rule.setTimeWindowMinutes(ruleDto.getTimeWindowMinutes());
         rule.setRiskScoreThreshold(ruleDto.getRiskScoreThreshold());
         rule.setIsActive(ruleDto.getIsActive());
+        rule.setIsShadow(Boolean.TRUE.equals(ruleDto.getIsShadow()));
         rule.setDescription(ruleDto.getDescription());
         rule.setRuleConditions(ruleDto.getRuleConditions());
         rule.setUpdatedBy(updatedBy);
 
-        return fraudRuleRepository.save(rule);
+        FraudRule savedRule = fraudRuleRepository.save(rule);
+        eventPublisher.publishEvent(new FraudRuleEngine.FraudRulesChangedEvent());
+        return savedRule;
     }
 
     @Transactional(readOnly = true)
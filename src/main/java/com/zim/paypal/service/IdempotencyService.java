@@ -0,0 +1,281 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.IdempotencyKey;
+import com.zim.paypal.repository.IdempotencyKeyRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service for the Idempotency-Key store. Keys are claimed in the database, so
+ * duplicates are detected across nodes; completed responses are kept in an
+ * in-memory front cache, and duplicates arriving while the first request is
+ * still running wait for its outcome instead of executing again.
+ *
+ * A key in progress holds a lease its node renews while the request runs. A
+ * lapsed lease means the node stopped, possibly after money moved, so the key
+ * is reported for review and never claimed again or purged automatically;
+ * only completed keys expire.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.idempotency.in-progress-lease-minutes:5}")
+    private long inProgressLeaseMinutes;
+
+    private static final int FRONT_CACHE_SIZE = 10000;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final Map<String, CompletableFuture<IdempotencyKey>> inFlight = new ConcurrentHashMap<>();
+    // Keys claimed by requests running on this node, by ID, whose leases are renewed
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, IdempotencyKey> completed = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IdempotencyKey> eldest) {
+                    return size() > FRONT_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * Claim a key before executing a request
+     *
+     * @param scope Caller scope (username, or anonymous for public endpoints)
+     * @param key Client-supplied idempotency key
+     * @param requestPath Request path
+     * @param requestHash Hash of the request method, path, parameters and body
+     * @return Claim telling the caller whether to proceed, replay or reject
+     */
+    public Claim claim(String scope, String key, String requestPath, String requestHash) {
+        String cacheKey = scope + "\n" + key;
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            IdempotencyKey cached = getCompleted(cacheKey);
+            if (cached != null) {
+                return resolve(cached, requestHash);
+            }
+
+            CompletableFuture<IdempotencyKey> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotencyKey> first = inFlight.putIfAbsent(cacheKey, mine);
+            if (first != null) {
+                // Another request with this key is running on this node; wait for it
+                IdempotencyKey outcome;
+                try {
+                    outcome = await(first, deadline);
+                } catch (TimeoutException e) {
+                    return new Claim(Outcome.IN_PROGRESS, cacheKey, null, null);
+                }
+                if (outcome != null) {
+                    return resolve(outcome, requestHash);
+                }
+                continue; // first request could not be stored; try to claim the key
+            }
+
+            try {
+                IdempotencyKey record = idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                        .scope(scope)
+                        .idempotencyKey(key)
+                        .requestPath(requestPath)
+                        .requestHash(requestHash)
+                        .expiresAt(LocalDateTime.now().plusMinutes(inProgressLeaseMinutes))
+                        .build());
+                running.add(record.getId());
+                return new Claim(Outcome.PROCEED, cacheKey, record, mine);
+            } catch (DataIntegrityViolationException e) {
+                // Claimed elsewhere (another node, or an expired key not yet purged)
+                inFlight.remove(cacheKey, mine);
+                mine.complete(null);
+            }
+
+            IdempotencyKey stored = waitForStored(scope, key, deadline);
+            if (stored == null) {
+                continue;
+            }
+            if (stored.getStatus() == IdempotencyKey.KeyStatus.IN_PROGRESS) {
+                return new Claim(Outcome.IN_PROGRESS, cacheKey, null, null);
+            }
+            completed.put(cacheKey, stored);
+            return resolve(stored, requestHash);
+        }
+    }
+
+    /**
+     * Store the response of a claimed request and release waiting duplicates
+     *
+     * @param claim Claim returned by {@link #claim}
+     * @param status HTTP status
+     * @param contentType Response content type
+     * @param location Redirect location, if any
+     * @param body Response body
+     */
+    public void complete(Claim claim, int status, String contentType, String location, String body) {
+        IdempotencyKey record = claim.getRecord();
+        record.setStatus(IdempotencyKey.KeyStatus.COMPLETED);
+        record.setResponseStatus(status);
+        record.setResponseContentType(contentType);
+        record.setResponseLocation(location);
+        record.setResponseBody(body);
+        record.setCompletedAt(LocalDateTime.now());
+        record.setExpiresAt(record.getCompletedAt().plusHours(ttlHours));
+        try {
+            record = idempotencyKeyRepository.save(record);
+            completed.put(claim.getCacheKey(), record);
+        } finally {
+            running.remove(record.getId());
+            inFlight.remove(claim.getCacheKey(), claim.getFuture());
+            claim.getFuture().complete(record);
+        }
+    }
+
+    /**
+     * Renew the leases of keys claimed by requests still running on this node
+     */
+    @Scheduled(fixedDelay = 60000) // Run every minute
+    public void renewLeases() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            idempotencyKeyRepository.renewLeases(Set.copyOf(running),
+                    LocalDateTime.now().plusMinutes(inProgressLeaseMinutes));
+        } catch (Exception e) {
+            log.error("Error renewing idempotency key leases: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Purge expired completed keys (runs hourly)
+     */
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = idempotencyKeyRepository.deleteExpired(now);
+        synchronized (completed) {
+            completed.values().removeIf(record -> record.getExpiresAt().isBefore(now));
+        }
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private IdempotencyKey getCompleted(String cacheKey) {
+        IdempotencyKey record = completed.get(cacheKey);
+        if (record != null && record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            completed.remove(cacheKey);
+            return null;
+        }
+        return record;
+    }
+
+    private Claim resolve(IdempotencyKey record, String requestHash) {
+        Outcome outcome = record.getRequestHash().equals(requestHash) ? Outcome.REPLAY : Outcome.MISMATCH;
+        return new Claim(outcome, null, record, null);
+    }
+
+    /**
+     * Wait for a local in-flight request; null if its outcome could not be stored
+     */
+    private IdempotencyKey await(CompletableFuture<IdempotencyKey> future, long deadline) throws TimeoutException {
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for idempotent request");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Poll the store for a key claimed on another node; null if it is gone or
+     * completed and expired (it can be claimed again), IN_PROGRESS if still
+     * running at deadline or if its lease lapsed
+     */
+    private IdempotencyKey waitForStored(String scope, String key, long deadline) {
+        while (true) {
+            Optional<IdempotencyKey> stored = idempotencyKeyRepository.findByScopeAndIdempotencyKey(scope, key);
+            if (stored.isEmpty()) {
+                return null;
+            }
+            IdempotencyKey record = stored.get();
+            boolean expired = record.getExpiresAt().isBefore(LocalDateTime.now());
+            if (record.getStatus() == IdempotencyKey.KeyStatus.COMPLETED) {
+                if (expired) {
+                    idempotencyKeyRepository.deleteIfExpired(record.getId(), LocalDateTime.now());
+                    return null;
+                }
+                return record;
+            }
+            if (expired) {
+                log.warn("Idempotency key {} of {} is in progress but its lease lapsed; " +
+                        "it needs review before it can be reused", record.getId(), scope);
+                return record;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return record;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return record;
+            }
+        }
+    }
+
+    /**
+     * Result of claiming a key
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Claim {
+        private final Outcome outcome;
+        private final String cacheKey;
+        private final IdempotencyKey record;
+        private final CompletableFuture<IdempotencyKey> future;
+    }
+
+    /**
+     * What the caller should do with the request
+     */
+    public enum Outcome {
+        /** Key claimed: execute the request, then complete the claim */
+        PROCEED,
+        /** Same request already completed: replay the stored response */
+        REPLAY,
+        /** Key already used for a different request */
+        MISMATCH,
+        /** Same request still running elsewhere after the wait timeout */
+        IN_PROGRESS
+    }
+}
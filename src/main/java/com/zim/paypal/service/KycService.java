@@ -7,13 +7,19 @@ import com.zim.paypal.repository.KycVerificationRepository;
 import com.zim.paypal.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Service for KYC verification management
+ * Service for KYC verification management. Every status change is published
+ * so KycStatusCache evicts the user after commit.
  * 
  * @author Zim Development Team
  */
@@ -25,6 +31,7 @@ public class KycService {
 
     private final KycVerificationRepository kycVerificationRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public KycVerification createVerification(KycVerificationDto dto, User createdBy) {
         User user = userRepository.findById(dto.getUserId())
@@ -49,7 +56,9 @@ public class KycService {
                 .createdBy(createdBy)
                 .build();
 
-        return kycVerificationRepository.save(verification);
+        KycVerification saved = kycVerificationRepository.save(verification);
+        statusChanged(List.of(user.getId()));
+        return saved;
     }
 
     public KycVerification approveVerification(Long verificationId, User verifiedBy, String notes) {
@@ -61,7 +70,9 @@ public class KycService {
         verification.setVerifiedAt(java.time.LocalDateTime.now());
         verification.setVerificationNotes(notes);
 
-        return kycVerificationRepository.save(verification);
+        KycVerification saved = kycVerificationRepository.save(verification);
+        statusChanged(List.of(verification.getUser().getId()));
+        return saved;
     }
 
     public KycVerification rejectVerification(Long verificationId, User reviewedBy, String notes) {
@@ -73,7 +84,30 @@ public class KycService {
         verification.setVerifiedAt(java.time.LocalDateTime.now());
         verification.setVerificationNotes(notes);
 
-        return kycVerificationRepository.save(verification);
+        KycVerification saved = kycVerificationRepository.save(verification);
+        statusChanged(List.of(verification.getUser().getId()));
+        return saved;
+    }
+
+    /**
+     * Mark approved verifications past their expiry as expired (runs hourly)
+     */
+    @Scheduled(fixedDelay = 3600000) // Run every hour
+    public void expireVerifications() {
+        List<KycVerification> expired = kycVerificationRepository.findExpiredVerifications(java.time.LocalDateTime.now());
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        for (KycVerification verification : expired) {
+            verification.setVerificationStatus(KycVerification.VerificationStatus.EXPIRED);
+            userIds.add(verification.getUser().getId());
+        }
+        kycVerificationRepository.saveAll(expired);
+        statusChanged(userIds);
+
+        log.info("Marked {} KYC verifications of {} users as expired", expired.size(), userIds.size());
     }
 
     @Transactional(readOnly = true)
@@ -93,5 +127,8 @@ public class KycService {
         return kycVerificationRepository.findLatestByUser(user)
                 .orElse(null);
     }
-}
 
+    private void statusChanged(Collection<Long> userIds) {
+        eventPublisher.publishEvent(new KycStatusCache.KycStatusChangedEvent(userIds));
+    }
+}
@@ -0,0 +1,139 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.KycVerification;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest KYC status and expiry per user, kept in a bounded LRU map so deposit
+ * and transfer checks do not query kyc_verifications. An entry stops counting
+ * as verified at its expiry without a reload. Entries are evicted when
+ * KycService changes a user's verifications and reloaded after
+ * {@code app.kyc.cache.reload-seconds} to see changes made on other nodes.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+public class KycStatusCache {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.kyc.cache.max-users:100000}")
+    private int maxUsers;
+
+    @Value("${app.kyc.cache.reload-seconds:300}")
+    private long reloadSeconds;
+
+    private static final String LATEST_STATUS_SQL =
+            "SELECT verification_status, expires_at FROM kyc_verifications WHERE user_id = ? " +
+            "ORDER BY created_at DESC, id DESC LIMIT 1";
+
+    private Map<Long, Entry> entries;
+    // Bumped by every eviction, so a load that raced one is not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        entries = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /**
+     * Whether the user's latest verification is approved and not expired
+     *
+     * @param userId User ID
+     * @return true if KYC verified
+     */
+    public boolean isVerified(Long userId) {
+        return get(userId).isValid(LocalDateTime.now());
+    }
+
+    /**
+     * Latest KYC status of a user
+     *
+     * @param userId User ID
+     * @return Status and expiry; status is null if the user has no verification
+     */
+    public Entry get(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.loadedAt().isAfter(now.minusSeconds(reloadSeconds))) {
+            return entry;
+        }
+
+        long evictionsBefore = evictions.get();
+        List<Entry> latest = jdbcTemplate.query(LATEST_STATUS_SQL, (rs, rowNum) -> {
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            return new Entry(KycVerification.VerificationStatus.valueOf(rs.getString("verification_status")),
+                    expiresAt != null ? expiresAt.toLocalDateTime() : null, now);
+        }, userId);
+        entry = latest.isEmpty() ? new Entry(null, null, now) : latest.get(0);
+        if (evictions.get() == evictionsBefore) {
+            entries.put(userId, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Evict a user once the change to their verifications has committed
+     *
+     * @param event Change notification
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onKycStatusChanged(KycStatusChangedEvent event) {
+        evict(event.userIds());
+    }
+
+    /**
+     * Evict users
+     *
+     * @param userIds User IDs
+     */
+    public void evict(Collection<Long> userIds) {
+        evictions.incrementAndGet();
+        for (Long userId : userIds) {
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * Published by KycService when it changes users' verifications
+     *
+     * @param userIds Users whose latest status may have changed
+     */
+    public record KycStatusChangedEvent(Collection<Long> userIds) {}
+
+    /**
+     * Cached KYC status of one user
+     *
+     * @param status Latest verification status, or null if the user has none
+     * @param expiresAt When the verification expires, or null if it does not
+     * @param loadedAt When the entry was read from the database
+     */
+    public record Entry(KycVerification.VerificationStatus status, LocalDateTime expiresAt, LocalDateTime loadedAt) {
+
+        boolean isValid(LocalDateTime now) {
+            return status == KycVerification.VerificationStatus.APPROVED
+                    && (expiresAt == null || !now.isAfter(expiresAt));
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.LedgerEntry;
+import com.zim.paypal.model.entity.LedgerSnapshot;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.LedgerEntryRepository;
+import com.zim.paypal.repository.LedgerSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the double-entry ledger journal and balance snapshots.
+ * Posting methods must be called inside the transaction that changes the balance.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerSnapshotRepository ledgerSnapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Entries newer than this are left for the next snapshot run,
+     * so transactions still in flight cannot be skipped by the watermark
+     */
+    private static final long SNAPSHOT_SETTLE_SECONDS = 60;
+    private static final long SNAPSHOT_BATCH_SIZE = 50_000;
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO ledger_entries (transaction_id, account_id, ledger_account, entry_type, amount, " +
+            "currency_code, description, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Record a deposit: external funding into a wallet
+     *
+     * @param transaction Deposit transaction
+     * @param accountId Credited account ID
+     */
+    public void recordDeposit(Transaction transaction, Long accountId) {
+        List<LedgerEntry> legs = new ArrayList<>();
+        legs.add(leg(transaction, null, LedgerEntry.LedgerAccount.EXTERNAL_FUNDING,
+                LedgerEntry.EntryType.DEBIT, transaction.getAmount()));
+        legs.add(leg(transaction, accountId, LedgerEntry.LedgerAccount.WALLET,
+                LedgerEntry.EntryType.CREDIT, transaction.getAmount()));
+        post(legs);
+    }
+
+    /**
+     * Record a wallet-to-wallet transfer, with the fee going to fee revenue
+     *
+     * @param transaction Transfer transaction
+     * @param senderAccountId Debited account ID
+     * @param receiverAccountId Credited account ID
+     */
+    public void recordTransfer(Transaction transaction, Long senderAccountId, Long receiverAccountId) {
+        BigDecimal fee = feeOf(transaction);
+        List<LedgerEntry> legs = new ArrayList<>();
+        legs.add(leg(transaction, senderAccountId, LedgerEntry.LedgerAccount.WALLET,
+                LedgerEntry.EntryType.DEBIT, transaction.getAmount().add(fee)));
+        legs.add(leg(transaction, receiverAccountId, LedgerEntry.LedgerAccount.WALLET,
+                LedgerEntry.EntryType.CREDIT, transaction.getAmount()));
+        if (fee.signum() > 0) {
+            legs.add(leg(transaction, null, LedgerEntry.LedgerAccount.FEE_REVENUE,
+                    LedgerEntry.EntryType.CREDIT, fee));
+        }
+        post(legs);
+    }
+
+    /**
+     * Record many transfers out of one wallet, writing all legs in JDBC batches
+     *
+     * @param transactions Persisted transfer transactions
+     * @param senderAccountId Debited account ID
+     * @param receiverAccountIds Credited account ID per transaction ID
+     */
+    public void recordTransfers(List<Transaction> transactions, Long senderAccountId,
+                                Map<Long, Long> receiverAccountIds) {
+        List<LedgerEntry> legs = new ArrayList<>(transactions.size() * 3);
+        for (Transaction transaction : transactions) {
+            BigDecimal fee = feeOf(transaction);
+            List<LedgerEntry> posting = new ArrayList<>(3);
+            posting.add(leg(transaction, senderAccountId, LedgerEntry.LedgerAccount.WALLET,
+                    LedgerEntry.EntryType.DEBIT, transaction.getAmount().add(fee)));
+            posting.add(leg(transaction, receiverAccountIds.get(transaction.getId()), LedgerEntry.LedgerAccount.WALLET,
+                    LedgerEntry.EntryType.CREDIT, transaction.getAmount()));
+            if (fee.signum() > 0) {
+                posting.add(leg(transaction, null, LedgerEntry.LedgerAccount.FEE_REVENUE,
+                        LedgerEntry.EntryType.CREDIT, fee));
+            }
+            requireBalanced(posting);
+            legs.addAll(posting);
+        }
+
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, legs, JDBC_BATCH_SIZE, (ps, leg) -> {
+            ps.setObject(1, leg.getTransactionId(), Types.BIGINT);
+            ps.setObject(2, leg.getAccountId(), Types.BIGINT);
+            ps.setString(3, leg.getLedgerAccount().name());
+            ps.setString(4, leg.getEntryType().name());
+            ps.setBigDecimal(5, leg.getAmount());
+            ps.setString(6, leg.getCurrencyCode());
+            ps.setString(7, leg.getDescription());
+            ps.setTimestamp(8, createdAt);
+        });
+    }
+
+    /**
+     * Record a wallet payment to a merchant, with the fee going to fee revenue
+     *
+     * @param transaction Payment transaction
+     * @param accountId Debited account ID
+     */
+    public void recordPayment(Transaction transaction, Long accountId) {
+        BigDecimal fee = feeOf(transaction);
+        List<LedgerEntry> legs = new ArrayList<>();
+        legs.add(leg(transaction, accountId, LedgerEntry.LedgerAccount.WALLET,
+                LedgerEntry.EntryType.DEBIT, transaction.getAmount().add(fee)));
+        legs.add(leg(transaction, null, LedgerEntry.LedgerAccount.MERCHANT_SETTLEMENT,
+                LedgerEntry.EntryType.CREDIT, transaction.getAmount()));
+        if (fee.signum() > 0) {
+            legs.add(leg(transaction, null, LedgerEntry.LedgerAccount.FEE_REVENUE,
+                    LedgerEntry.EntryType.CREDIT, fee));
+        }
+        post(legs);
+    }
+
+    /**
+     * Record redeemed rewards paid out into a wallet
+     *
+     * @param accountId Credited account ID
+     * @param amount Cash value redeemed
+     * @param currencyCode Currency code
+     */
+    public void recordRewardsRedemption(Long accountId, BigDecimal amount, String currencyCode) {
+        List<LedgerEntry> legs = new ArrayList<>();
+        legs.add(LedgerEntry.builder()
+                .ledgerAccount(LedgerEntry.LedgerAccount.REWARDS)
+                .entryType(LedgerEntry.EntryType.DEBIT)
+                .amount(amount)
+                .currencyCode(currencyCode)
+                .description("Rewards redemption")
+                .build());
+        legs.add(LedgerEntry.builder()
+                .accountId(accountId)
+                .ledgerAccount(LedgerEntry.LedgerAccount.WALLET)
+                .entryType(LedgerEntry.EntryType.CREDIT)
+                .amount(amount)
+                .currencyCode(currencyCode)
+                .description("Rewards redemption")
+                .build());
+        post(legs);
+    }
+
+    /**
+     * Get wallet balance as of a point in time.
+     * Reads the nearest earlier snapshot and adds the entries recorded since.
+     *
+     * @param accountId Account ID
+     * @param at Exclusive point in time
+     * @return Balance of all entries created before the given time
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(Long accountId, LocalDateTime at) {
+        LedgerSnapshot snapshot = ledgerSnapshotRepository
+                .findFirstByAccountIdAndSnapshotAtLessThanOrderByLastEntryIdDesc(accountId, at)
+                .orElse(null);
+
+        BigDecimal base = snapshot != null ? snapshot.getBalance() : BigDecimal.ZERO;
+        long afterId = snapshot != null ? snapshot.getLastEntryId() : 0L;
+        return base.add(ledgerEntryRepository.sumSignedAmountAfter(accountId, afterId, at));
+    }
+
+    /**
+     * Get total credits and debits of a wallet within a time range
+     *
+     * @param accountId Account ID
+     * @param from Inclusive start time
+     * @param to Exclusive end time
+     * @return Map with totalCredits and totalDebits
+     */
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> getTotalsBetween(Long accountId, LocalDateTime from, LocalDateTime to) {
+        return Map.of(
+                "totalCredits", ledgerEntryRepository.sumAmountByTypeBetween(
+                        accountId, LedgerEntry.EntryType.CREDIT, from, to),
+                "totalDebits", ledgerEntryRepository.sumAmountByTypeBetween(
+                        accountId, LedgerEntry.EntryType.DEBIT, from, to));
+    }
+
+    /**
+     * Checkpoint wallet balances (scheduled job).
+     * Aggregates entries past the current watermark per account and writes one
+     * snapshot for every account that moved, so balance reads scan a bounded delta.
+     */
+    @Scheduled(fixedDelay = 300000) // Run every 5 minutes
+    public void createSnapshots() {
+        Long watermark = ledgerSnapshotRepository.findHighWatermark();
+        long afterId = watermark != null ? watermark : 0L;
+
+        Long settledId = ledgerEntryRepository.findMaxIdCreatedBefore(
+                LocalDateTime.now().minusSeconds(SNAPSHOT_SETTLE_SECONDS));
+        if (settledId == null || settledId <= afterId) {
+            return;
+        }
+        long uptoId = Math.min(settledId, afterId + SNAPSHOT_BATCH_SIZE);
+
+        List<LedgerEntryRepository.AccountDelta> deltas = ledgerEntryRepository.aggregateDeltas(afterId, uptoId);
+        if (deltas.isEmpty()) {
+            // Only system legs settled since the watermark; covered by the next run with wallet movement
+            return;
+        }
+
+        Map<Long, LedgerSnapshot> previous = ledgerSnapshotRepository
+                .findLatestByAccountIds(deltas.stream().map(LedgerEntryRepository.AccountDelta::getAccountId).toList())
+                .stream()
+                .collect(Collectors.toMap(LedgerSnapshot::getAccountId, Function.identity(), (a, b) -> a));
+
+        List<LedgerSnapshot> snapshots = new ArrayList<>(deltas.size());
+        for (LedgerEntryRepository.AccountDelta delta : deltas) {
+            LedgerSnapshot prior = previous.get(delta.getAccountId());
+            BigDecimal balance = prior != null ? prior.getBalance().add(delta.getDelta()) : delta.getDelta();
+            LocalDateTime snapshotAt = prior != null && prior.getSnapshotAt().isAfter(delta.getLastCreatedAt())
+                    ? prior.getSnapshotAt() : delta.getLastCreatedAt();
+
+            snapshots.add(LedgerSnapshot.builder()
+                    .accountId(delta.getAccountId())
+                    .balance(balance)
+                    .lastEntryId(uptoId)
+                    .snapshotAt(snapshotAt)
+                    .build());
+        }
+        ledgerSnapshotRepository.saveAll(snapshots);
+        log.info("Ledger snapshots created for {} accounts up to entry {}", snapshots.size(), uptoId);
+    }
+
+    /**
+     * Persist a balanced set of legs
+     */
+    private void post(List<LedgerEntry> legs) {
+        requireBalanced(legs);
+        ledgerEntryRepository.saveAll(legs);
+    }
+
+    private void requireBalanced(List<LedgerEntry> legs) {
+        BigDecimal debits = BigDecimal.ZERO;
+        BigDecimal credits = BigDecimal.ZERO;
+        for (LedgerEntry leg : legs) {
+            if (leg.getEntryType() == LedgerEntry.EntryType.DEBIT) {
+                debits = debits.add(leg.getAmount());
+            } else {
+                credits = credits.add(leg.getAmount());
+            }
+        }
+        if (debits.compareTo(credits) != 0) {
+            throw new IllegalStateException("Unbalanced ledger posting: debits " + debits + " credits " + credits);
+        }
+    }
+
+    private LedgerEntry leg(Transaction transaction, Long accountId, LedgerEntry.LedgerAccount ledgerAccount,
+                            LedgerEntry.EntryType entryType, BigDecimal amount) {
+        return LedgerEntry.builder()
+                .transactionId(transaction.getId())
+                .accountId(accountId)
+                .ledgerAccount(ledgerAccount)
+                .entryType(entryType)
+                .amount(amount)
+                .currencyCode(transaction.getCurrencyCode())
+                .description(transaction.getTransactionNumber())
+                .build();
+    }
+
+    private BigDecimal feeOf(Transaction transaction) {
+        return transaction.getFee() != null ? transaction.getFee() : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,153 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.AccountLimit;
+import com.zim.paypal.model.entity.User;
+import com.zim.paypal.repository.AccountLimitRepository;
+import com.zim.paypal.util.MoneyUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the active account limits of each user role into one
+ * {@link LimitPolicy} holding the tightest value of every limit.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LimitPolicyEngine extends SnapshotEngine<LimitPolicyEngine.LimitsChangedEvent> {
+
+    private final AccountLimitRepository limitRepository;
+
+    private volatile Map<User.UserRole, LimitPolicy> policies;
+
+    /**
+     * Resolve the active limits and swap in the new policies
+     */
+    @Override
+    protected void build() {
+        List<AccountLimit> limits = limitRepository.findByIsActiveTrue();
+        Map<User.UserRole, LimitPolicy> resolved = new EnumMap<>(User.UserRole.class);
+        for (User.UserRole role : User.UserRole.values()) {
+            resolved.put(role, LimitPolicy.resolve(limits.stream().filter(l -> l.getUserRole() == role).toList()));
+        }
+
+        if (policies != null && policies.equals(resolved)) {
+            return;
+        }
+        policies = Collections.unmodifiableMap(resolved);
+        log.info("Limit policies resolved from {} active limits", limits.size());
+    }
+
+    /**
+     * Current policy of a role
+     *
+     * @param role User role
+     * @return Immutable policy; unlimited if the role has no active limits
+     */
+    public LimitPolicy getPolicy(User.UserRole role) {
+        return policies.get(role);
+    }
+
+    /**
+     * Published by the account limit service when an admin edits the limits
+     */
+    public record LimitsChangedEvent() implements ChangeEvent {}
+
+    /**
+     * Tightest limits of one role. Amounts are in cents, and a limit that is
+     * not set is the largest value of its type.
+     *
+     * @param maxAccounts Most accounts per user (ACCOUNT_COUNT limits)
+     * @param maxTransactionCents Largest single transaction (TRANSACTION_AMOUNT limits)
+     * @param maxDailyCents Most sent per day (TRANSACTION_AMOUNT limits)
+     * @param maxWeeklyCents Most sent per week (TRANSACTION_AMOUNT limits)
+     * @param maxMonthlyCents Most sent per month (TRANSACTION_AMOUNT limits)
+     * @param maxDailyCount Most transactions per day (TRANSACTION_COUNT and COMBINED limits)
+     * @param maxWeeklyCount Most transactions per week (TRANSACTION_COUNT and COMBINED limits)
+     * @param maxMonthlyCount Most transactions per month (TRANSACTION_COUNT and COMBINED limits)
+     */
+    public record LimitPolicy(int maxAccounts, long maxTransactionCents, long maxDailyCents, long maxWeeklyCents,
+                              long maxMonthlyCents, int maxDailyCount, int maxWeeklyCount, int maxMonthlyCount) {
+
+        static LimitPolicy resolve(List<AccountLimit> limits) {
+            int maxAccounts = Integer.MAX_VALUE;
+            long maxTransactionCents = Long.MAX_VALUE;
+            long maxDailyCents = Long.MAX_VALUE;
+            long maxWeeklyCents = Long.MAX_VALUE;
+            long maxMonthlyCents = Long.MAX_VALUE;
+            int maxDailyCount = Integer.MAX_VALUE;
+            int maxWeeklyCount = Integer.MAX_VALUE;
+            int maxMonthlyCount = Integer.MAX_VALUE;
+            for (AccountLimit limit : limits) {
+                // Each field comes only from the limit types that set it
+                switch (limit.getLimitType()) {
+                    case ACCOUNT_COUNT -> maxAccounts = min(maxAccounts, limit.getMaxAccountsPerUser());
+                    case TRANSACTION_AMOUNT -> {
+                        maxTransactionCents = min(maxTransactionCents, limit.getMaxTransactionAmount());
+                        maxDailyCents = min(maxDailyCents, limit.getMaxDailyAmount());
+                        maxWeeklyCents = min(maxWeeklyCents, limit.getMaxWeeklyAmount());
+                        maxMonthlyCents = min(maxMonthlyCents, limit.getMaxMonthlyAmount());
+                    }
+                    case TRANSACTION_COUNT, COMBINED -> {
+                        maxDailyCount = min(maxDailyCount, limit.getMaxDailyCount());
+                        maxWeeklyCount = min(maxWeeklyCount, limit.getMaxWeeklyCount());
+                        maxMonthlyCount = min(maxMonthlyCount, limit.getMaxMonthlyCount());
+                    }
+                }
+            }
+            return new LimitPolicy(maxAccounts, maxTransactionCents, maxDailyCents, maxWeeklyCents, maxMonthlyCents,
+                    maxDailyCount, maxWeeklyCount, maxMonthlyCount);
+        }
+
+        /**
+         * Whether a user with this many accounts may open another
+         *
+         * @param accounts Accounts the user has
+         * @return true if allowed
+         */
+        public boolean allowsAnotherAccount(long accounts) {
+            return accounts < maxAccounts;
+        }
+
+        /**
+         * Whether a movement keeps the user within the limits
+         *
+         * @param largestAmount Largest single transaction of the movement
+         * @param spent What the user has sent in the current periods, without the movement
+         * @param amount Total amount of the movement
+         * @param count Number of transactions in the movement
+         * @return true if allowed
+         */
+        public boolean allows(BigDecimal largestAmount, SpendAggregateService.Totals spent,
+                              BigDecimal amount, int count) {
+            long amountCents = MoneyUtils.toCents(amount);
+            return MoneyUtils.toCents(largestAmount) <= maxTransactionCents
+                    && allows(spent.today(), amountCents, count, maxDailyCents, maxDailyCount)
+                    && allows(spent.thisWeek(), amountCents, count, maxWeeklyCents, maxWeeklyCount)
+                    && allows(spent.thisMonth(), amountCents, count, maxMonthlyCents, maxMonthlyCount);
+        }
+
+        private static boolean allows(SpendAggregateService.Spend spend, long amountCents, int count,
+                                      long maxCents, int maxCount) {
+            return MoneyUtils.toCents(spend.amount()) + amountCents <= maxCents
+                    && (long) spend.count() + count <= maxCount;
+        }
+
+        private static int min(int current, Integer limit) {
+            return limit != null ? Math.min(current, limit) : current;
+        }
+
+        private static long min(long current, BigDecimal limit) {
+            return limit != null ? Math.min(current, MoneyUtils.toCents(limit)) : current;
+        }
+    }
+}
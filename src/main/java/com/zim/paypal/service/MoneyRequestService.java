@@ -2,6 +2,7 @@ package com.zim.paypal.service;
 
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.MoneyRequestRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,7 +14,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Service for money request management operations
@@ -30,6 +30,7 @@ public class MoneyRequestService {
     private final UserService userService;
     private final TransactionService transactionService;
     private final NotificationService notificationService;
+    private final IdGenerator idGenerator;
     private static final int DEFAULT_EXPIRY_DAYS = 30;
 
     /**
@@ -251,11 +252,7 @@ public class MoneyRequestService {
      * @return Request number
      */
     private String generateRequestNumber() {
-        String requestNumber;
-        do {
-            requestNumber = "REQ" + UUID.randomUUID().toString().replace("-", "").substring(0, 15).toUpperCase();
-        } while (moneyRequestRepository.findByRequestNumber(requestNumber).isPresent());
-        return requestNumber;
+        return idGenerator.next(IdGenerator.IdType.MONEY_REQUEST);
     }
 }
 
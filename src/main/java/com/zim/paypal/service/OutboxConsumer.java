@@ -0,0 +1,27 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+
+/**
+ * Consumer of outbox events. Delivery is at-least-once: a consumer that already
+ * handled an event is skipped on retry, but a crash mid-event repeats it.
+ *
+ * @author Zim Development Team
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Stable consumer name, stored as the event checkpoint
+     */
+    String getName();
+
+    /**
+     * Whether the consumer handles the event type
+     */
+    boolean supports(OutboxEvent.EventType eventType);
+
+    /**
+     * Handle an event; throw to have it retried
+     */
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,138 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the outbox in batches and fans events out to consumers. Runs right
+ * after a commit that wrote events, and on a short poll for retries and events
+ * written on other nodes. Deliberately not transactional: each consumer runs
+ * in its own transaction.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxConsumer> consumers;
+
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long LEASE_SECONDS = 120;
+    private static final long BASE_RETRY_SECONDS = 10;
+    private static final long MAX_RETRY_SECONDS = 3600;
+    private static final int RETENTION_DAYS = 7;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    /**
+     * Drain as soon as the transaction that wrote events has committed
+     *
+     * @param event Outbox write notification
+     */
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOutboxEventsWritten(OutboxService.OutboxEventsWritten event) {
+        drain();
+    }
+
+    /**
+     * Drain all due events. Concurrent calls coalesce: if a drain is running it
+     * picks up the request, so a burst of commits causes one drain, not one each.
+     */
+    @Scheduled(fixedDelay = 5000) // Poll every 5 seconds for retries
+    public void drain() {
+        drainRequested.set(true);
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            try {
+                drainRequested.set(false);
+                while (dispatchBatch() == BATCH_SIZE) {
+                    // keep going while full batches come back
+                }
+            } catch (Exception e) {
+                log.error("Error draining outbox: {}", e.getMessage(), e);
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Claim and dispatch one batch of due events
+     *
+     * @return Number of due events found
+     */
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = outboxEventRepository.findDueIds(now, PageRequest.of(0, BATCH_SIZE));
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        outboxEventRepository.claim(dueIds, claimToken, now, now.plusSeconds(LEASE_SECONDS));
+        for (OutboxEvent event : outboxEventRepository.findByClaimTokenOrderByIdAsc(claimToken)) {
+            dispatch(event);
+        }
+        return dueIds.size();
+    }
+
+    private void dispatch(OutboxEvent event) {
+        Set<String> completed = event.getCompletedConsumerSet();
+        String error = null;
+
+        for (OutboxConsumer consumer : consumers) {
+            if (!consumer.supports(event.getEventType()) || completed.contains(consumer.getName())) {
+                continue;
+            }
+            try {
+                consumer.handle(event);
+                completed.add(consumer.getName());
+            } catch (Exception e) {
+                log.warn("Outbox consumer {} failed for event {}: {}", consumer.getName(), event.getId(), e.getMessage());
+                error = consumer.getName() + ": " + e.getMessage();
+            }
+        }
+
+        if (error == null) {
+            event.markAsProcessed(completed);
+        } else {
+            long delay = Math.min(MAX_RETRY_SECONDS, BASE_RETRY_SECONDS << Math.min(event.getAttempts(), 20));
+            event.recordFailure(completed, error, LocalDateTime.now().plusSeconds(delay), MAX_ATTEMPTS);
+            if (event.getStatus() == OutboxEvent.OutboxStatus.FAILED) {
+                log.error("Outbox event {} ({}) gave up after {} attempts: {}",
+                        event.getId(), event.getEventType(), event.getAttempts(), error);
+            }
+        }
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * Purge processed events past retention (runs daily)
+     */
+    @Scheduled(cron = "0 30 0 * * ?") // Run daily at 00:30
+    public void purgeProcessedEvents() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(RETENTION_DAYS));
+        if (deleted > 0) {
+            log.info("Purged {} processed outbox events", deleted);
+        }
+    }
+}
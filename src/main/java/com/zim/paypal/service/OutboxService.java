@@ -0,0 +1,111 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for writing outbox events. Must be called inside the transaction that
+ * moves the money, so events are committed (or rolled back) together with it.
+ * OutboxDispatcher delivers them after commit.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO outbox_events (event_type, aggregate_id, user_id, reference, status, attempts, " +
+            "next_attempt_at, created_at) VALUES (?, ?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    /**
+     * Record a completed transaction (notifications, webhooks, rewards)
+     *
+     * @param transaction Completed transaction
+     * @param userId User credited with the transaction (rewards, webhooks)
+     */
+    public void transactionCompleted(Transaction transaction, Long userId) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(OutboxEvent.EventType.TRANSACTION_COMPLETED)
+                .aggregateId(transaction.getId())
+                .userId(userId)
+                .reference(transaction.getTransactionNumber())
+                .build());
+        eventPublisher.publishEvent(new OutboxEventsWritten());
+    }
+
+    /**
+     * Record many completed transactions with one JDBC batch
+     *
+     * @param transactions Completed transactions
+     * @param userId User credited with the transactions
+     */
+    public void transactionsCompleted(List<Transaction> transactions, Long userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, transactions, JDBC_BATCH_SIZE, (ps, transaction) -> {
+            ps.setString(1, OutboxEvent.EventType.TRANSACTION_COMPLETED.name());
+            ps.setLong(2, transaction.getId());
+            ps.setLong(3, userId);
+            ps.setString(4, transaction.getTransactionNumber());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+        eventPublisher.publishEvent(new OutboxEventsWritten());
+    }
+
+    /**
+     * Record a committed bulk payout (batch risk scoring)
+     *
+     * @param batchReference Batch reference number
+     * @param senderId Paying user ID
+     */
+    public void batchTransferCompleted(String batchReference, Long senderId) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(OutboxEvent.EventType.BATCH_TRANSFER_COMPLETED)
+                .userId(senderId)
+                .reference(batchReference)
+                .build());
+        eventPublisher.publishEvent(new OutboxEventsWritten());
+    }
+
+    /**
+     * Record a transfer committed without fraud and AML scoring (deferred risk scoring)
+     *
+     * @param transaction Completed transfer
+     * @param senderId Sending user ID
+     */
+    public void transferRiskDeferred(Transaction transaction, Long senderId) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(OutboxEvent.EventType.TRANSFER_RISK_DEFERRED)
+                .aggregateId(transaction.getId())
+                .userId(senderId)
+                .reference(transaction.getTransactionNumber())
+                .build());
+        eventPublisher.publishEvent(new OutboxEventsWritten());
+    }
+
+    /**
+     * Published when outbox events are written; wakes the dispatcher after commit
+     */
+    public record OutboxEventsWritten() {}
+}
@@ -5,13 +5,13 @@ import com.zim.paypal.model.entity.Currency;
 import com.zim.paypal.model.entity.PaymentButton;
 import com.zim.paypal.model.entity.User;
 import com.zim.paypal.repository.PaymentButtonRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Service for payment button management
@@ -26,6 +26,7 @@ public class PaymentButtonService {
 
     private final PaymentButtonRepository buttonRepository;
     private final CurrencyService currencyService;
+    private final IdGenerator idGenerator;
 
     /**
      * Create a new payment button
@@ -154,11 +155,7 @@ public class PaymentButtonService {
      * @return Button code
      */
     private String generateUniqueButtonCode() {
-        String buttonCode;
-        do {
-            buttonCode = "BTN" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (buttonRepository.findByButtonCode(buttonCode).isPresent());
-        return buttonCode;
+        return idGenerator.next(IdGenerator.IdType.PAYMENT_BUTTON);
     }
 }
 
@@ -5,13 +5,12 @@ import com.zim.paypal.model.entity.Currency;
 import com.zim.paypal.model.entity.PaymentLink;
 import com.zim.paypal.model.entity.User;
 import com.zim.paypal.repository.PaymentLinkRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
-
 /**
  * Service for payment link management
  * 
@@ -25,6 +24,7 @@ public class PaymentLinkService {
 
     private final PaymentLinkRepository paymentLinkRepository;
     private final CurrencyService currencyService;
+    private final IdGenerator idGenerator;
 
     /**
      * Create a new payment link
@@ -168,11 +168,7 @@ public class PaymentLinkService {
      * @return Link code
      */
     private String generateUniqueLinkCode() {
-        String linkCode;
-        do {
-            linkCode = "PAY" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (paymentLinkRepository.findByLinkCode(linkCode).isPresent());
-        return linkCode;
+        return idGenerator.next(IdGenerator.IdType.PAYMENT_LINK);
     }
 
     // Inject required services
@@ -42,6 +42,7 @@ public class ReportService {
     private final TransactionRepository transactionRepository;
     private final UserService userService;
     private final AccountService accountService;
+    private final LedgerService ledgerService;
     private static final String REPORT_DIR = "reports";
 
     /**
@@ -221,7 +222,7 @@ public class ReportService {
         statement.put("accountBalance", account.getBalance());
         statement.put("currencyCode", account.getCurrencyCode());
         statement.put("openingBalance", calculateOpeningBalance(account, startDate));
-        statement.put("closingBalance", account.getBalance());
+        statement.put("closingBalance", calculateClosingBalance(account, endDate));
         statement.put("transactions", transactions);
         statement.put("period", Map.of("start", startDate != null ? startDate.toString() : "N/A",
                                       "end", endDate != null ? endDate.toString() : "N/A"));
@@ -257,19 +258,26 @@ public class ReportService {
         LocalDateTime start = startDate != null ? startDate.atStartOfDay() : LocalDateTime.now().minusYears(1);
         LocalDateTime end = endDate != null ? endDate.atTime(23, 59, 59) : LocalDateTime.now();
         
-        return transactionRepository.findByUserAndDateRange(user, start, end, 
-                org.springframework.data.domain.Pageable.unpaged()).getContent();
+        return transactionRepository.findByUserAndDateRange(user.getId(), start, end);
     }
 
     /**
      * Calculate opening balance
      */
     private BigDecimal calculateOpeningBalance(Account account, LocalDate startDate) {
-        if (startDate == null) {
+        // Same default window as getTransactionsInRange
+        LocalDateTime start = startDate != null ? startDate.atStartOfDay() : LocalDateTime.now().minusYears(1);
+        return ledgerService.getBalanceAt(account.getId(), start);
+    }
+
+    /**
+     * Calculate closing balance (balance at end of the last day)
+     */
+    private BigDecimal calculateClosingBalance(Account account, LocalDate endDate) {
+        if (endDate == null) {
             return account.getBalance();
         }
-        // Simplified - in production, calculate from transactions before start date
-        return account.getBalance();
+        return ledgerService.getBalanceAt(account.getId(), endDate.plusDays(1).atStartOfDay());
     }
 
     /**
@@ -5,19 +5,22 @@ import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.AccountRepository;
 import com.zim.paypal.repository.TransactionReversalRepository;
 import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
- * Service for transaction reversal management
+ * Service for transaction reversal management. Transfers held by deferred
+ * risk scoring get a full reversal request for admin review, with their
+ * amount held on the receiver's account until it is rejected or processed.
  * 
  * @author Zim Development Team
  */
@@ -25,7 +28,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
-public class ReversalService {
+public class ReversalService implements RiskHoldHandler {
 
     private final TransactionReversalRepository reversalRepository;
     private final TransactionRepository transactionRepository;
@@ -33,6 +36,10 @@ public class ReversalService {
     private final UserService userService;
     private final TransactionService transactionService;
     private final NotificationService notificationService;
+    private final IdGenerator idGenerator;
+
+    @Value("${app.risk.hold-actor:compliance}")
+    private String holdActor;
 
     /**
      * Request a transaction reversal
@@ -86,6 +93,43 @@ public class ReversalService {
         return savedReversal;
     }
 
+    /**
+     * Open a full reversal request for a transfer held by deferred risk
+     * scoring, requested by the compliance system user, and hold the amount
+     * on the receiver's account. An admin approves or rejects it.
+     * 
+     * @param transaction Held transfer
+     * @param reason Why the transfer is held
+     */
+    @Override
+    public void onHold(Transaction transaction, String reason) {
+        if (transaction.getSender() == null || reversalRepository.findByTransaction(transaction).isPresent()) {
+            return;
+        }
+
+        Account heldAccount = transaction.getReceiver() == null ? null
+                : accountRepository.findActiveAccountByUser(transaction.getReceiver()).orElse(null);
+        if (heldAccount != null) {
+            accountRepository.hold(heldAccount.getId(), transaction.getAmount());
+        }
+
+        TransactionReversal reversal = TransactionReversal.builder()
+                .reversalNumber(generateReversalNumber())
+                .transaction(transaction)
+                .requestedBy(userService.findByUsername(holdActor))
+                .heldAccount(heldAccount)
+                .reversalAmount(transaction.getAmount())
+                .reversalType(TransactionReversal.ReversalType.FULL)
+                .status(TransactionReversal.ReversalStatus.PENDING)
+                .reason("Held after risk scoring: " + reason)
+                .build();
+
+        reversalRepository.save(reversal);
+        log.warn("Transfer {} held for review, {} held on account {}, reversal request {} opened", 
+                transaction.getTransactionNumber(), transaction.getAmount(),
+                heldAccount == null ? null : heldAccount.getId(), reversal.getReversalNumber());
+    }
+
     /**
      * Approve a reversal request (admin/support)
      * 
@@ -131,6 +175,7 @@ public class ReversalService {
         }
 
         reversal.markAsRejected(admin, notes);
+        releaseHold(reversal);
         reversalRepository.save(reversal);
 
         // Send notification to user
@@ -160,6 +205,9 @@ public class ReversalService {
         Transaction originalTransaction = reversal.getTransaction();
         BigDecimal reversalAmount = reversal.getReversalAmount();
 
+        // Held funds are what the reversal sends back
+        releaseHold(reversal);
+
         // Create reversal transaction
         Transaction reversalTransaction;
         if (originalTransaction.getTransactionType() == Transaction.TransactionType.TRANSFER) {
@@ -283,6 +331,17 @@ public class ReversalService {
         return true;
     }
 
+    /**
+     * Release the funds held for a reversal, once
+     */
+    private void releaseHold(TransactionReversal reversal) {
+        if (reversal.getHeldAccount() == null) {
+            return;
+        }
+        accountRepository.release(reversal.getHeldAccount().getId(), reversal.getReversalAmount());
+        reversal.setHeldAccount(null);
+    }
+
     /**
      * Validate reversal amount
      */
@@ -314,11 +373,7 @@ public class ReversalService {
      * @return Reversal number
      */
     private String generateReversalNumber() {
-        String reversalNumber;
-        do {
-            reversalNumber = "REV" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (reversalRepository.findByReversalNumber(reversalNumber).isPresent());
-        return reversalNumber;
+        return idGenerator.next(IdGenerator.IdType.REVERSAL);
     }
 }
 
@@ -1,5 +1,6 @@
 package com.zim.paypal.service;
 
+import com.zim.paypal.model.entity.Account;
 import com.zim.paypal.model.entity.Rewards;
 import com.zim.paypal.model.entity.Transaction;
 import com.zim.paypal.model.entity.User;
@@ -24,6 +25,8 @@ public class RewardsService {
 
     private final RewardsRepository rewardsRepository;
     private final UserService userService;
+    private final AccountService accountService;
+    private final LedgerService ledgerService;
 
     /**
      * Initialize rewards for user
@@ -128,6 +131,21 @@ public class RewardsService {
         return cashValue;
     }
 
+    /**
+     * Redeem points and pay the cash value into the user's active account
+     * 
+     * @param userId User ID
+     * @param points Points to redeem
+     * @return Cash value redeemed
+     */
+    public BigDecimal redeemPointsToAccount(Long userId, Integer points) {
+        BigDecimal cashValue = redeemPoints(userId, points);
+        Account account = accountService.findActiveAccountByUser(userService.findById(userId));
+        accountService.deposit(account.getId(), cashValue);
+        ledgerService.recordRewardsRedemption(account.getId(), cashValue, account.getCurrencyCode());
+        return cashValue;
+    }
+
     /**
      * Get available cash back value
      * 
@@ -0,0 +1,56 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.User;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Everything the fraud, AML and limit checks need to know about the user
+ * behind one money movement, loaded once by {@link RiskContextLoader} and
+ * shared by the three checks. Send windows include the movement itself when
+ * the user is sending it; period spend does not.
+ *
+ * @author Zim Development Team
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class RiskContext {
+
+    private final User user;
+    private final BigDecimal amount;
+    private final LocalDateTime loadedAt;
+    /** Creation time of the user's oldest account, or null if they have none */
+    private final LocalDateTime accountCreatedAt;
+    private final boolean kycVerified;
+    private final FraudRuleEngine.RuleSet ruleSet;
+    @Getter(AccessLevel.NONE)
+    private final int[] velocityCounts;
+    private final VelocityStore.Window last24Hours;
+    private final VelocityStore.Window last7Days;
+    private final VelocityStore.Window last30Days;
+    /** What the user has sent this day, week and month, as recorded when the context was loaded */
+    private final SpendAggregateService.Totals spent;
+
+    /**
+     * Transactions sent in each velocity window of {@link #getRuleSet()}
+     *
+     * @return Counts by window index
+     */
+    public int[] getVelocityCounts() {
+        return velocityCounts.clone();
+    }
+
+    /**
+     * Age of the user's oldest account
+     *
+     * @return Whole days, or -1 if the user has no account
+     */
+    public long getAccountAgeDays() {
+        return accountCreatedAt != null ? ChronoUnit.DAYS.between(accountCreatedAt, loadedAt) : -1;
+    }
+}
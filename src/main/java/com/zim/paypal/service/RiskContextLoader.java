@@ -0,0 +1,125 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.model.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds the {@link RiskContext} of a money movement: account age in one
+ * query, KYC status from the {@link KycStatusCache}, period spend from the
+ * spend aggregates in one query, and every send window the checks look at in
+ * one pass over the velocity store. Load counts and times are kept for the
+ * admin dashboard.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RiskContextLoader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VelocityStore velocityStore;
+    private final FraudRuleEngine fraudRuleEngine;
+    private final KycStatusCache kycStatusCache;
+    private final SpendAggregateService spendAggregateService;
+
+    private static final String ACCOUNT_CREATED_SQL = "SELECT MIN(created_at) FROM accounts WHERE user_id = ?";
+
+    // Fixed windows, followed by the rule set's velocity windows
+    private static final int LAST_24_HOURS = 0;
+    private static final int LAST_7_DAYS = 1;
+    private static final int LAST_30_DAYS = 2;
+    private static final int FIXED_WINDOWS = 3;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Context for a movement the user is about to send
+     *
+     * @param sender Sending user
+     * @param amount Amount being sent
+     * @return Context whose send windows include the amount
+     */
+    public RiskContext forSend(User sender, BigDecimal amount) {
+        return load(sender, amount, new VelocityStore.Sent(null, sender.getId(), LocalDateTime.now(), amount));
+    }
+
+    /**
+     * Context for an existing transaction: its sender's, or for deposits
+     * the account owner's
+     *
+     * @param transaction Transaction
+     * @return Context, or null if no user is associated with the transaction
+     */
+    public RiskContext forTransaction(Transaction transaction) {
+        User sender = transaction.getSender();
+        if (sender != null) {
+            return load(sender, transaction.getAmount(), new VelocityStore.Sent(transaction.getId(), sender.getId(),
+                    transaction.getCreatedAt(), transaction.getAmount()));
+        }
+        User owner = transaction.getAccount() != null ? transaction.getAccount().getUser() : null;
+        return owner != null ? load(owner, transaction.getAmount(), null) : null;
+    }
+
+    private RiskContext load(User user, BigDecimal amount, VelocityStore.Sent pending) {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        Timestamp accountCreatedAt = jdbcTemplate.queryForObject(ACCOUNT_CREATED_SQL, Timestamp.class, user.getId());
+        boolean kycVerified = kycStatusCache.isVerified(user.getId());
+        SpendAggregateService.Totals spent = spendAggregateService.totals(user.getId(), now.toLocalDate());
+
+        FraudRuleEngine.RuleSet ruleSet = fraudRuleEngine.getRuleSet();
+        LocalDateTime[] starts = new LocalDateTime[FIXED_WINDOWS + ruleSet.getVelocityWindowCount()];
+        starts[LAST_24_HOURS] = now.minusHours(24);
+        starts[LAST_7_DAYS] = now.minusDays(7);
+        starts[LAST_30_DAYS] = now.minusDays(30);
+        for (int i = 0; i < ruleSet.getVelocityWindowCount(); i++) {
+            starts[FIXED_WINDOWS + i] = now.minusMinutes(ruleSet.getVelocityWindow(i));
+        }
+        VelocityStore.Window[] windows = velocityStore.windowsIncluding(user.getId(), pending, starts, now);
+        int[] velocityCounts = new int[ruleSet.getVelocityWindowCount()];
+        for (int i = 0; i < velocityCounts.length; i++) {
+            velocityCounts[i] = windows[FIXED_WINDOWS + i].count();
+        }
+
+        RiskContext context = new RiskContext(user, amount, now,
+                accountCreatedAt != null ? accountCreatedAt.toLocalDateTime() : null, kycVerified,
+                ruleSet, velocityCounts, windows[LAST_24_HOURS], windows[LAST_7_DAYS], windows[LAST_30_DAYS], spent);
+
+        long elapsed = System.nanoTime() - started;
+        loads.increment();
+        loadNanos.add(elapsed);
+        maxLoadNanos.accumulate(elapsed);
+        log.debug("Risk context for user {} loaded in {} µs", user.getId(), elapsed / 1000);
+        return context;
+    }
+
+    /**
+     * Load statistics since startup
+     *
+     * @return Load count, average and maximum load time in milliseconds
+     */
+    public Map<String, Object> getStatistics() {
+        long count = loads.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("riskContextLoads", count);
+        stats.put("riskContextAverageMillis", count > 0 ? loadNanos.sum() / count / 1_000_000.0 : 0.0);
+        stats.put("riskContextMaxMillis", maxLoadNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
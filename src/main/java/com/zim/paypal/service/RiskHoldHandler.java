@@ -0,0 +1,21 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Transaction;
+
+/**
+ * Hook for transfers that were committed before their fraud and AML scoring
+ * and then scored critical or failed AML, so they can be held or reversed
+ * after the fact. Called from the outbox, so at least once per transfer.
+ *
+ * @author Zim Development Team
+ */
+public interface RiskHoldHandler {
+
+    /**
+     * Hold a committed transfer
+     *
+     * @param transaction Committed transfer, with its parties loaded
+     * @param reason Why the transfer is held
+     */
+    void onHold(Transaction transaction, String reason);
+}
@@ -0,0 +1,285 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the limit, fraud and AML checks of a money movement concurrently
+ * against its {@link RiskContext}, within a shared latency budget. Checks
+ * only evaluate; the caller records their outcomes in its own transaction.
+ * When the limit check rejects the movement or the budget runs out, the
+ * checks still running are cancelled. A check that fails or does not finish
+ * in time passes if it is listed in {@code app.risk.fail-open} and blocks
+ * the movement otherwise. When {@code app.risk.deferred.max-amount} is set,
+ * small movements by users with a clean recent profile only get the limit
+ * check; their fraud and AML scoring is deferred until after commit.
+ * Deferral is off by default.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RiskOrchestrator {
+
+    private final AccountLimitService accountLimitService;
+    private final FraudDetectionService fraudDetectionService;
+    private final AmlService amlService;
+
+    @Value("${app.risk.timeout-ms:300}")
+    private long timeoutMs;
+
+    @Value("${app.risk.threads:32}")
+    private int threads;
+
+    @Value("${app.risk.fail-open:FRAUD}")
+    private Set<Check> failOpen;
+
+    @Value("${app.risk.deferred.max-amount:0}")
+    private BigDecimal deferredMaxAmount;
+
+    @Value("${app.risk.deferred.min-account-age-days:30}")
+    private long deferredMinAccountAgeDays;
+
+    @Value("${app.risk.deferred.max-daily-count:10}")
+    private int deferredMaxDailyCount;
+
+    private ExecutorService executor;
+    private final Map<Check, CheckStatistics> statistics = new EnumMap<>(Check.class);
+    private final LongAdder deferred = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "risk-check-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Check check : Check.values()) {
+            statistics.put(check, new CheckStatistics());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run the checks of a movement about to be sent
+     *
+     * @param context Risk context from {@link RiskContextLoader#forSend}
+     * @param transaction Transaction being sent, not yet saved
+     * @return Verdict
+     */
+    public Verdict evaluate(RiskContext context, Transaction transaction) {
+        if (canDefer(context)) {
+            long checkStarted = System.nanoTime();
+            boolean limitsPassed = accountLimitService.isTransactionAmountAllowed(context);
+            statistics.get(Check.LIMITS).record(System.nanoTime() - checkStarted, false, false);
+            deferred.increment();
+            return new Verdict(limitsPassed, true, null, null, EnumSet.noneOf(Check.class));
+        }
+
+        Map<Check, Callable<?>> tasks = new EnumMap<>(Check.class);
+        tasks.put(Check.LIMITS, () -> accountLimitService.isTransactionAmountAllowed(context));
+        tasks.put(Check.FRAUD, () -> fraudDetectionService.assess(transaction, context));
+        tasks.put(Check.AML, () -> amlService.assess(transaction, context));
+
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        CompletionService<Outcome> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Outcome>> futures = new ArrayList<>();
+        for (Map.Entry<Check, Callable<?>> task : tasks.entrySet()) {
+            Check check = task.getKey();
+            Callable<?> callable = task.getValue();
+            futures.add(completionService.submit(() -> {
+                long checkStarted = System.nanoTime();
+                try {
+                    return new Outcome(check, callable.call(), null, System.nanoTime() - checkStarted);
+                } catch (Exception e) {
+                    return new Outcome(check, null, e, System.nanoTime() - checkStarted);
+                }
+            }));
+        }
+
+        Map<Check, Object> results = new EnumMap<>(Check.class);
+        Map<Check, Long> timings = new EnumMap<>(Check.class);
+        Set<Check> failed = EnumSet.noneOf(Check.class);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                long remaining = deadline - System.nanoTime();
+                Future<Outcome> done = remaining > 0 ? completionService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    break;
+                }
+                Outcome outcome = done.get();
+                timings.put(outcome.check(), outcome.nanos());
+                if (outcome.error() != null) {
+                    log.warn("Risk check {} failed: {}", outcome.check(), outcome.error().getMessage());
+                    failed.add(outcome.check());
+                } else {
+                    results.put(outcome.check(), outcome.result());
+                    if (outcome.check() == Check.LIMITS && Boolean.FALSE.equals(outcome.result())) {
+                        break; // the movement is rejected whatever the other checks say
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Risk check task failed", e.getCause());
+        } finally {
+            for (Future<Outcome> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        // Checks cut short by a limit rejection did not time out
+        boolean limitsPassed = !Boolean.FALSE.equals(results.get(Check.LIMITS));
+        Set<Check> timedOut = EnumSet.noneOf(Check.class);
+        for (Check check : tasks.keySet()) {
+            if (limitsPassed && !results.containsKey(check) && !failed.contains(check)) {
+                timedOut.add(check);
+            }
+            statistics.get(check).record(timings.get(check), failed.contains(check), timedOut.contains(check));
+        }
+
+        Set<Check> blocking = EnumSet.noneOf(Check.class);
+        if (limitsPassed) {
+            blocking.addAll(failed);
+            blocking.addAll(timedOut);
+            blocking.removeAll(failOpen);
+        }
+        if (!timedOut.isEmpty() || !failed.isEmpty()) {
+            log.warn("Risk checks for user {}: timed out {}, failed {}, {}", context.getUser().getId(), timedOut,
+                    failed, blocking.isEmpty() ? "failing open" : "blocking");
+        }
+        log.debug("Risk checks for user {} took {} µs: {}", context.getUser().getId(),
+                (System.nanoTime() - started) / 1000, timings);
+
+        return new Verdict(limitsPassed, false, (FraudDetectionService.Assessment) results.get(Check.FRAUD),
+                (AmlService.Assessment) results.get(Check.AML), blocking);
+    }
+
+    /**
+     * Whether fraud and AML scoring of a movement can wait until after
+     * commit: a small amount from a KYC-verified user with an established
+     * account and few transfers in the last 24 hours
+     *
+     * @param context Risk context from {@link RiskContextLoader#forSend}
+     * @return true if only the limit check has to run before commit
+     */
+    public boolean canDefer(RiskContext context) {
+        return deferredMaxAmount.signum() > 0
+                && context.getAmount().compareTo(deferredMaxAmount) < 0
+                && context.isKycVerified()
+                && context.getAccountAgeDays() >= deferredMinAccountAgeDays
+                && context.getLast24Hours().count() <= deferredMaxDailyCount;
+    }
+
+    /**
+     * Per-check statistics since startup
+     *
+     * @return Run, failure and timeout counts, average and maximum time in milliseconds
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("riskChecksDeferred", deferred.sum());
+        for (Map.Entry<Check, CheckStatistics> entry : statistics.entrySet()) {
+            String prefix = "riskCheck" + entry.getKey().getLabel();
+            CheckStatistics check = entry.getValue();
+            long count = check.completed.sum();
+            stats.put(prefix + "Runs", count);
+            stats.put(prefix + "Failures", check.failures.sum());
+            stats.put(prefix + "Timeouts", check.timeouts.sum());
+            stats.put(prefix + "AverageMillis", count > 0 ? check.nanos.sum() / count / 1_000_000.0 : 0.0);
+            stats.put(prefix + "MaxMillis", check.maxNanos.get() / 1_000_000.0);
+        }
+        return stats;
+    }
+
+    /**
+     * Independent checks run for every transfer
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Check {
+        LIMITS("Limits"),
+        FRAUD("Fraud"),
+        AML("Aml");
+
+        private final String label;
+    }
+
+    /**
+     * Outcome of the checks of one movement
+     *
+     * @param limitsPassed Whether the amount is within the sender's limits, or the limit check did not answer
+     * @param deferred Whether fraud and AML scoring was deferred until after commit
+     * @param fraud Fraud assessment, or null if it did not complete
+     * @param aml AML assessment, or null if it did not complete
+     * @param blocking Checks that failed or timed out and fail closed
+     */
+    public record Verdict(boolean limitsPassed, boolean deferred, FraudDetectionService.Assessment fraud,
+                          AmlService.Assessment aml, Set<Check> blocking) {
+
+        /**
+         * @return true if a fail-closed check did not complete
+         */
+        public boolean isBlocked() {
+            return !blocking.isEmpty();
+        }
+    }
+
+    private record Outcome(Check check, Object result, Exception error, long nanos) {}
+
+    private static final class CheckStatistics {
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(Long elapsed, boolean failed, boolean timedOut) {
+            if (elapsed != null) {
+                completed.increment();
+                nanos.add(elapsed);
+                maxNanos.accumulate(elapsed);
+            }
+            if (failed) {
+                failures.increment();
+            }
+            if (timedOut) {
+                timeouts.increment();
+            }
+        }
+    }
+}
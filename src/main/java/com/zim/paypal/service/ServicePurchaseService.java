@@ -5,6 +5,7 @@ import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.AccountRepository;
 import com.zim.paypal.repository.ServiceProviderRepository;
 import com.zim.paypal.repository.ServicePurchaseRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,6 +35,7 @@ public class ServicePurchaseService {
     private final UserService userService;
     private final TransactionService transactionService;
     private final NotificationService notificationService;
+    private final IdGenerator idGenerator;
 
     /**
      * Purchase service (airtime, data, or ZESA token)
@@ -292,11 +294,7 @@ public class ServicePurchaseService {
      * @return Reference number
      */
     private String generateReferenceNumber() {
-        String referenceNumber;
-        do {
-            referenceNumber = "SRV" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (purchaseRepository.findByReferenceNumber(referenceNumber).isPresent());
-        return referenceNumber;
+        return idGenerator.next(IdGenerator.IdType.SERVICE_PURCHASE);
     }
 }
 
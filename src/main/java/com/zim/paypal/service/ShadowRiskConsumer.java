@@ -0,0 +1,122 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.util.MoneyUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbox consumer scoring completed transactions against the shadow fraud
+ * rule set. Nothing is written and no rule action runs; the rules that would
+ * have fired are logged and counted per rule for the admin dashboard. The
+ * counts restart whenever the shadow rule set changes.
+ *
+ * @author Zim Development Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShadowRiskConsumer implements OutboxConsumer {
+
+    private final TransactionRepository transactionRepository;
+    private final FraudRuleEngine fraudRuleEngine;
+    private final VelocityStore velocityStore;
+
+    private volatile long statisticsVersion;
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder flagged = new LongAdder();
+    private final Map<String, LongAdder> firedByRule = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return "shadow-risk";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.TRANSACTION_COMPLETED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        FraudRuleEngine.RuleSet shadow = fraudRuleEngine.getShadowRuleSet();
+        if (shadow.isEmpty()) {
+            return;
+        }
+        Transaction transaction = transactionRepository.findByIdWithParties(event.getAggregateId())
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + event.getAggregateId()));
+        if (transaction.getSender() == null) {
+            return;
+        }
+
+        // Windows end now, as live scoring's do; the committed transaction is already in them
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime[] starts = new LocalDateTime[shadow.getVelocityWindowCount()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = now.minusMinutes(shadow.getVelocityWindow(i));
+        }
+        VelocityStore.Window[] windows = velocityStore.windowsIncluding(
+                transaction.getSender().getId(), null, starts, now);
+        int[] windowCounts = new int[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            windowCounts[i] = windows[i].count();
+        }
+
+        FraudRuleEngine.Evaluation evaluation = shadow.evaluate(
+                MoneyUtils.toCents(transaction.getAmount()), windowCounts);
+        record(evaluation);
+        if (evaluation.firedRules().length > 0) {
+            log.info("Shadow rule set version {} would add {} to the risk score of {}: {}", evaluation.ruleSetVersion(),
+                    evaluation.score(), transaction.getTransactionNumber(), ruleNames(evaluation));
+        }
+    }
+
+    private synchronized void record(FraudRuleEngine.Evaluation evaluation) {
+        if (evaluation.ruleSetVersion() != statisticsVersion) {
+            statisticsVersion = evaluation.ruleSetVersion();
+            evaluated.reset();
+            flagged.reset();
+            firedByRule.clear();
+        }
+        evaluated.increment();
+        if (evaluation.firedRules().length > 0) {
+            flagged.increment();
+        }
+        for (FraudRuleEngine.CompiledRule rule : evaluation.firedRules()) {
+            firedByRule.computeIfAbsent(rule.ruleName(), name -> new LongAdder()).increment();
+        }
+    }
+
+    private static String ruleNames(FraudRuleEngine.Evaluation evaluation) {
+        StringBuilder names = new StringBuilder();
+        for (FraudRuleEngine.CompiledRule rule : evaluation.firedRules()) {
+            names.append(names.length() > 0 ? ", " : "").append(rule.ruleName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Shadow scoring statistics for the current shadow rule set
+     *
+     * @return Rule set version, transactions scored and flagged, and fires per rule
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Long> fired = new HashMap<>();
+        firedByRule.forEach((rule, count) -> fired.put(rule, count.sum()));
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("shadowRuleSetVersion", statisticsVersion);
+        stats.put("shadowTransactionsScored", evaluated.sum());
+        stats.put("shadowTransactionsFlagged", flagged.sum());
+        stats.put("shadowRuleFires", fired);
+        return stats;
+    }
+}
@@ -0,0 +1,73 @@
+package com.zim.paypal.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Base for engines that answer from an immutable snapshot of admin-managed
+ * tables instead of querying them per call. The snapshot is built at
+ * startup, rebuilt and swapped in one step once a transaction publishing the
+ * engine's change event has committed, and refreshed every minute to pick up
+ * edits made on other nodes. A failed refresh keeps the current snapshot.
+ *
+ * @param <E> Change event that triggers a rebuild
+ * @author Zim Development Team
+ */
+@Slf4j
+public abstract class SnapshotEngine<E extends SnapshotEngine.ChangeEvent> {
+
+    private final Class<?> changeEventType =
+            ResolvableType.forClass(getClass()).as(SnapshotEngine.class).resolveGeneric(0);
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild once a change published by an admin service has committed
+     *
+     * @param event Change notification
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (changeEventType.isInstance(event)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Refresh the snapshot (runs every minute)
+     */
+    @Scheduled(fixedDelay = 60000) // Run every minute
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error refreshing {}, keeping the current snapshot: {}",
+                    getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Load the source tables and swap in a new snapshot
+     */
+    public synchronized void rebuild() {
+        build();
+    }
+
+    /**
+     * Build the snapshot from the source tables and publish it; called with
+     * the engine's lock held
+     */
+    protected abstract void build();
+
+    /**
+     * Marker for events that make an engine rebuild its snapshot
+     */
+    public interface ChangeEvent {}
+}
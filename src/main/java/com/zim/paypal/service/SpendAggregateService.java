@@ -0,0 +1,200 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.AccountLimit;
+import com.zim.paypal.model.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the user_spend_aggregates table: what each user has sent per
+ * calendar day, week (from Monday) and month, as an amount and a count.
+ * Rows are incremented with one atomic upsert per period in the transaction
+ * that creates the spending transactions, so the account limit checks read
+ * one row per period instead of summing the user's transactions, and see
+ * every node's commits.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendAggregateService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final int RETENTION_DAYS = 62;
+    private static final AccountLimit.PeriodType[] PERIODS = {
+            AccountLimit.PeriodType.DAILY, AccountLimit.PeriodType.WEEKLY, AccountLimit.PeriodType.MONTHLY};
+
+    private static final String UPSERT_POSTGRESQL_SQL =
+            "INSERT INTO user_spend_aggregates (user_id, period_type, period_start, amount_sum, tx_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (user_id, period_type, period_start) DO UPDATE SET " +
+            "amount_sum = user_spend_aggregates.amount_sum + EXCLUDED.amount_sum, " +
+            "tx_count = user_spend_aggregates.tx_count + EXCLUDED.tx_count, updated_at = EXCLUDED.updated_at";
+
+    // H2 has no ON CONFLICT ... DO UPDATE; standard MERGE does the same there
+    private static final String UPSERT_MERGE_SQL =
+            "MERGE INTO user_spend_aggregates a USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(20)), " +
+            "CAST(? AS DATE), CAST(? AS DECIMAL(19, 2)), CAST(? AS INTEGER), CAST(? AS TIMESTAMP))) " +
+            "AS s (user_id, period_type, period_start, amount_sum, tx_count, updated_at) " +
+            "ON a.user_id = s.user_id AND a.period_type = s.period_type AND a.period_start = s.period_start " +
+            "WHEN MATCHED THEN UPDATE SET amount_sum = a.amount_sum + s.amount_sum, " +
+            "tx_count = a.tx_count + s.tx_count, updated_at = s.updated_at " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, period_type, period_start, amount_sum, tx_count, updated_at) " +
+            "VALUES (s.user_id, s.period_type, s.period_start, s.amount_sum, s.tx_count, s.updated_at)";
+
+    private static final String TOTALS_SQL =
+            "SELECT period_type, amount_sum, tx_count FROM user_spend_aggregates WHERE user_id = ? AND (" +
+            "(period_type = 'DAILY' AND period_start = ?) OR (period_type = 'WEEKLY' AND period_start = ?) " +
+            "OR (period_type = 'MONTHLY' AND period_start = ?))";
+
+    private volatile String upsertSql;
+
+    /**
+     * Add newly created transactions to their senders' current periods.
+     * Transactions without a sender spend nothing.
+     *
+     * @param transactions Saved transactions
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Transaction> transactions) {
+        // Sorted, so concurrent writers lock rows in the same order
+        Map<Key, Spend> increments = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getSender() == null) {
+                continue;
+            }
+            LocalDate date = transaction.getCreatedAt() != null
+                    ? transaction.getCreatedAt().toLocalDate() : LocalDate.now();
+            for (AccountLimit.PeriodType period : PERIODS) {
+                increments.merge(new Key(transaction.getSender().getId(), period.name(), periodStart(period, date)),
+                        new Spend(transaction.getAmount(), 1), Spend::add);
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Key, Spend>> rows = new ArrayList<>(increments.entrySet());
+        jdbcTemplate.batchUpdate(getUpsertSql(), rows, JDBC_BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.getKey().userId());
+            ps.setString(2, row.getKey().periodType());
+            ps.setDate(3, Date.valueOf(row.getKey().periodStart()));
+            ps.setBigDecimal(4, row.getValue().amount());
+            ps.setInt(5, row.getValue().count());
+            ps.setTimestamp(6, now);
+        });
+    }
+
+    /**
+     * What a user has sent in the day, week and month containing a date
+     *
+     * @param userId User ID
+     * @param date Date
+     * @return Totals; periods without spending are zero
+     */
+    public Totals totals(Long userId, LocalDate date) {
+        Spend[] spent = {Spend.NONE, Spend.NONE, Spend.NONE};
+        jdbcTemplate.query(TOTALS_SQL, rs -> {
+            AccountLimit.PeriodType period = AccountLimit.PeriodType.valueOf(rs.getString("period_type"));
+            spent[period.ordinal()] = new Spend(rs.getBigDecimal("amount_sum"), rs.getInt("tx_count"));
+        }, userId, Date.valueOf(date), Date.valueOf(periodStart(AccountLimit.PeriodType.WEEKLY, date)),
+                Date.valueOf(periodStart(AccountLimit.PeriodType.MONTHLY, date)));
+        return new Totals(spent[0], spent[1], spent[2]);
+    }
+
+    /**
+     * Purge aggregates of periods no check reads any more (runs daily)
+     */
+    @Scheduled(cron = "0 5 0 * * ?") // Run daily at 00:05
+    public void purgePastPeriods() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM user_spend_aggregates WHERE period_start < ?",
+                    Date.valueOf(LocalDate.now().minusDays(RETENTION_DAYS)));
+            if (deleted > 0) {
+                log.info("Purged {} past spend aggregates", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error purging spend aggregates: {}", e.getMessage(), e);
+        }
+    }
+
+    private static LocalDate periodStart(AccountLimit.PeriodType period, LocalDate date) {
+        return switch (period) {
+            case DAILY -> date;
+            case WEEKLY -> date.minusDays(date.getDayOfWeek().getValue() - 1);
+            case MONTHLY -> date.withDayOfMonth(1);
+            case LIFETIME -> throw new IllegalArgumentException("Lifetime spend is not aggregated");
+        };
+    }
+
+    private String getUpsertSql() {
+        if (upsertSql == null) {
+            boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+            upsertSql = postgres ? UPSERT_POSTGRESQL_SQL : UPSERT_MERGE_SQL;
+        }
+        return upsertSql;
+    }
+
+    /**
+     * What a user has sent in the current periods
+     *
+     * @param today Since the start of the day
+     * @param thisWeek Since Monday
+     * @param thisMonth Since the first of the month
+     */
+    public record Totals(Spend today, Spend thisWeek, Spend thisMonth) {}
+
+    /**
+     * Amount and number of transactions sent in one period
+     */
+    public record Spend(BigDecimal amount, int count) {
+
+        static final Spend NONE = new Spend(BigDecimal.ZERO, 0);
+
+        /**
+         * @param amount Amount to add
+         * @param count Transactions to add
+         * @return This spend plus the given amount and count
+         */
+        public Spend plus(BigDecimal amount, int count) {
+            return new Spend(this.amount.add(amount), this.count + count);
+        }
+
+        private static Spend add(Spend a, Spend b) {
+            return a.plus(b.amount, b.count);
+        }
+    }
+
+    private record Key(long userId, String periodType, LocalDate periodStart) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int byUser = Long.compare(userId, other.userId);
+            if (byUser != 0) {
+                return byUser;
+            }
+            int byPeriod = periodType.compareTo(other.periodType);
+            return byPeriod != 0 ? byPeriod : periodStart.compareTo(other.periodStart);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.zim.paypal.service;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.StatementRepository;
 import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,7 +13,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * Service for statement generation and management
@@ -29,6 +30,9 @@ public class StatementService {
     private final TransactionRepository transactionRepository;
     private final AccountService accountService;
     private final UserService userService;
+    private final LedgerService ledgerService;
+    private final ArchiveService archiveService;
+    private final IdGenerator idGenerator;
 
     /**
      * Generate monthly statement
@@ -51,27 +55,17 @@ public class StatementService {
                     throw new IllegalArgumentException("Statement already exists for this period");
                 });
         
-        // Get transactions for the period
+        // Count the user's transactions for the period
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        List<Transaction> transactions = transactionRepository.findByAccountAndDateRange(
-                account, startDateTime, endDateTime);
+        long transactionCount = countTransactions(user.getId(), startDateTime, endDateTime);
         
-        // Calculate opening balance (balance at start of period)
-        BigDecimal openingBalance = account.getBalance();
-        BigDecimal totalCredits = BigDecimal.ZERO;
-        BigDecimal totalDebits = BigDecimal.ZERO;
-        
-        // Calculate totals from transactions
-        for (Transaction transaction : transactions) {
-            if (transaction.getTransactionType() == Transaction.TransactionType.DEPOSIT ||
-                transaction.getTransactionType() == Transaction.TransactionType.TRANSFER && 
-                transaction.getReceiver() != null && transaction.getReceiver().getId().equals(userId)) {
-                totalCredits = totalCredits.add(transaction.getAmount());
-            } else {
-                totalDebits = totalDebits.add(transaction.getAmount());
-            }
-        }
+        // Opening balance and totals come from the ledger journal
+        LocalDateTime endExclusive = endDate.plusDays(1).atStartOfDay();
+        BigDecimal openingBalance = ledgerService.getBalanceAt(account.getId(), startDateTime);
+        Map<String, BigDecimal> totals = ledgerService.getTotalsBetween(account.getId(), startDateTime, endExclusive);
+        BigDecimal totalCredits = totals.get("totalCredits");
+        BigDecimal totalDebits = totals.get("totalDebits");
         
         // Calculate closing balance
         BigDecimal closingBalance = openingBalance.add(totalCredits).subtract(totalDebits);
@@ -86,7 +80,7 @@ public class StatementService {
                 .closingBalance(closingBalance)
                 .totalCredits(totalCredits)
                 .totalDebits(totalDebits)
-                .transactionCount(transactions.size())
+                .transactionCount((int) transactionCount)
                 .currencyCode(account.getCurrencyCode())
                 .statementType(Statement.StatementType.MONTHLY)
                 .generated(true)
@@ -109,26 +103,17 @@ public class StatementService {
         User user = userService.findById(userId);
         Account account = accountService.findActiveAccountByUser(user);
         
-        // Get transactions for the period
+        // Count the user's transactions for the period
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        List<Transaction> transactions = transactionRepository.findByAccountAndDateRange(
-                account, startDateTime, endDateTime);
-        
-        // Calculate balances and totals
-        BigDecimal openingBalance = account.getBalance();
-        BigDecimal totalCredits = BigDecimal.ZERO;
-        BigDecimal totalDebits = BigDecimal.ZERO;
+        long transactionCount = countTransactions(user.getId(), startDateTime, endDateTime);
         
-        for (Transaction transaction : transactions) {
-            if (transaction.getTransactionType() == Transaction.TransactionType.DEPOSIT ||
-                transaction.getTransactionType() == Transaction.TransactionType.TRANSFER && 
-                transaction.getReceiver() != null && transaction.getReceiver().getId().equals(userId)) {
-                totalCredits = totalCredits.add(transaction.getAmount());
-            } else {
-                totalDebits = totalDebits.add(transaction.getAmount());
-            }
-        }
+        // Calculate balances and totals from the ledger journal
+        LocalDateTime endExclusive = endDate.plusDays(1).atStartOfDay();
+        BigDecimal openingBalance = ledgerService.getBalanceAt(account.getId(), startDateTime);
+        Map<String, BigDecimal> totals = ledgerService.getTotalsBetween(account.getId(), startDateTime, endExclusive);
+        BigDecimal totalCredits = totals.get("totalCredits");
+        BigDecimal totalDebits = totals.get("totalDebits");
         
         BigDecimal closingBalance = openingBalance.add(totalCredits).subtract(totalDebits);
         
@@ -142,7 +127,7 @@ public class StatementService {
                 .closingBalance(closingBalance)
                 .totalCredits(totalCredits)
                 .totalDebits(totalDebits)
-                .transactionCount(transactions.size())
+                .transactionCount((int) transactionCount)
                 .currencyCode(account.getCurrencyCode())
                 .statementType(Statement.StatementType.CUSTOM)
                 .generated(true)
@@ -177,17 +162,26 @@ public class StatementService {
         return statementRepository.findByUserOrderByEndDateDesc(user);
     }
 
+    /**
+     * Count a user's transactions in a period, live and archived
+     *
+     * @param userId User ID
+     * @param startDateTime Start (inclusive)
+     * @param endDateTime End (inclusive)
+     * @return Transaction count
+     */
+    private long countTransactions(Long userId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return transactionRepository.countByUserAndDateRange(userId, startDateTime, endDateTime)
+                + archiveService.countUserTransactions(userId, startDateTime, endDateTime);
+    }
+
     /**
      * Generate unique statement number
      * 
      * @return Statement number
      */
     private String generateStatementNumber() {
-        String statementNumber;
-        do {
-            statementNumber = "STMT" + UUID.randomUUID().toString().replace("-", "").substring(0, 15).toUpperCase();
-        } while (statementRepository.findByStatementNumber(statementNumber).isPresent());
-        return statementNumber;
+        return idGenerator.next(IdGenerator.IdType.STATEMENT);
     }
 }
 
@@ -4,6 +4,7 @@ import com.zim.paypal.model.dto.SubscriptionDto;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.RecurringPaymentRepository;
 import com.zim.paypal.repository.SubscriptionPlanRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -12,7 +13,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Service for subscription and recurring payment management
@@ -31,6 +31,7 @@ public class SubscriptionService {
     private final AccountService accountService;
     private final TransactionService transactionService;
     private final EmailService emailService;
+    private final IdGenerator idGenerator;
 
     /**
      * Create a new subscription
@@ -268,11 +269,7 @@ public class SubscriptionService {
      * Generate unique subscription ID
      */
     private String generateSubscriptionId() {
-        String subscriptionId;
-        do {
-            subscriptionId = "SUB" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (recurringPaymentRepository.findBySubscriptionId(subscriptionId).isPresent());
-        return subscriptionId;
+        return idGenerator.next(IdGenerator.IdType.SUBSCRIPTION);
     }
 }
 
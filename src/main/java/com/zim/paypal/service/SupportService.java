@@ -5,6 +5,7 @@ import com.zim.paypal.model.dto.TicketMessageDto;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.SupportTicketRepository;
 import com.zim.paypal.repository.TicketMessageRepository;
+import com.zim.paypal.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Service for support ticket management
@@ -30,6 +30,7 @@ public class SupportService {
     private final TicketMessageRepository ticketMessageRepository;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final IdGenerator idGenerator;
 
     /**
      * Create a new support ticket
@@ -268,11 +269,7 @@ public class SupportService {
      * @return Ticket number
      */
     private String generateTicketNumber() {
-        String ticketNumber;
-        do {
-            ticketNumber = "TKT" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-        } while (supportTicketRepository.findByTicketNumber(ticketNumber).isPresent());
-        return ticketNumber;
+        return idGenerator.next(IdGenerator.IdType.SUPPORT_TICKET);
     }
 }
 
@@ -6,7 +6,9 @@ import com.zim.paypal.model.entity.Transaction;
 import com.zim.paypal.repository.TaxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -25,6 +27,8 @@ import java.util.List;
 public class TaxService {
 
     private final TaxRepository taxRepository;
+    private final FeeScheduleEngine feeScheduleEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new tax
@@ -54,6 +58,7 @@ public class TaxService {
                 .build();
 
         Tax savedTax = taxRepository.save(tax);
+        eventPublisher.publishEvent(new FeeScheduleEngine.FeeScheduleChangedEvent());
         log.info("Tax created: {} by user: {}", taxDto.getTaxCode(), createdBy.getUsername());
         return savedTax;
     }
@@ -90,6 +95,7 @@ public class TaxService {
         tax.setUpdatedBy(updatedBy);
 
         Tax savedTax = taxRepository.save(tax);
+        eventPublisher.publishEvent(new FeeScheduleEngine.FeeScheduleChangedEvent());
         log.info("Tax updated: {} by user: {}", taxDto.getTaxCode(), updatedBy.getUsername());
         return savedTax;
     }
@@ -138,25 +144,15 @@ public class TaxService {
     }
 
     /**
-     * Calculate total taxes for a transaction
+     * Calculate total taxes for a transaction from the compiled fee schedule
      * 
      * @param transactionType Transaction type
      * @param transactionAmount Transaction amount
      * @return Total tax amount
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal calculateTotalTaxes(Transaction.TransactionType transactionType, BigDecimal transactionAmount) {
-        List<Tax> taxes = getEffectiveTaxesForTransaction(transactionType);
-        BigDecimal totalTaxes = BigDecimal.ZERO;
-
-        for (Tax tax : taxes) {
-            if (tax.isEffective()) {
-                BigDecimal taxAmount = tax.calculateTax(transactionAmount);
-                totalTaxes = totalTaxes.add(taxAmount);
-            }
-        }
-
-        return totalTaxes;
+        return feeScheduleEngine.quote(transactionType, transactionAmount).getTaxes();
     }
 
     /**
@@ -170,6 +166,7 @@ public class TaxService {
         tax.setIsActive(false);
         tax.setUpdatedBy(updatedBy);
         taxRepository.save(tax);
+        eventPublisher.publishEvent(new FeeScheduleEngine.FeeScheduleChangedEvent());
         log.info("Tax deactivated: {} by user: {}", tax.getTaxCode(), updatedBy.getUsername());
     }
 }
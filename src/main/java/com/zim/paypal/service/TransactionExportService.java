@@ -0,0 +1,208 @@
+package com.zim.paypal.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zim.paypal.model.dto.TransactionExportRow;
+import com.zim.paypal.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service writing a user's transaction history as CSV or JSON straight to an
+ * output stream. Rows come from a read-only database cursor and are written
+ * one at a time through a fixed-size buffer, optionally gzipped on the fly,
+ * so memory does not grow with the length of the history.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class TransactionExportService {
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", TransactionExportRow::getId),
+            new Column("transactionNumber", TransactionExportRow::getTransactionNumber),
+            new Column("createdAt", TransactionExportRow::getCreatedAt),
+            new Column("completedAt", TransactionExportRow::getCompletedAt),
+            new Column("type", TransactionExportRow::getTransactionType),
+            new Column("status", TransactionExportRow::getStatus),
+            new Column("direction", TransactionExportRow::getDirection),
+            new Column("amount", TransactionExportRow::getAmount),
+            new Column("fee", TransactionExportRow::getFee),
+            new Column("netAmount", TransactionExportRow::getNetAmount),
+            new Column("currencyCode", TransactionExportRow::getCurrencyCode),
+            new Column("counterparty", TransactionExportRow::getCounterparty),
+            new Column("description", TransactionExportRow::getDescription),
+            new Column("referenceNumber", TransactionExportRow::getReferenceNumber)
+    );
+
+    /**
+     * Write a user's transactions, oldest first, to the given stream. The
+     * stream is flushed every {@value #FLUSH_EVERY_ROWS} rows and left open.
+     *
+     * @param userId User ID
+     * @param from First day to include, or null for all history
+     * @param to Last day to include, or null for up to now
+     * @param format Output format
+     * @param gzip Whether to gzip the output
+     * @param out Destination stream
+     * @return Number of rows written
+     * @throws IOException if writing to the stream fails
+     */
+    public long export(Long userId, LocalDate from, LocalDate to, ExportFormat format,
+                       boolean gzip, OutputStream out) throws IOException {
+        LocalDateTime start = from != null ? from.atStartOfDay() : EARLIEST;
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.now();
+
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        long count;
+        try (Stream<TransactionExportRow> rows = transactionRepository.streamExportRows(userId, start, end)) {
+            count = format == ExportFormat.JSON
+                    ? writeJson(rows.iterator(), writer)
+                    : writeCsv(rows.iterator(), writer);
+        }
+
+        writer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+        log.info("Exported {} transactions for user {} as {}", count, userId, format);
+        return count;
+    }
+
+    private long writeCsv(Iterator<TransactionExportRow> rows, Writer writer) throws IOException {
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            writer.write(i == 0 ? "" : ",");
+            writer.write(COLUMNS.get(i).name());
+        }
+        writer.write("\r\n");
+
+        long count = 0;
+        while (rows.hasNext()) {
+            TransactionExportRow row = rows.next();
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                writer.write(i == 0 ? "" : ",");
+                writer.write(csvValue(COLUMNS.get(i).value().apply(row)));
+            }
+            writer.write("\r\n");
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    private long writeJson(Iterator<TransactionExportRow> rows, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        // The writer is owned (and flushed) by export()
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartArray();
+
+        long count = 0;
+        while (rows.hasNext()) {
+            TransactionExportRow row = rows.next();
+            json.writeStartObject();
+            for (Column column : COLUMNS) {
+                json.writeFieldName(column.name());
+                writeJsonValue(json, column.value().apply(row));
+            }
+            json.writeEndObject();
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                json.flush();
+            }
+        }
+
+        json.writeEndArray();
+        json.close();
+        return count;
+    }
+
+    private void writeJsonValue(JsonGenerator json, Object value) throws IOException {
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof BigDecimal decimal) {
+            json.writeNumber(decimal);
+        } else if (value instanceof Long number) {
+            json.writeNumber(number);
+        } else {
+            json.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Format a CSV field, quoting when needed. Free-text values that a
+     * spreadsheet would evaluate as a formula are prefixed with a quote.
+     */
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private record Column(String name, Function<TransactionExportRow, Object> value) {}
+
+    /**
+     * Supported export formats
+     */
+    public enum ExportFormat {
+        CSV("text/csv", "csv"),
+        JSON("application/json", "json");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbox consumer sending transaction notifications to sender and receiver
+ *
+ * @author Zim Development Team
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionNotificationConsumer implements OutboxConsumer {
+
+    private final TransactionRepository transactionRepository;
+    private final NotificationService notificationService;
+
+    @Override
+    public String getName() {
+        return "notification";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.TRANSACTION_COMPLETED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Transaction transaction = transactionRepository.findByIdWithParties(event.getAggregateId())
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + event.getAggregateId()));
+        notificationService.sendTransactionNotification(transaction);
+    }
+}
@@ -0,0 +1,188 @@
+package com.zim.paypal.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of the transactions table on PostgreSQL:
+ * creates partitions a few months ahead so new rows never fall into the
+ * default partition, and detaches months past retention so they can be
+ * archived without touching the live table. Does nothing on databases
+ * without declarative partitioning (H2).
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitionService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.partitions.transactions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.partitions.transactions.retention-months:84}")
+    private int retentionMonths;
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private volatile Boolean partitioned;
+
+    /**
+     * Catch up on partitions missed while the application was down
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    /**
+     * Create upcoming partitions and detach expired ones (runs daily)
+     */
+    @Scheduled(cron = "0 15 1 * * ?") // Run daily at 01:15
+    public void maintainPartitions() {
+        try {
+            if (!isPartitioned()) {
+                return;
+            }
+            YearMonth current = YearMonth.now();
+            int created = createPartitions(current, current.plusMonths(monthsAhead));
+            List<String> detached = retentionMonths > 0
+                    ? detachPartitionsBefore(current.minusMonths(retentionMonths))
+                    : List.of();
+            if (created > 0 || !detached.isEmpty()) {
+                log.info("Transaction partitions maintained: {} created, detached {}", created, detached);
+            }
+        } catch (Exception e) {
+            log.error("Error maintaining transaction partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether transactions is a partitioned table on this database
+     *
+     * @return true on PostgreSQL once the partitioning migration has run
+     */
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+            partitioned = postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'transactions'::regclass)",
+                    Boolean.class));
+        }
+        return partitioned;
+    }
+
+    /**
+     * Create the monthly partitions in a range that do not exist yet
+     *
+     * @param from First month
+     * @param to Last month (inclusive)
+     * @return Number of partitions created
+     */
+    public int createPartitions(YearMonth from, YearMonth to) {
+        Set<String> attached = new HashSet<>(getAttachedPartitions());
+        int created = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            String name = partitionName(month);
+            if (attached.contains(name)) {
+                continue;
+            }
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF transactions FOR VALUES FROM ('%s') TO ('%s')",
+                    name, month.atDay(1), month.plusMonths(1).atDay(1)));
+            created++;
+        }
+        return created;
+    }
+
+    /**
+     * Detach monthly partitions that end before a month. Detached partitions
+     * stay in the database as plain tables until they are archived.
+     *
+     * @param cutoff First month to keep attached
+     * @return Names of the detached partitions
+     */
+    public List<String> detachPartitionsBefore(YearMonth cutoff) {
+        List<String> detached = new ArrayList<>();
+        for (String name : getAttachedPartitions()) {
+            YearMonth month = monthOf(name);
+            if (month != null && month.isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + name);
+                detached.add(name);
+            }
+        }
+        return detached;
+    }
+
+    /**
+     * Names of the partitions currently attached to transactions
+     *
+     * @return Partition table names, oldest month first
+     */
+    public List<String> getAttachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'transactions'::regclass ORDER BY c.relname",
+                String.class);
+    }
+
+    /**
+     * Monthly partition tables that have been detached and not yet archived
+     *
+     * @return Table names, oldest month first
+     */
+    public List<String> getDetachedPartitions() {
+        if (!isPartitioned()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE n.nspname = current_schema() AND c.relkind = 'r' AND c.relname ~ '^transactions_p[0-9]{4}_[0-9]{2}$' " +
+                "AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid) ORDER BY c.relname",
+                String.class);
+    }
+
+    /**
+     * Table name of a month's partition
+     *
+     * @param month Month
+     * @return Partition table name, e.g. transactions_p2024_01
+     */
+    public static String partitionName(YearMonth month) {
+        return "transactions_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * Month covered by a partition table
+     *
+     * @param partitionName Partition table name
+     * @return Month, or null for tables that are not monthly partitions
+     */
+    public static YearMonth monthOf(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbox consumer awarding rewards points for completed transactions
+ *
+ * @author Zim Development Team
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionRewardsConsumer implements OutboxConsumer {
+
+    private final TransactionRepository transactionRepository;
+    private final RewardsService rewardsService;
+
+    @Override
+    public String getName() {
+        return "rewards";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.TRANSACTION_COMPLETED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        Transaction transaction = transactionRepository.findById(event.getAggregateId())
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + event.getAggregateId()));
+        rewardsService.earnPointsFromTransaction(event.getUserId(), transaction);
+    }
+}
@@ -1,7 +1,12 @@
 package com.zim.paypal.service;
 
+import com.zim.paypal.model.dto.CursorPage;
+import com.zim.paypal.model.dto.TransactionKey;
+import com.zim.paypal.model.dto.TransactionView;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.util.IdGenerator;
+import com.zim.paypal.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -10,7 +15,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service for transaction management operations
@@ -27,18 +36,23 @@ public class TransactionService {
     private final AccountService accountService;
     private final UserService userService;
     private final CardService cardService;
-    private final NotificationService notificationService;
-    private final RewardsService rewardsService;
     private final AccountLimitService accountLimitService;
     private final FraudDetectionService fraudDetectionService;
     private final AmlService amlService;
-    private final WebhookService webhookService;
+    private final RiskContextLoader riskContextLoader;
+    private final RiskOrchestrator riskOrchestrator;
     private final CountryRestrictionService countryRestrictionService;
     private final FeatureFlagService featureFlagService;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final UserTransactionService userTransactionService;
+    private final ArchiveService archiveService;
+    private final FeeScheduleEngine feeScheduleEngine;
+    private final IdGenerator idGenerator;
 
-    private static final BigDecimal TRANSFER_FEE_RATE = new BigDecimal("0.029");
-    private static final BigDecimal MIN_TRANSFER_FEE = new BigDecimal("0.30");
-    private static final BigDecimal MAX_TRANSFER_FEE = new BigDecimal("2.99");
+    private static final int MAX_PAGE_SIZE = 100;
+    // Keyset position before the newest possible row; LocalDateTime.MAX cannot be bound as a SQL timestamp
+    private static final PageCursor FIRST_PAGE = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
 
     /**
      * Create a deposit transaction
@@ -61,10 +75,12 @@ public class TransactionService {
 
         transaction.calculateNetAmount();
         Transaction savedTransaction = transactionRepository.save(transaction);
+        userTransactionService.record(savedTransaction);
 
         try {
-            fraudDetectionService.analyzeTransaction(savedTransaction);
-            if (!amlService.performAmlCheck(savedTransaction)) {
+            RiskContext riskContext = riskContextLoader.forTransaction(savedTransaction);
+            fraudDetectionService.analyzeTransaction(savedTransaction, riskContext);
+            if (!amlService.performAmlCheck(savedTransaction, riskContext)) {
                 savedTransaction.markAsFailed("Transaction failed AML compliance check");
                 transactionRepository.save(savedTransaction);
                 throw new IllegalStateException("Transaction failed AML compliance check");
@@ -74,16 +90,11 @@ public class TransactionService {
         }
 
         accountService.deposit(account.getId(), amount);
+        ledgerService.recordDeposit(savedTransaction, account.getId());
         savedTransaction.markAsCompleted();
         transactionRepository.save(savedTransaction);
 
-        notificationService.sendTransactionNotification(savedTransaction);
-
-        try {
-            rewardsService.earnPointsFromTransaction(user.getId(), savedTransaction);
-        } catch (Exception e) {
-            log.warn("Failed to award rewards points: {}", e.getMessage());
-        }
+        outboxService.transactionCompleted(savedTransaction, user.getId());
 
         log.info("Deposit transaction created: {}", savedTransaction.getTransactionNumber());
         return savedTransaction;
@@ -106,17 +117,9 @@ public class TransactionService {
         Account senderAccount = accountService.findActiveAccountByUser(sender);
         Account receiverAccount = accountService.findActiveAccountByUser(receiver);
 
-        if (!accountLimitService.isTransactionAmountAllowed(senderId, sender.getRole(), amount)) {
-            throw new IllegalStateException("Transaction amount exceeds allowed limits");
-        }
-
         BigDecimal fee = calculateTransferFee(amount);
         BigDecimal totalAmount = amount.add(fee);
 
-        if (!senderAccount.hasSufficientBalance(totalAmount)) {
-            throw new IllegalArgumentException("Insufficient balance");
-        }
-
         Transaction transaction = Transaction.builder()
                 .transactionNumber(generateTransactionNumber())
                 .sender(sender)
@@ -131,19 +134,37 @@ public class TransactionService {
                 .fee(fee)
                 .build();
 
+        // Limit, fraud and AML checks run concurrently against one shared context
+        RiskContext riskContext = riskContextLoader.forSend(sender, amount);
+        RiskOrchestrator.Verdict verdict = riskOrchestrator.evaluate(riskContext, transaction);
+        if (!verdict.limitsPassed()) {
+            throw new IllegalStateException("Transaction amount exceeds allowed limits");
+        }
+        if (verdict.isBlocked()) {
+            throw new IllegalStateException("Risk checks could not be completed, please try again");
+        }
+
+        if (!senderAccount.hasSufficientBalance(totalAmount)) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+
         transaction.calculateNetAmount();
         Transaction savedTransaction = transactionRepository.save(transaction);
+        userTransactionService.record(savedTransaction);
 
         try {
-            RiskScore riskScore = fraudDetectionService.analyzeTransaction(savedTransaction);
+            // Deferred checks and checks that failed open left no assessment to record
+            RiskScore riskScore = verdict.fraud() != null
+                    ? fraudDetectionService.recordAssessment(savedTransaction, riskContext, verdict.fraud())
+                    : null;
 
-            if (!amlService.performAmlCheck(savedTransaction)) {
+            if (verdict.aml() != null && !amlService.recordAssessment(savedTransaction, riskContext, verdict.aml())) {
                 savedTransaction.markAsFailed("Transaction failed AML compliance check");
                 transactionRepository.save(savedTransaction);
                 throw new IllegalStateException("Transaction failed AML compliance check");
             }
 
-            if (riskScore.getRiskLevel() == RiskScore.RiskLevel.CRITICAL) {
+            if (riskScore != null && riskScore.getRiskLevel() == RiskScore.RiskLevel.CRITICAL) {
                 savedTransaction.markAsFailed("Transaction blocked due to high fraud risk");
                 transactionRepository.save(savedTransaction);
                 throw new IllegalStateException("Transaction blocked due to high fraud risk");
@@ -156,28 +177,15 @@ public class TransactionService {
             }
         }
 
-        accountService.withdraw(senderAccount.getId(), totalAmount);
-        accountService.deposit(receiverAccount.getId(), amount);
+        accountService.transfer(senderAccount.getId(), totalAmount, receiverAccount.getId(), amount);
+        ledgerService.recordTransfer(savedTransaction, senderAccount.getId(), receiverAccount.getId());
 
         savedTransaction.markAsCompleted();
         transactionRepository.save(savedTransaction);
 
-        notificationService.sendTransactionNotification(savedTransaction);
-
-        try {
-            webhookService.triggerWebhook(
-                    Webhook.EventType.TRANSACTION_COMPLETED,
-                    createTransactionPayload(savedTransaction),
-                    sender.getId()
-            );
-        } catch (Exception e) {
-            log.warn("Failed to trigger webhook: {}", e.getMessage());
-        }
-
-        try {
-            rewardsService.earnPointsFromTransaction(sender.getId(), savedTransaction);
-        } catch (Exception e) {
-            log.warn("Failed to award rewards points: {}", e.getMessage());
+        outboxService.transactionCompleted(savedTransaction, sender.getId());
+        if (verdict.deferred()) {
+            outboxService.transferRiskDeferred(savedTransaction, sender.getId());
         }
 
         log.info("Transfer transaction created: {}", savedTransaction.getTransactionNumber());
@@ -225,19 +233,17 @@ public class TransactionService {
 
         transaction.calculateNetAmount();
         Transaction savedTransaction = transactionRepository.save(transaction);
+        userTransactionService.record(savedTransaction);
 
-        accountService.withdraw(account.getId(), totalAmount);
+        if (!accountService.debitIfSufficient(account.getId(), totalAmount)) {
+            throw new IllegalArgumentException("Insufficient balance");
+        }
+        ledgerService.recordPayment(savedTransaction, account.getId());
 
         savedTransaction.markAsCompleted();
         transactionRepository.save(savedTransaction);
 
-        notificationService.sendTransactionNotification(savedTransaction);
-
-        try {
-            rewardsService.earnPointsFromTransaction(userId, savedTransaction);
-        } catch (Exception e) {
-            log.warn("Failed to award rewards points: {}", e.getMessage());
-        }
+        outboxService.transactionCompleted(savedTransaction, userId);
 
         log.info("Payment transaction created: {}", savedTransaction.getTransactionNumber());
         return savedTransaction;
@@ -284,17 +290,12 @@ public class TransactionService {
 
         transaction.calculateNetAmount();
         Transaction savedTransaction = transactionRepository.save(transaction);
+        userTransactionService.record(savedTransaction);
 
         savedTransaction.markAsCompleted();
         transactionRepository.save(savedTransaction);
 
-        notificationService.sendTransactionNotification(savedTransaction);
-
-        try {
-            rewardsService.earnPointsFromTransaction(userId, savedTransaction);
-        } catch (Exception e) {
-            log.warn("Failed to award rewards points: {}", e.getMessage());
-        }
+        outboxService.transactionCompleted(savedTransaction, userId);
 
         log.info("Card payment transaction created: {}", savedTransaction.getTransactionNumber());
         return savedTransaction;
@@ -303,19 +304,87 @@ public class TransactionService {
     @Transactional(readOnly = true)
     public Transaction findByTransactionNumber(String transactionNumber) {
         return transactionRepository.findByTransactionNumber(transactionNumber)
+                .or(() -> archiveService.findTransaction(transactionNumber))
                 .orElseThrow(() ->
                         new IllegalArgumentException("Transaction not found: " + transactionNumber));
     }
 
+    /**
+     * Get a page of a user's transaction history, newest first. Costs two
+     * queries whatever the page size: one for the page's IDs and one for the
+     * flat views with parties joined.
+     *
+     * @param userId User ID
+     * @param cursor Continuation token from the previous page, or null for the first page
+     * @param size Page size
+     * @return Page with the token for the next page
+     */
     @Transactional(readOnly = true)
-    public Page<Transaction> getTransactionsByUser(Long userId, Pageable pageable) {
-        User user = userService.findById(userId);
-        return transactionRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+    public CursorPage<TransactionView> getTransactionsByUser(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageCursor position = PageCursor.decode(cursor);
+        if (position == null) {
+            position = FIRST_PAGE;
+        }
+
+        // One extra row tells whether another page follows
+        List<TransactionKey> keys = transactionRepository.findPageKeysByUserBefore(
+                userId, position.getCreatedAt(), position.getId(), pageSize + 1);
+        boolean hasNext = keys.size() > pageSize;
+        if (hasNext) {
+            keys = keys.subList(0, pageSize);
+        }
+
+        List<TransactionView> content = new ArrayList<>(keys.size());
+        if (!keys.isEmpty()) {
+            List<Long> ids = keys.stream().map(TransactionKey::getId).toList();
+            // Keys are newest first, so the page spans [last, first] in created_at
+            Map<Long, TransactionView> views = new HashMap<>();
+            for (TransactionView view : transactionRepository.findViewsByIdIn(ids,
+                    keys.get(keys.size() - 1).getCreatedAt(), keys.get(0).getCreatedAt())) {
+                views.put(view.getId(), view);
+            }
+            for (Long id : ids) {
+                TransactionView view = views.get(id);
+                if (view == null) {
+                    // Deleted or archived between the two queries
+                    log.warn("Transaction {} of user {} disappeared while loading the page", id, userId);
+                    continue;
+                }
+                content.add(view);
+            }
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionKey last = keys.get(keys.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return CursorPage.<TransactionView>builder()
+                .content(content)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    /**
+     * Get a transaction the user took part in
+     *
+     * @param transactionId Transaction ID
+     * @param userId User ID
+     * @return Transaction view
+     * @throws IllegalArgumentException if the transaction does not exist
+     * @throws IllegalStateException if the user did not take part in it
+     */
     @Transactional(readOnly = true)
-    public Page<Transaction> getTransactionsByUserId(Long userId, Pageable pageable) {
-        return getTransactionsByUser(userId, pageable);
+    public TransactionView getTransactionView(Long transactionId, Long userId) {
+        TransactionView view = transactionRepository.findViewById(transactionId)
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + transactionId));
+        if (transactionRepository.countParticipation(userId, transactionId) == 0) {
+            throw new IllegalStateException("Access denied");
+        }
+        return view;
     }
 
     @Transactional(readOnly = true)
@@ -331,20 +400,27 @@ public class TransactionService {
         return transactionRepository.findByAccountOrderByCreatedAtDesc(account, pageable);
     }
 
-    private BigDecimal calculateTransferFee(BigDecimal amount) {
-        BigDecimal fee = amount.multiply(TRANSFER_FEE_RATE);
-
-        if (fee.compareTo(MIN_TRANSFER_FEE) < 0) return MIN_TRANSFER_FEE;
-        if (fee.compareTo(MAX_TRANSFER_FEE) > 0) return MAX_TRANSFER_FEE;
-
-        return fee;
+    /**
+     * Calculate the wallet transfer fee for an amount
+     *
+     * @param amount Transfer amount
+     * @return Charges and taxes from the compiled fee schedule
+     */
+    public BigDecimal calculateTransferFee(BigDecimal amount) {
+        return feeScheduleEngine.calculateTotalFee(Transaction.TransactionType.TRANSFER, amount);
     }
 
     private BigDecimal calculatePaymentFee(BigDecimal amount) {
-        return calculateTransferFee(amount);
+        return feeScheduleEngine.calculateTotalFee(Transaction.TransactionType.PAYMENT, amount);
     }
 
-    private java.util.Map<String, Object> createTransactionPayload(Transaction transaction) {
+    /**
+     * Build the webhook payload for a transaction
+     *
+     * @param transaction Transaction with sender and receiver loaded
+     * @return Payload map
+     */
+    public java.util.Map<String, Object> createTransactionPayload(Transaction transaction) {
         java.util.Map<String, Object> payload = new java.util.HashMap<>();
         payload.put("id", transaction.getId());
         payload.put("transactionNumber", transaction.getTransactionNumber());
@@ -360,15 +436,7 @@ public class TransactionService {
     }
 
     private String generateTransactionNumber() {
-        String transactionNumber;
-        do {
-            transactionNumber = "TXN" + UUID.randomUUID()
-                    .toString()
-                    .replace("-", "")
-                    .substring(0, 15)
-                    .toUpperCase();
-        } while (transactionRepository.findByTransactionNumber(transactionNumber).isPresent());
-        return transactionNumber;
+        return idGenerator.next(IdGenerator.IdType.TRANSACTION);
     }
 }
 
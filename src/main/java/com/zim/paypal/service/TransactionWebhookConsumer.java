@@ -0,0 +1,47 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.model.entity.Webhook;
+import com.zim.paypal.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbox consumer queueing TRANSACTION_COMPLETED webhooks for transfers
+ *
+ * @author Zim Development Team
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionWebhookConsumer implements OutboxConsumer {
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionService transactionService;
+    private final WebhookService webhookService;
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.TRANSACTION_COMPLETED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Transaction transaction = transactionRepository.findByIdWithParties(event.getAggregateId())
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + event.getAggregateId()));
+        // Only transfers are published to webhooks
+        if (transaction.getTransactionType() != Transaction.TransactionType.TRANSFER) {
+            return;
+        }
+        webhookService.triggerWebhook(
+                Webhook.EventType.TRANSACTION_COMPLETED,
+                transactionService.createTransactionPayload(transaction),
+                event.getUserId()
+        );
+    }
+}
@@ -0,0 +1,90 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.dto.BatchTransferRequest;
+import com.zim.paypal.model.dto.BatchTransferResult;
+import com.zim.paypal.model.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Executes wallet transfers, each attempt in its own transaction, retrying with
+ * bounded exponential backoff when the database aborts it on a lock conflict
+ * (deadlock victim, serialization failure or lock timeout). Balance rows are
+ * locked in ID order by AccountService, so retries are the exception.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransferExecutor {
+
+    private final TransactionService transactionService;
+    private final BatchTransferService batchTransferService;
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 25;
+    private static final long MAX_BACKOFF_MS = 500;
+
+    /**
+     * Execute a P2P transfer
+     *
+     * @param senderId Sender user ID
+     * @param receiverEmail Receiver email
+     * @param amount Amount
+     * @param description Description
+     * @return Completed transaction
+     */
+    public Transaction transfer(Long senderId, String receiverEmail, BigDecimal amount, String description) {
+        return executeWithRetry(() -> transactionService.createTransfer(senderId, receiverEmail, amount, description));
+    }
+
+    /**
+     * Execute a bulk payout
+     *
+     * @param senderId Paying user ID
+     * @param request Batch request
+     * @return Per-item results
+     */
+    public BatchTransferResult batchTransfer(Long senderId, BatchTransferRequest request) {
+        return executeWithRetry(() -> batchTransferService.createBatchTransfer(senderId, request));
+    }
+
+    private <T> T executeWithRetry(Supplier<T> work) {
+        // Inside a caller's transaction the whole unit must be retried by its owner
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.error("Transfer failed after {} attempts: {}", attempt, e.getMessage());
+                    throw new IllegalStateException("Transfer could not be completed, please try again", e);
+                }
+                long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+                log.warn("Transfer attempt {} hit a lock conflict, retrying in ~{}ms: {}",
+                        attempt, backoff, e.getMessage());
+                sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying transfer", e);
+        }
+    }
+}
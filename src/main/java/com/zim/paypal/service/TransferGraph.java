@@ -0,0 +1,508 @@
+package com.zim.paypal.service;
+
+import java.util.Arrays;
+
+/**
+ * Directed graph of who sent money to whom, held in primitive arrays so that
+ * millions of users fit in a bounded heap (roughly 70 bytes per user and
+ * per edge). Nodes and edges live in parallel arrays indexed by slot; each
+ * node links its outgoing and incoming edges through next pointers, and
+ * open-addressed hash indexes map user IDs and (sender, receiver) pairs to
+ * slots.
+ *
+ * Edge weights are the amounts sent, decaying exponentially with the edge
+ * half-life, so old relationships fade out. Each node also keeps its inflow
+ * and outflow decaying with a much shorter half-life, which shows money that
+ * passes straight through. Edges whose weight has decayed below the prune
+ * amount are removed, and with them users left without edges. When the graph
+ * is full, transfers that need a new user or edge are dropped until pruning
+ * makes room.
+ *
+ * Minutes are counted from the epoch. Amounts are added as they are,
+ * whatever their currency.
+ *
+ * @author Zim Development Team
+ */
+public class TransferGraph {
+
+    private static final int NONE = -1;
+    private static final long FREE = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+    // Edges a cycle search may follow from one user before it gives up
+    private static final int MAX_CYCLE_VISITS = 10_000;
+
+    private final int maxUsers;
+    private final int maxEdges;
+    private final double edgeDecay;
+    private final double flowDecay;
+    private final double pruneWeight;
+
+    private final LongIntIndex userIndex = new LongIntIndex();
+    private final LongIntIndex edgeIndex = new LongIntIndex();
+
+    // Nodes; a free node has user ID FREE and chains the free list through outHead
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private int[] outHead = new int[INITIAL_CAPACITY];
+    private int[] inHead = new int[INITIAL_CAPACITY];
+    private float[] inflow = new float[INITIAL_CAPACITY];
+    private float[] outflow = new float[INITIAL_CAPACITY];
+    private int[] flowMinute = new int[INITIAL_CAPACITY];
+    private boolean[] dirty = new boolean[INITIAL_CAPACITY];
+    private int nodeSlots;
+    private int freeNode = NONE;
+    private int users;
+    private int[] dirtyNodes = new int[INITIAL_CAPACITY];
+    private int dirtyCount;
+
+    // Edges; a free edge has sender NONE and chains the free list through outNext
+    private int[] edgeFrom = new int[INITIAL_CAPACITY];
+    private int[] edgeTo = new int[INITIAL_CAPACITY];
+    private int[] outNext = new int[INITIAL_CAPACITY];
+    private int[] inNext = new int[INITIAL_CAPACITY];
+    private float[] edgeWeight = new float[INITIAL_CAPACITY];
+    private int[] edgeMinute = new int[INITIAL_CAPACITY];
+    private int edgeSlots;
+    private int freeEdge = NONE;
+    private int edges;
+
+    private int lastPruneMinute = Integer.MIN_VALUE;
+
+    /**
+     * @param maxUsers Most users held
+     * @param maxEdges Most sender-receiver pairs held
+     * @param edgeHalfLifeMinutes Half-life of edge weights
+     * @param flowHalfLifeMinutes Half-life of user inflow and outflow
+     * @param pruneWeight Edges lighter than this are removed when pruning
+     */
+    public TransferGraph(int maxUsers, int maxEdges, double edgeHalfLifeMinutes, double flowHalfLifeMinutes,
+                         double pruneWeight) {
+        this.maxUsers = maxUsers;
+        this.maxEdges = maxEdges;
+        this.edgeDecay = Math.log(2) / edgeHalfLifeMinutes;
+        this.flowDecay = Math.log(2) / flowHalfLifeMinutes;
+        this.pruneWeight = pruneWeight;
+    }
+
+    /**
+     * Add a transfer
+     *
+     * @param senderId Sender user ID
+     * @param receiverId Receiver user ID
+     * @param amount Amount sent
+     * @param minute Minute the transfer was made
+     * @return false if the graph is full and the transfer was dropped
+     */
+    public synchronized boolean addTransfer(long senderId, long receiverId, double amount, long minute) {
+        if (senderId == receiverId || amount <= 0) {
+            return true;
+        }
+        int now = (int) minute;
+        int edge = edge(senderId, receiverId, now);
+        if (edge == NONE && now > lastPruneMinute) {
+            prune(now);
+            edge = edge(senderId, receiverId, now);
+        }
+        if (edge == NONE) {
+            return false;
+        }
+
+        if (now >= edgeMinute[edge]) {
+            edgeWeight[edge] = (float) (decayed(edgeWeight[edge], edgeMinute[edge], now, edgeDecay) + amount);
+            edgeMinute[edge] = now;
+        } else {
+            edgeWeight[edge] += (float) decayed(amount, now, edgeMinute[edge], edgeDecay);
+        }
+        addFlow(edgeFrom[edge], false, amount, now);
+        addFlow(edgeTo[edge], true, amount, now);
+        markDirty(edgeFrom[edge]);
+        markDirty(edgeTo[edge]);
+        return true;
+    }
+
+    /**
+     * Users whose edges changed since the last call
+     *
+     * @return User IDs
+     */
+    public synchronized long[] drainDirty() {
+        long[] drained = new long[dirtyCount];
+        int count = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            int node = dirtyNodes[i];
+            if (dirty[node]) {
+                dirty[node] = false;
+                drained[count++] = userIds[node];
+            }
+        }
+        dirtyCount = 0;
+        return Arrays.copyOf(drained, count);
+    }
+
+    /**
+     * Find a cycle of transfers that leaves a user and comes back to them
+     * through at least two other users, following only edges of at least
+     * {@code minWeight}
+     *
+     * @param userId User ID
+     * @param maxLength Most users in the cycle
+     * @param minWeight Lightest edge followed
+     * @param minute Current minute
+     * @return User IDs in transfer order starting with {@code userId}, or null if none was found
+     */
+    public synchronized long[] findCycle(long userId, int maxLength, double minWeight, long minute) {
+        int start = userIndex.get(userId);
+        if (start == NONE || maxLength < 3) {
+            return null;
+        }
+        int now = (int) minute;
+        int[] path = new int[maxLength];
+        int[] cursor = new int[maxLength];
+        path[0] = start;
+        cursor[0] = outHead[start];
+        int depth = 0;
+        for (int visits = 0; depth >= 0 && visits < MAX_CYCLE_VISITS; visits++) {
+            int edge = cursor[depth];
+            if (edge == NONE) {
+                depth--;
+                continue;
+            }
+            cursor[depth] = outNext[edge];
+            if (weight(edge, now) < minWeight) {
+                continue;
+            }
+            int next = edgeTo[edge];
+            if (next == start) {
+                if (depth >= 2) {
+                    long[] cycle = new long[depth + 1];
+                    for (int i = 0; i <= depth; i++) {
+                        cycle[i] = userIds[path[i]];
+                    }
+                    return cycle;
+                }
+            } else if (depth + 1 < maxLength && !onPath(path, depth, next)) {
+                depth++;
+                path[depth] = next;
+                cursor[depth] = outHead[next];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Edge counts and flows of a user
+     *
+     * @param userId User ID
+     * @param minWeight Lightest edge counted
+     * @param minute Current minute
+     * @return Statistics, or null if the user is not in the graph
+     */
+    public synchronized NodeStats stats(long userId, double minWeight, long minute) {
+        int node = userIndex.get(userId);
+        if (node == NONE) {
+            return null;
+        }
+        int now = (int) minute;
+        int senders = 0;
+        for (int edge = inHead[node]; edge != NONE; edge = inNext[edge]) {
+            if (weight(edge, now) >= minWeight) {
+                senders++;
+            }
+        }
+        int receivers = 0;
+        for (int edge = outHead[node]; edge != NONE; edge = outNext[edge]) {
+            if (weight(edge, now) >= minWeight) {
+                receivers++;
+            }
+        }
+        return new NodeStats(senders, receivers, decayed(inflow[node], flowMinute[node], now, flowDecay),
+                decayed(outflow[node], flowMinute[node], now, flowDecay));
+    }
+
+    /**
+     * Remove edges lighter than the prune amount, and users left without
+     * edges whose flows have also decayed below it
+     *
+     * @param minute Current minute
+     */
+    public synchronized void prune(long minute) {
+        int now = (int) minute;
+        lastPruneMinute = now;
+        for (int edge = 0; edge < edgeSlots; edge++) {
+            if (edgeFrom[edge] != NONE && weight(edge, now) < pruneWeight) {
+                edgeIndex.remove(edgeKey(edgeFrom[edge], edgeTo[edge]));
+                edgeFrom[edge] = NONE;
+                edges--;
+            }
+        }
+
+        // Relink the remaining edges and rebuild the free lists
+        for (int node = 0; node < nodeSlots; node++) {
+            outHead[node] = NONE;
+            inHead[node] = NONE;
+        }
+        freeEdge = NONE;
+        for (int edge = edgeSlots - 1; edge >= 0; edge--) {
+            if (edgeFrom[edge] == NONE) {
+                outNext[edge] = freeEdge;
+                freeEdge = edge;
+            } else {
+                outNext[edge] = outHead[edgeFrom[edge]];
+                outHead[edgeFrom[edge]] = edge;
+                inNext[edge] = inHead[edgeTo[edge]];
+                inHead[edgeTo[edge]] = edge;
+            }
+        }
+        freeNode = NONE;
+        for (int node = nodeSlots - 1; node >= 0; node--) {
+            if (userIds[node] != FREE && outHead[node] == NONE && inHead[node] == NONE
+                    && decayed(Math.max(inflow[node], outflow[node]), flowMinute[node], now, flowDecay) < pruneWeight) {
+                userIndex.remove(userIds[node]);
+                userIds[node] = FREE;
+                dirty[node] = false;
+                users--;
+            }
+            if (userIds[node] == FREE) {
+                outHead[node] = freeNode;
+                freeNode = node;
+            }
+        }
+    }
+
+    /**
+     * @return Users held
+     */
+    public synchronized int getUserCount() {
+        return users;
+    }
+
+    /**
+     * @return Sender-receiver pairs held
+     */
+    public synchronized int getEdgeCount() {
+        return edges;
+    }
+
+    private int edge(long senderId, long receiverId, int now) {
+        int from = node(senderId, now);
+        int to = from != NONE ? node(receiverId, now) : NONE;
+        if (to == NONE) {
+            return NONE;
+        }
+        long key = edgeKey(from, to);
+        int edge = edgeIndex.get(key);
+        if (edge != NONE) {
+            return edge;
+        }
+        if (edges >= maxEdges) {
+            return NONE;
+        }
+        if (freeEdge != NONE) {
+            edge = freeEdge;
+            freeEdge = outNext[edge];
+        } else {
+            if (edgeSlots == edgeFrom.length) {
+                growEdges();
+            }
+            edge = edgeSlots++;
+        }
+        edgeFrom[edge] = from;
+        edgeTo[edge] = to;
+        edgeWeight[edge] = 0f;
+        edgeMinute[edge] = now;
+        outNext[edge] = outHead[from];
+        outHead[from] = edge;
+        inNext[edge] = inHead[to];
+        inHead[to] = edge;
+        edgeIndex.put(key, edge);
+        edges++;
+        return edge;
+    }
+
+    private int node(long userId, int now) {
+        int node = userIndex.get(userId);
+        if (node != NONE) {
+            return node;
+        }
+        if (users >= maxUsers) {
+            return NONE;
+        }
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = outHead[node];
+        } else {
+            if (nodeSlots == userIds.length) {
+                growNodes();
+            }
+            node = nodeSlots++;
+        }
+        userIds[node] = userId;
+        outHead[node] = NONE;
+        inHead[node] = NONE;
+        inflow[node] = 0f;
+        outflow[node] = 0f;
+        flowMinute[node] = now;
+        dirty[node] = false;
+        userIndex.put(userId, node);
+        users++;
+        return node;
+    }
+
+    private void addFlow(int node, boolean in, double amount, int now) {
+        if (now > flowMinute[node]) {
+            double factor = Math.exp(-flowDecay * (now - flowMinute[node]));
+            inflow[node] *= (float) factor;
+            outflow[node] *= (float) factor;
+            flowMinute[node] = now;
+        }
+        float added = (float) decayed(amount, now, flowMinute[node], flowDecay);
+        if (in) {
+            inflow[node] += added;
+        } else {
+            outflow[node] += added;
+        }
+    }
+
+    private void markDirty(int node) {
+        if (dirty[node]) {
+            return;
+        }
+        dirty[node] = true;
+        if (dirtyCount == dirtyNodes.length) {
+            dirtyNodes = Arrays.copyOf(dirtyNodes, dirtyNodes.length * 2);
+        }
+        dirtyNodes[dirtyCount++] = node;
+    }
+
+    private double weight(int edge, int now) {
+        return decayed(edgeWeight[edge], edgeMinute[edge], now, edgeDecay);
+    }
+
+    private static double decayed(double value, int fromMinute, int toMinute, double decay) {
+        return toMinute <= fromMinute ? value : value * Math.exp(-decay * (toMinute - fromMinute));
+    }
+
+    private static boolean onPath(int[] path, int depth, int node) {
+        for (int i = 0; i <= depth; i++) {
+            if (path[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    private void growNodes() {
+        int capacity = (int) Math.min((long) maxUsers, userIds.length * 2L);
+        userIds = Arrays.copyOf(userIds, capacity);
+        outHead = Arrays.copyOf(outHead, capacity);
+        inHead = Arrays.copyOf(inHead, capacity);
+        inflow = Arrays.copyOf(inflow, capacity);
+        outflow = Arrays.copyOf(outflow, capacity);
+        flowMinute = Arrays.copyOf(flowMinute, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+    }
+
+    private void growEdges() {
+        int capacity = (int) Math.min((long) maxEdges, edgeFrom.length * 2L);
+        edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+        edgeTo = Arrays.copyOf(edgeTo, capacity);
+        outNext = Arrays.copyOf(outNext, capacity);
+        inNext = Arrays.copyOf(inNext, capacity);
+        edgeWeight = Arrays.copyOf(edgeWeight, capacity);
+        edgeMinute = Arrays.copyOf(edgeMinute, capacity);
+    }
+
+    /**
+     * Edge counts and flows of one user
+     *
+     * @param senders Users who sent them at least the minimum weight
+     * @param receivers Users they sent at least the minimum weight
+     * @param inflow Recently received, decayed with the flow half-life
+     * @param outflow Recently sent, decayed with the flow half-life
+     */
+    public record NodeStats(int senders, int receivers, double inflow, double outflow) {}
+
+    /**
+     * Open-addressed map from long keys to slots with linear probing. Removal
+     * shifts later entries back, so lookups never need tombstones.
+     */
+    private static final class LongIntIndex {
+        private long[] keys = new long[INITIAL_CAPACITY * 2];
+        private int[] values = filled(INITIAL_CAPACITY * 2);
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != NONE; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return NONE;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != NONE && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == NONE) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int hole = slot(key, mask);
+            while (values[hole] != NONE && keys[hole] != key) {
+                hole = (hole + 1) & mask;
+            }
+            if (values[hole] == NONE) {
+                return;
+            }
+            size--;
+            for (int i = (hole + 1) & mask; values[i] != NONE; i = (i + 1) & mask) {
+                int home = slot(keys[i], mask);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            values[hole] = NONE;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = filled(capacity);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != NONE) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private static int[] filled(int capacity) {
+            int[] values = new int[capacity];
+            Arrays.fill(values, NONE);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.SuspiciousActivity;
+import com.zim.paypal.repository.SuspiciousActivityRepository;
+import com.zim.paypal.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AML analysis across users: keeps a {@link TransferGraph} of completed
+ * transfers and flags money moving in cycles, users who collect from or pay
+ * out to many others, and users who pass on most of what they receive
+ * within about an hour.
+ *
+ * The graph is loaded from the last {@code app.aml.graph.warmup-days} of
+ * transfers at startup, then every minute picks up transfers committed since
+ * the last read, on any node, and analyzes the users they touched. A user is
+ * flagged at most once per pattern within {@code app.aml.graph.cooldown-hours},
+ * whichever node found it.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransferGraphService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final SuspiciousActivityRepository suspiciousActivityRepository;
+
+    @Value("${app.aml.graph.max-users:1000000}")
+    private int maxUsers;
+
+    @Value("${app.aml.graph.max-edges:3000000}")
+    private int maxEdges;
+
+    @Value("${app.aml.graph.edge-half-life-days:7}")
+    private double edgeHalfLifeDays;
+
+    @Value("${app.aml.graph.pass-through-half-life-minutes:60}")
+    private double passThroughHalfLifeMinutes;
+
+    @Value("${app.aml.graph.prune-amount:5.00}")
+    private double pruneAmount;
+
+    @Value("${app.aml.graph.warmup-days:14}")
+    private long warmupDays;
+
+    @Value("${app.aml.graph.min-edge-amount:100.00}")
+    private double minEdgeAmount;
+
+    @Value("${app.aml.graph.max-cycle-length:4}")
+    private int maxCycleLength;
+
+    @Value("${app.aml.graph.fan-in:15}")
+    private int fanIn;
+
+    @Value("${app.aml.graph.fan-out:15}")
+    private int fanOut;
+
+    @Value("${app.aml.graph.pass-through-amount:1000.00}")
+    private double passThroughAmount;
+
+    @Value("${app.aml.graph.pass-through-ratio:0.8}")
+    private double passThroughRatio;
+
+    @Value("${app.aml.graph.cooldown-hours:24}")
+    private long cooldownHours;
+
+    private static final int RECENT_ID_MINUTES = 10;
+
+    private static final String TRANSFERS_SQL =
+            "SELECT id, sender_id, receiver_id, amount, created_at FROM transactions " +
+            "WHERE created_at >= ? AND transaction_type = 'TRANSFER' AND status = 'COMPLETED' " +
+            "AND sender_id IS NOT NULL AND receiver_id IS NOT NULL ORDER BY created_at, id";
+
+    private TransferGraph graph;
+    private LocalDateTime readUpTo;
+    // IDs of transfers read that the next read may return again
+    private final Map<Long, Long> recentIds = new HashMap<>();
+    private boolean warmed;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder cyclesFlagged = new LongAdder();
+    private final LongAdder hubsFlagged = new LongAdder();
+    private final LongAdder passThroughsFlagged = new LongAdder();
+    private volatile long lastAnalysisMillis;
+
+    @PostConstruct
+    void init() {
+        graph = new TransferGraph(maxUsers, maxEdges, edgeHalfLifeDays * 24 * 60, passThroughHalfLifeMinutes,
+                pruneAmount);
+        readUpTo = LocalDateTime.now().minusDays(warmupDays);
+    }
+
+    /**
+     * Load the last {@code app.aml.graph.warmup-days} of transfers. Patterns
+     * already in them are analyzed once one of their users transfers again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        try {
+            int read = read();
+            graph.drainDirty();
+            log.info("Transfer graph warmed with {} transfers: {} users, {} edges",
+                    read, graph.getUserCount(), graph.getEdgeCount());
+        } catch (Exception e) {
+            log.error("Error warming transfer graph: {}", e.getMessage(), e);
+        }
+        warmed = true;
+    }
+
+    /**
+     * Add new transfers and analyze the users they touched
+     */
+    @Scheduled(fixedDelay = 60000) // Run every minute
+    public synchronized void analyze() {
+        if (!warmed) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            read();
+            long minute = minuteOf(LocalDateTime.now());
+            List<Finding> findings = new ArrayList<>();
+            for (long userId : graph.drainDirty()) {
+                detect(userId, minute, findings);
+            }
+            for (Finding finding : findings) {
+                raise(finding);
+            }
+            lastAnalysisMillis = System.currentTimeMillis() - started;
+        } catch (Exception e) {
+            log.error("Error analyzing transfer graph: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drop relationships that have decayed away (runs hourly)
+     */
+    @Scheduled(fixedDelay = 3600000) // Run every hour
+    public synchronized void prune() {
+        graph.prune(minuteOf(LocalDateTime.now()));
+        log.debug("Transfer graph pruned to {} users, {} edges", graph.getUserCount(), graph.getEdgeCount());
+    }
+
+    /**
+     * Read transfers created since the last read. The read reaches a few
+     * minutes further back to catch transfers that committed late; the IDs
+     * of transfers in that overlap are remembered so they are added once.
+     *
+     * @return Number of transfers read
+     */
+    private int read() {
+        LocalDateTime started = LocalDateTime.now();
+        long rememberFrom = minuteOf(started.minusMinutes(RECENT_ID_MINUTES));
+        int[] read = {0};
+        jdbcTemplate.query(TRANSFERS_SQL, rs -> {
+            long id = rs.getLong("id");
+            if (recentIds.containsKey(id)) {
+                return;
+            }
+            long minute = minuteOf(rs.getTimestamp("created_at").toLocalDateTime());
+            if (minute >= rememberFrom) {
+                recentIds.put(id, minute);
+            }
+            read[0]++;
+            if (graph.addTransfer(rs.getLong("sender_id"), rs.getLong("receiver_id"), rs.getDouble("amount"), minute)) {
+                applied.increment();
+            } else {
+                dropped.increment();
+            }
+        }, Timestamp.valueOf(readUpTo.minusMinutes(RECENT_ID_MINUTES)));
+        recentIds.values().removeIf(minute -> minute < rememberFrom);
+        readUpTo = started;
+        return read[0];
+    }
+
+    private void detect(long userId, long minute, List<Finding> findings) {
+        long[] cycle = graph.findCycle(userId, maxCycleLength, minEdgeAmount, minute);
+        if (cycle != null) {
+            StringBuilder path = new StringBuilder();
+            for (long member : cycle) {
+                path.append(member).append(" -> ");
+            }
+            path.append(userId);
+            findings.add(new Finding(userId, SuspiciousActivity.ActivityType.MONEY_LAUNDERING,
+                    SuspiciousActivity.Severity.HIGH, "GRAPH_CYCLE",
+                    "Money moved in a cycle between users " + path));
+        }
+
+        TransferGraph.NodeStats stats = graph.stats(userId, minEdgeAmount, minute);
+        if (stats == null) {
+            return;
+        }
+        List<String> hub = new ArrayList<>();
+        if (stats.senders() >= fanIn) {
+            hub.add(String.format("received at least %.2f from each of %d users", minEdgeAmount, stats.senders()));
+        }
+        if (stats.receivers() >= fanOut) {
+            hub.add(String.format("sent at least %.2f to each of %d users", minEdgeAmount, stats.receivers()));
+        }
+        if (!hub.isEmpty()) {
+            findings.add(new Finding(userId, SuspiciousActivity.ActivityType.SUSPICIOUS_BEHAVIOR,
+                    SuspiciousActivity.Severity.MEDIUM, "GRAPH_HUB",
+                    "Transfer hub: " + String.join(" and ", hub) + " recently"));
+        }
+        if (stats.inflow() >= passThroughAmount && stats.outflow() >= passThroughRatio * stats.inflow()) {
+            findings.add(new Finding(userId, SuspiciousActivity.ActivityType.RAPID_TRANSFERS,
+                    SuspiciousActivity.Severity.HIGH, "GRAPH_PASS_THROUGH",
+                    String.format("Passed on %.2f of %.2f received within about %.0f minutes",
+                            stats.outflow(), stats.inflow(), passThroughHalfLifeMinutes)));
+        }
+    }
+
+    private void raise(Finding finding) {
+        LocalDateTime now = LocalDateTime.now();
+        // Keyed on the graph risk factor, so activities raised by other checks do not suppress it
+        if (suspiciousActivityRepository.findRiskFactorsByUserIdAndCreatedAtAfter(
+                finding.userId(), now.minusHours(cooldownHours)).contains(finding.riskFactors())) {
+            return;
+        }
+        userRepository.findById(finding.userId()).ifPresent(user -> {
+            suspiciousActivityRepository.save(SuspiciousActivity.builder()
+                    .user(user)
+                    .activityType(finding.activityType())
+                    .severity(finding.severity())
+                    .status(SuspiciousActivity.Status.PENDING)
+                    .description(finding.description())
+                    .riskFactors(finding.riskFactors())
+                    .autoDetected(true)
+                    .build());
+            switch (finding.riskFactors()) {
+                case "GRAPH_CYCLE" -> cyclesFlagged.increment();
+                case "GRAPH_HUB" -> hubsFlagged.increment();
+                default -> passThroughsFlagged.increment();
+            }
+            log.warn("Transfer graph flagged user {}: {}", user.getUsername(), finding.description());
+        });
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Transfer graph statistics since startup
+     *
+     * @return Graph size, transfers added and dropped, patterns flagged and last analysis time
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("graphUsers", graph.getUserCount());
+        stats.put("graphEdges", graph.getEdgeCount());
+        stats.put("graphTransfersAdded", applied.sum());
+        stats.put("graphTransfersDropped", dropped.sum());
+        stats.put("graphCyclesFlagged", cyclesFlagged.sum());
+        stats.put("graphHubsFlagged", hubsFlagged.sum());
+        stats.put("graphPassThroughsFlagged", passThroughsFlagged.sum());
+        stats.put("graphLastAnalysisMillis", lastAnalysisMillis);
+        return stats;
+    }
+
+    private record Finding(long userId, SuspiciousActivity.ActivityType activityType,
+                           SuspiciousActivity.Severity severity, String riskFactors, String description) {}
+}
@@ -0,0 +1,90 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service maintaining the user_transactions participation table: one row per
+ * user taking part in a transaction, written in the transaction that creates it.
+ * Per-user history, reports and statements read it as one (user_id, created_at)
+ * index range instead of filtering transactions by sender OR receiver. Every
+ * new transaction passes through here, so it also feeds the velocity windows
+ * and the spend aggregates.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class UserTransactionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SpendAggregateService spendAggregateService;
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private static final String INSERT_PARTICIPATION_SQL =
+            "INSERT INTO user_transactions (user_id, created_at, transaction_id, direction) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Record the participants of a newly created transaction
+     *
+     * @param transaction Saved transaction
+     */
+    public void record(Transaction transaction) {
+        recordAll(List.of(transaction));
+    }
+
+    /**
+     * Record the participants of many newly created transactions in one batch
+     *
+     * @param transactions Saved transactions
+     */
+    public void recordAll(List<Transaction> transactions) {
+        List<Participation> rows = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            Long senderId = transaction.getSender() != null ? transaction.getSender().getId() : null;
+            Long receiverId = transaction.getReceiver() != null ? transaction.getReceiver().getId() : null;
+            if (senderId != null) {
+                rows.add(new Participation(senderId, transaction, Direction.OUT));
+            }
+            if (receiverId != null && !receiverId.equals(senderId)) {
+                rows.add(new Participation(receiverId, transaction, Direction.IN));
+            }
+            // Deposits carry neither party; they belong to the credited account's owner
+            if (senderId == null && receiverId == null && transaction.getAccount() != null) {
+                rows.add(new Participation(transaction.getAccount().getUser().getId(), transaction, Direction.IN));
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PARTICIPATION_SQL, rows, JDBC_BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.userId());
+            ps.setTimestamp(2, Timestamp.valueOf(row.transaction().getCreatedAt()));
+            ps.setLong(3, row.transaction().getId());
+            ps.setString(4, row.direction().name());
+        });
+        spendAggregateService.recordAll(transactions);
+        eventPublisher.publishEvent(VelocityStore.TransactionsCreated.of(transactions));
+    }
+
+    private record Participation(Long userId, Transaction transaction, Direction direction) {}
+
+    /**
+     * Direction of money for the participating user
+     */
+    public enum Direction {
+        IN, OUT
+    }
+}
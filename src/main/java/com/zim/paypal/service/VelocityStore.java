@@ -0,0 +1,379 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.dto.VelocitySample;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory sliding-window counters of what each user has sent, used by the
+ * fraud, AML and limit checks instead of loading the sender's transactions
+ * on every transfer.
+ *
+ * Each sender has a ring buffer of one-minute buckets (count, amount and
+ * round-amount count) covering the last {@value #RETENTION_DAYS} days, so any
+ * window inside that range is answered by walking the buckets it spans.
+ * Senders are loaded from the database on first use (and for recently active
+ * senders at startup), then kept current from committed transactions. State
+ * is reloaded every {@code app.velocity.reload-seconds} so that transactions
+ * committed on other nodes are picked up.
+ *
+ * @author Zim Development Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VelocityStore {
+
+    private final TransactionRepository transactionRepository;
+
+    @Value("${app.velocity.max-senders:100000}")
+    private int maxSenders;
+
+    @Value("${app.velocity.reload-seconds:300}")
+    private long reloadSeconds;
+
+    @Value("${app.velocity.warmup-hours:24}")
+    private long warmupHours;
+
+    private static final int RETENTION_DAYS = 32;
+    private static final int RECENT_ID_MINUTES = 10;
+    private static final BigDecimal ROUND_AMOUNT = new BigDecimal("100");
+
+    private Map<Long, SenderBuckets> senders;
+
+    @PostConstruct
+    void init() {
+        senders = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SenderBuckets> eldest) {
+                return size() > maxSenders;
+            }
+        });
+    }
+
+    /**
+     * Load the senders active in the last {@code app.velocity.warmup-hours}
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<VelocitySample> samples = transactionRepository.findVelocitySamplesOfActiveSenders(
+                    now.minusDays(RETENTION_DAYS), now.minusHours(warmupHours));
+            for (VelocitySample sample : samples) {
+                SenderBuckets buckets = senders.computeIfAbsent(sample.getSenderId(), id -> new SenderBuckets());
+                synchronized (buckets) {
+                    buckets.add(sample.getId(), sample.getCreatedAt(), sample.getAmount());
+                    buckets.loadedAt = now;
+                }
+            }
+            log.info("Velocity store warmed with {} transactions", samples.size());
+        } catch (Exception e) {
+            log.error("Error warming velocity store: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add committed transactions to their senders' windows. Senders not in
+     * memory are skipped; their next check loads them from the database.
+     *
+     * @param event Transactions written by the committed transaction
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionsCreated(TransactionsCreated event) {
+        for (Sent sent : event.sent()) {
+            SenderBuckets buckets = senders.get(sent.senderId());
+            if (buckets != null) {
+                synchronized (buckets) {
+                    buckets.add(sent.id(), sent.createdAt(), sent.amount());
+                }
+            }
+        }
+    }
+
+    /**
+     * Totals of what a user sent in a window, committed transactions only
+     *
+     * @param senderId Sender user ID
+     * @param start Window start (inclusive, to the minute)
+     * @param end Window end (inclusive, to the minute)
+     * @return Window totals
+     */
+    public Window window(Long senderId, LocalDateTime start, LocalDateTime end) {
+        return windowIncluding(senderId, null, start, end);
+    }
+
+    /**
+     * Totals of what a user sent in a window, also counting a transaction
+     * under check when the user sent it and it has not been committed yet
+     *
+     * @param senderId Sender user ID
+     * @param transaction Transaction being checked, or null
+     * @param start Window start (inclusive, to the minute)
+     * @param end Window end (inclusive, to the minute)
+     * @return Window totals
+     */
+    public Window windowIncluding(Long senderId, Transaction transaction, LocalDateTime start, LocalDateTime end) {
+        Sent pending = transaction != null && transaction.getSender() != null
+                && senderId.equals(transaction.getSender().getId())
+                ? new Sent(transaction.getId(), senderId, transaction.getCreatedAt(), transaction.getAmount())
+                : null;
+        return windowsIncluding(senderId, pending, new LocalDateTime[] {start}, end)[0];
+    }
+
+    /**
+     * Totals of what a user sent in several windows ending at the same time,
+     * answered in one pass over the sender's buckets. A pending transaction
+     * is counted in each window it falls in unless it has already been
+     * committed.
+     *
+     * @param senderId Sender user ID
+     * @param pending Transaction being sent, or null
+     * @param starts Window starts (inclusive, to the minute)
+     * @param end Window end (inclusive, to the minute)
+     * @return Window totals, in the order of {@code starts}
+     */
+    public Window[] windowsIncluding(Long senderId, Sent pending, LocalDateTime[] starts, LocalDateTime end) {
+        LocalDateTime retention = LocalDateTime.now().minusDays(RETENTION_DAYS);
+        long[] fromMinutes = new long[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i].isBefore(retention)) {
+                throw new IllegalArgumentException("Velocity windows cannot reach back more than " + RETENTION_DAYS + " days");
+            }
+            fromMinutes[i] = minuteOf(starts[i]);
+        }
+        long toMinute = minuteOf(end);
+        SenderBuckets buckets = load(senderId);
+        Window[] windows;
+        boolean recorded;
+        synchronized (buckets) {
+            windows = buckets.sums(fromMinutes, toMinute);
+            recorded = pending != null && buckets.contains(pending.id());
+        }
+
+        if (pending == null || recorded) {
+            return windows;
+        }
+        long minute = minuteOf(pending.createdAt() != null ? pending.createdAt() : LocalDateTime.now());
+        int round = isRoundAmount(pending.amount()) ? 1 : 0;
+        for (int i = 0; i < windows.length; i++) {
+            if (minute >= fromMinutes[i] && minute <= toMinute) {
+                windows[i] = new Window(windows[i].count() + 1, windows[i].amount().add(pending.amount()),
+                        windows[i].roundAmountCount() + round);
+            }
+        }
+        return windows;
+    }
+
+    private SenderBuckets load(Long senderId) {
+        SenderBuckets buckets = senders.computeIfAbsent(senderId, id -> new SenderBuckets());
+        synchronized (buckets) {
+            LocalDateTime now = LocalDateTime.now();
+            if (buckets.loadedAt == null || buckets.loadedAt.isBefore(now.minusSeconds(reloadSeconds))) {
+                buckets.clear();
+                for (VelocitySample sample : transactionRepository.findVelocitySamplesBySender(
+                        senderId, now.minusDays(RETENTION_DAYS))) {
+                    buckets.add(sample.getId(), sample.getCreatedAt(), sample.getAmount());
+                }
+                buckets.loadedAt = now;
+            }
+        }
+        return buckets;
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static boolean isRoundAmount(BigDecimal amount) {
+        return amount.remainder(ROUND_AMOUNT).compareTo(BigDecimal.ZERO) == 0;
+    }
+
+    /**
+     * One sender's buckets, oldest first, in a power-of-two ring. Commits
+     * arrive almost in time order, so new samples land in the newest bucket
+     * or one just behind it. IDs of the last few minutes' samples are kept so
+     * a transaction seen both by a load (from inside its own, not yet
+     * committed, database transaction) and by its commit is counted once.
+     */
+    private static final class SenderBuckets {
+        private long[] minutes = new long[8];
+        private int[] counts = new int[8];
+        private int[] roundCounts = new int[8];
+        private BigDecimal[] amounts = new BigDecimal[8];
+        private int head;
+        private int size;
+        private final Map<Long, Long> recentIds = new LinkedHashMap<>();
+        private LocalDateTime loadedAt;
+
+        void add(Long id, LocalDateTime createdAt, BigDecimal amount) {
+            long minute = minuteOf(createdAt);
+            expire();
+            if (minute < minuteOf(LocalDateTime.now().minusDays(RETENTION_DAYS)) || contains(id)) {
+                return;
+            }
+            if (minute >= minuteOf(LocalDateTime.now().minusMinutes(RECENT_ID_MINUTES))) {
+                recentIds.put(id, minute);
+            }
+
+            int i = size - 1;
+            while (i >= 0 && minutes[slot(i)] > minute) {
+                i--;
+            }
+            if (i < 0 || minutes[slot(i)] != minute) {
+                insertAt(i + 1, minute);
+                i++;
+            }
+            int slot = slot(i);
+            counts[slot]++;
+            amounts[slot] = amounts[slot].add(amount);
+            if (isRoundAmount(amount)) {
+                roundCounts[slot]++;
+            }
+        }
+
+        Window[] sums(long[] fromMinutes, long toMinute) {
+            expire();
+            long oldest = Long.MAX_VALUE;
+            for (long fromMinute : fromMinutes) {
+                oldest = Math.min(oldest, fromMinute);
+            }
+            int[] count = new int[fromMinutes.length];
+            int[] roundCount = new int[fromMinutes.length];
+            BigDecimal[] amount = new BigDecimal[fromMinutes.length];
+            Arrays.fill(amount, BigDecimal.ZERO);
+            for (int i = size - 1; i >= 0 && minutes[slot(i)] >= oldest; i--) {
+                int slot = slot(i);
+                if (minutes[slot] > toMinute) {
+                    continue;
+                }
+                for (int w = 0; w < fromMinutes.length; w++) {
+                    if (minutes[slot] >= fromMinutes[w]) {
+                        count[w] += counts[slot];
+                        roundCount[w] += roundCounts[slot];
+                        amount[w] = amount[w].add(amounts[slot]);
+                    }
+                }
+            }
+            Window[] windows = new Window[fromMinutes.length];
+            for (int w = 0; w < windows.length; w++) {
+                windows[w] = new Window(count[w], amount[w], roundCount[w]);
+            }
+            return windows;
+        }
+
+        boolean contains(Long id) {
+            return id != null && recentIds.containsKey(id);
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+            recentIds.clear();
+        }
+
+        private void expire() {
+            long recent = minuteOf(LocalDateTime.now().minusMinutes(RECENT_ID_MINUTES));
+            recentIds.values().removeIf(minute -> minute < recent);
+            long oldest = minuteOf(LocalDateTime.now().minusDays(RETENTION_DAYS));
+            while (size > 0 && minutes[head] < oldest) {
+                amounts[head] = null;
+                head = (head + 1) & (minutes.length - 1);
+                size--;
+            }
+        }
+
+        private void insertAt(int index, long minute) {
+            if (size == minutes.length) {
+                grow();
+            }
+            for (int i = size; i > index; i--) {
+                int to = slot(i);
+                int from = slot(i - 1);
+                minutes[to] = minutes[from];
+                counts[to] = counts[from];
+                roundCounts[to] = roundCounts[from];
+                amounts[to] = amounts[from];
+            }
+            int slot = slot(index);
+            minutes[slot] = minute;
+            counts[slot] = 0;
+            roundCounts[slot] = 0;
+            amounts[slot] = BigDecimal.ZERO;
+            size++;
+        }
+
+        private void grow() {
+            int capacity = minutes.length * 2;
+            long[] newMinutes = new long[capacity];
+            int[] newCounts = new int[capacity];
+            int[] newRoundCounts = new int[capacity];
+            BigDecimal[] newAmounts = new BigDecimal[capacity];
+            for (int i = 0; i < size; i++) {
+                int slot = slot(i);
+                newMinutes[i] = minutes[slot];
+                newCounts[i] = counts[slot];
+                newRoundCounts[i] = roundCounts[slot];
+                newAmounts[i] = amounts[slot];
+            }
+            minutes = newMinutes;
+            counts = newCounts;
+            roundCounts = newRoundCounts;
+            amounts = newAmounts;
+            head = 0;
+        }
+
+        private int slot(int index) {
+            return (head + index) & (minutes.length - 1);
+        }
+    }
+
+    /**
+     * What a user sent in a window
+     *
+     * @param count Number of transactions
+     * @param amount Total amount
+     * @param roundAmountCount Number of transactions for a multiple of 100
+     */
+    public record Window(int count, BigDecimal amount, int roundAmountCount) {}
+
+    /**
+     * A transaction as seen by the velocity windows
+     */
+    public record Sent(Long id, Long senderId, LocalDateTime createdAt, BigDecimal amount) {}
+
+    /**
+     * Published when transactions are created; applied to the windows once
+     * the creating transaction commits
+     *
+     * @param sent Created transactions that have a sender
+     */
+    public record TransactionsCreated(List<Sent> sent) {
+
+        public static TransactionsCreated of(List<Transaction> transactions) {
+            return new TransactionsCreated(transactions.stream()
+                    .filter(transaction -> transaction.getSender() != null)
+                    .map(transaction -> new Sent(transaction.getId(), transaction.getSender().getId(),
+                            transaction.getCreatedAt(), transaction.getAmount()))
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.zim.paypal.service;
+
+/**
+ * Holds the current snapshot of a {@link SnapshotEngine}. A rebuilt snapshot
+ * replaces the current one under the next version only if its content
+ * differs; an unchanged rebuild keeps the current snapshot and version, so
+ * results that record the version stay comparable across refreshes.
+ *
+ * @param <T> Snapshot type
+ * @author Zim Development Team
+ */
+public final class VersionedSnapshot<T extends VersionedSnapshot.Versioned<T>> {
+
+    private volatile T current;
+
+    /**
+     * Current snapshot
+     *
+     * @return Snapshot, or null before the first offer
+     */
+    public T get() {
+        return current;
+    }
+
+    /**
+     * Swap in a rebuilt snapshot if its content changed
+     *
+     * @param candidate Rebuilt snapshot; its own version is ignored
+     * @return true if the candidate was swapped in
+     */
+    public synchronized boolean offer(T candidate) {
+        T snapshot = current;
+        if (snapshot != null && snapshot.sameContentAs(candidate)) {
+            return false;
+        }
+        current = candidate.withVersion(snapshot != null ? snapshot.getVersion() + 1 : 1);
+        return true;
+    }
+
+    /**
+     * A snapshot that records its version
+     *
+     * @param <T> Snapshot type
+     */
+    public interface Versioned<T> {
+
+        long getVersion();
+
+        T withVersion(long version);
+
+        boolean sameContentAs(T other);
+    }
+}
@@ -2,6 +2,7 @@ package com.zim.paypal.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zim.paypal.model.dto.WebhookDto;
+import com.zim.paypal.model.dto.WebhookEventView;
 import com.zim.paypal.model.entity.*;
 import com.zim.paypal.repository.WebhookEventRepository;
 import com.zim.paypal.repository.WebhookRepository;
@@ -273,16 +274,16 @@ public class WebhookService {
     }
 
     /**
-     * Get webhook events
+     * Get webhook deliveries
      * 
-     * @param webhook Webhook entity
-     * @param pageable Pageable object
-     * @return Page of webhook events
+     * @param webhookId Webhook ID
+     * @param pageable Pageable
+     * @return Page of delivery views
      */
     @Transactional(readOnly = true)
-    public org.springframework.data.domain.Page<WebhookEvent> getWebhookEvents(
-            Webhook webhook, org.springframework.data.domain.Pageable pageable) {
-        return webhookEventRepository.findByWebhookOrderByCreatedAtDesc(webhook, pageable);
+    public org.springframework.data.domain.Page<WebhookEventView> getWebhookEvents(
+            Long webhookId, org.springframework.data.domain.Pageable pageable) {
+        return webhookEventRepository.findViewsByWebhookId(webhookId, pageable);
     }
 
     /**
@@ -0,0 +1,287 @@
+package com.zim.paypal.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator for business identifiers (transaction, account, request numbers...).
+ * Identifiers are Snowflake-style: a time component, the node ID and a per-node
+ * sequence packed into the hex suffix after the type prefix, so they are unique
+ * across nodes without a database lookup and sort in creation order. The
+ * formats and lengths are the same as the previous random identifiers.
+ *
+ * The node ID is leased through {@link IdNodeLeaseStore}, so a second
+ * instance configured with the same one fails at startup. Identifiers are
+ * only issued for ticks up to a reservation kept a few seconds ahead in the
+ * lease; a new holder of the node ID, e.g. this instance after a restart,
+ * waits until that reservation has passed, so ticks borrowed from the future
+ * are never issued twice. The lease is renewed on a thread of its own, and
+ * no identifier is issued once it can no longer be confirmed.
+ *
+ * @author Zim Development Team
+ */
+@Component
+@Slf4j
+public class IdGenerator {
+
+    /** 2024-01-01T00:00:00Z */
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 7;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long LEASE_MILLIS = 30000;
+    private static final long RESERVE_AHEAD_MILLIS = 5000;
+    private static final long HEARTBEAT_MILLIS = 2000;
+    // Stop issuing this long before the lease could lapse, allowing for clock drift between hosts
+    private static final long LEASE_MARGIN_MILLIS = 5000;
+    private static final long RESERVATION_WAIT_MILLIS = 5000;
+
+    private final IdNodeLeaseStore leaseStore;
+
+    @Value("${app.id-generator.node-id}")
+    private long nodeId;
+
+    private final Map<IdType, Sequence> sequences = new EnumMap<>(IdType.class);
+
+    private final Object reservation = new Object();
+    // Identifiers may be issued for ticks ending at or before this time (epoch millis)
+    private volatile long reservedUntil;
+    // Latest tick end a caller is waiting for, which the next renewal reserves past
+    private final AtomicLong requestedUntil = new AtomicLong();
+    // Local time just before the lease was last extended
+    private volatile long leaseConfirmedAt;
+    private volatile boolean leaseLost;
+
+    private ScheduledExecutorService leaseExecutor;
+
+    public IdGenerator(IdNodeLeaseStore leaseStore) {
+        this.leaseStore = leaseStore;
+        for (IdType type : IdType.values()) {
+            sequences.put(type, new Sequence());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("app.id-generator.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        long previousReservation = leaseStore.claim(nodeId, LEASE_MILLIS);
+        long wait = previousReservation - System.currentTimeMillis();
+        if (wait >= 0) {
+            log.info("Waiting {} ms for identifiers reserved by the previous holder of node ID {}", wait + 1, nodeId);
+            try {
+                Thread.sleep(wait + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting out reserved identifiers", e);
+            }
+        }
+        renew();
+
+        // Not on the shared scheduler, where a slow job could hold the renewal past the lease
+        leaseExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-generator-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseExecutor.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        log.info("Identifier generator holds node ID {}", nodeId);
+    }
+
+    @PreDestroy
+    void release() {
+        if (leaseExecutor != null) {
+            leaseExecutor.shutdownNow();
+        }
+        leaseStore.release(nodeId);
+    }
+
+    /**
+     * Generate the next identifier of a type
+     *
+     * @param type Identifier type
+     * @return Identifier, e.g. TXN018F3A2B40C7001
+     */
+    public String next(IdType type) {
+        Layout layout = type.layout;
+        Sequence sequence = sequences.get(type);
+        long tick;
+        long seq;
+        while (true) {
+            ensureLeaseHeld();
+            long tickEnd;
+            synchronized (sequence) {
+                // Never move backwards if the wall clock does; when the sequence is
+                // exhausted, borrow the next tick instead of sleeping
+                tick = Math.max(layout.currentTick(), sequence.lastTick);
+                long value = sequence.value;
+                if (tick == sequence.lastTick) {
+                    value = (value + 1) & layout.sequenceMask;
+                    if (value == 0) {
+                        tick++;
+                    }
+                } else {
+                    value = 0;
+                }
+                if (tick > layout.maxTick) {
+                    throw new IllegalStateException("Identifier time range exhausted for " + type);
+                }
+                tickEnd = layout.tickEndMillis(tick);
+                if (tickEnd <= reservedUntil) {
+                    sequence.lastTick = tick;
+                    sequence.value = value;
+                    seq = value;
+                    break;
+                }
+            }
+            // Borrowed past the reservation: wait for the lease thread to extend it
+            awaitReservation(tickEnd);
+        }
+
+        long value = (tick << (NODE_BITS + layout.sequenceBits)) | (nodeId << layout.sequenceBits) | seq;
+        return type.prefix + toFixedHex(value, layout.hexLength);
+    }
+
+    void heartbeat() {
+        try {
+            renew();
+        } catch (Exception e) {
+            log.error("Error extending identifier node lease: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Extend the lease and keep the reservation ahead of the clock and of
+     * any waiting caller
+     */
+    private void renew() {
+        long attemptedAt = System.currentTimeMillis();
+        long until = Math.max(Math.max(attemptedAt, requestedUntil.get()) + RESERVE_AHEAD_MILLIS, reservedUntil);
+        if (!leaseStore.extend(nodeId, LEASE_MILLIS, until)) {
+            leaseLost = true;
+            synchronized (reservation) {
+                reservation.notifyAll();
+            }
+            throw new IllegalStateException("Identifier node ID " + nodeId + " was taken over by another instance");
+        }
+        synchronized (reservation) {
+            reservedUntil = until;
+            leaseConfirmedAt = attemptedAt;
+            reservation.notifyAll();
+        }
+    }
+
+    private void ensureLeaseHeld() {
+        if (leaseLost) {
+            throw new IllegalStateException("Identifier node ID " + nodeId + " was taken over by another instance");
+        }
+        if (System.currentTimeMillis() >= leaseConfirmedAt + LEASE_MILLIS - LEASE_MARGIN_MILLIS) {
+            throw new IllegalStateException("Lease of identifier node ID " + nodeId + " could not be confirmed");
+        }
+    }
+
+    private void awaitReservation(long tickEnd) {
+        if (requestedUntil.getAndAccumulate(tickEnd, Math::max) < tickEnd) {
+            leaseExecutor.execute(this::heartbeat);
+        }
+        long deadline = System.currentTimeMillis() + RESERVATION_WAIT_MILLIS;
+        synchronized (reservation) {
+            while (reservedUntil < tickEnd && !leaseLost) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Timed out extending the identifier reservation of node ID " + nodeId);
+                }
+                try {
+                    reservation.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while extending the identifier reservation", e);
+                }
+            }
+        }
+    }
+
+    private static String toFixedHex(long value, int length) {
+        String hex = Long.toHexString(value).toUpperCase();
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = hex.length(); i < length; i++) {
+            sb.append('0');
+        }
+        return sb.append(hex).toString();
+    }
+
+    private static final class Sequence {
+        private long lastTick = -1;
+        private long value;
+    }
+
+    /**
+     * Bit layout of the hex suffix
+     */
+    private enum Layout {
+        /** 15 hex chars: 41 bits of milliseconds, 7 node bits, 12 sequence bits */
+        LONG(15, 1, 12),
+        /** 12 hex chars: 34 bits of 100ms ticks, 7 node bits, 7 sequence bits */
+        SHORT(12, 100, 7);
+
+        private final int hexLength;
+        private final long tickMillis;
+        private final int sequenceBits;
+        private final long sequenceMask;
+        private final long maxTick;
+
+        Layout(int hexLength, long tickMillis, int sequenceBits) {
+            this.hexLength = hexLength;
+            this.tickMillis = tickMillis;
+            this.sequenceBits = sequenceBits;
+            this.sequenceMask = (1L << sequenceBits) - 1;
+            this.maxTick = (1L << (hexLength * 4 - NODE_BITS - sequenceBits)) - 1;
+        }
+
+        private long currentTick() {
+            return (System.currentTimeMillis() - EPOCH_MILLIS) / tickMillis;
+        }
+
+        private long tickEndMillis(long tick) {
+            return EPOCH_MILLIS + (tick + 1) * tickMillis;
+        }
+    }
+
+    /**
+     * Identifier types with their prefix and length
+     */
+    public enum IdType {
+        TRANSACTION("TXN", Layout.LONG),
+        BATCH("BAT", Layout.LONG),
+        MONEY_REQUEST("REQ", Layout.LONG),
+        STATEMENT("STMT", Layout.LONG),
+        ACCOUNT("ZIM", Layout.SHORT),
+        SUPPORT_TICKET("TKT", Layout.SHORT),
+        BILL_SPLIT("SPLIT", Layout.SHORT),
+        PAYMENT_LINK("PAY", Layout.SHORT),
+        PAYMENT_BUTTON("BTN", Layout.SHORT),
+        SUBSCRIPTION("SUB", Layout.SHORT),
+        REVERSAL("REV", Layout.SHORT),
+        SERVICE_PURCHASE("SRV", Layout.SHORT);
+
+        private final String prefix;
+        private final Layout layout;
+
+        IdType(String prefix, Layout layout) {
+            this.prefix = prefix;
+            this.layout = layout;
+        }
+    }
+}
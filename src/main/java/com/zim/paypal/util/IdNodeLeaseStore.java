@@ -0,0 +1,122 @@
+package com.zim.paypal.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Leases of identifier node IDs in the id_generator_nodes table, so no two
+ * running instances issue identifiers under the same node ID. The lease also
+ * records how far ahead its holder may have issued identifiers.
+ *
+ * @author Zim Development Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdNodeLeaseStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String host = hostName();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private static final String TAKE_OVER_SQL =
+            "UPDATE id_generator_nodes SET host = ?, instance_id = ?, lease_until = ? " +
+            "WHERE node_id = ? AND lease_until < ?";
+
+    private static final String EXTEND_SQL =
+            "UPDATE id_generator_nodes SET lease_until = ?, reserved_until = ? " +
+            "WHERE node_id = ? AND instance_id = ?";
+
+    /**
+     * Claim a node ID for this instance. A lease still held by an earlier
+     * process on this host is waited for, up to twice the lease length.
+     *
+     * @param nodeId Node ID
+     * @param leaseMillis Lease length
+     * @return Time (epoch millis) up to which earlier holders may have issued identifiers
+     * @throws IllegalStateException if another instance holds the node ID
+     */
+    public long claim(long nodeId, long leaseMillis) {
+        long deadline = System.currentTimeMillis() + 2 * leaseMillis;
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (jdbcTemplate.update(TAKE_OVER_SQL, host, instanceId, now + leaseMillis, nodeId, now) == 1) {
+                return jdbcTemplate.queryForObject(
+                        "SELECT reserved_until FROM id_generator_nodes WHERE node_id = ?", Long.class, nodeId);
+            }
+
+            List<Holder> holders = jdbcTemplate.query(
+                    "SELECT host, lease_until FROM id_generator_nodes WHERE node_id = ?",
+                    (rs, rowNum) -> new Holder(rs.getString("host"), rs.getLong("lease_until")), nodeId);
+            if (holders.isEmpty()) {
+                try {
+                    jdbcTemplate.update("INSERT INTO id_generator_nodes " +
+                            "(node_id, host, instance_id, lease_until, reserved_until) VALUES (?, ?, ?, ?, 0)",
+                            nodeId, host, instanceId, now + leaseMillis);
+                    return 0;
+                } catch (DuplicateKeyException e) {
+                    continue; // Claimed concurrently; look again
+                }
+            }
+
+            Holder holder = holders.get(0);
+            if (!host.equals(holder.host()) || now >= deadline) {
+                throw new IllegalStateException("app.id-generator.node-id " + nodeId + " is in use by " +
+                        holder.host() + "; every instance needs its own node ID");
+            }
+            // An earlier process on this host has not released it, e.g. after a crash
+            log.info("Waiting for the lease of node ID {} held by an earlier process to lapse", nodeId);
+            sleep(Math.min(holder.leaseUntil(), deadline) - now + 1);
+        }
+    }
+
+    /**
+     * Extend this instance's lease and record how far ahead it may issue
+     *
+     * @param nodeId Node ID
+     * @param leaseMillis Lease length from now
+     * @param reservedUntil Time (epoch millis) up to which identifiers may be issued
+     * @return false if the lease was lost to another instance
+     */
+    public boolean extend(long nodeId, long leaseMillis, long reservedUntil) {
+        return jdbcTemplate.update(EXTEND_SQL, System.currentTimeMillis() + leaseMillis, reservedUntil,
+                nodeId, instanceId) == 1;
+    }
+
+    /**
+     * Release this instance's lease, keeping its reservation for the next holder
+     *
+     * @param nodeId Node ID
+     */
+    public void release(long nodeId) {
+        jdbcTemplate.update("UPDATE id_generator_nodes SET lease_until = 0 WHERE node_id = ? AND instance_id = ?",
+                nodeId, instanceId);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(1, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while claiming an identifier node ID", e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private record Holder(String host, long leaseUntil) {}
+}
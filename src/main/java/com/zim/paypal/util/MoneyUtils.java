@@ -0,0 +1,26 @@
+package com.zim.paypal.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions for amounts compared as whole cents on hot paths, such as
+ * fraud rules and account limits
+ *
+ * @author Zim Development Team
+ */
+public final class MoneyUtils {
+
+    private MoneyUtils() {
+    }
+
+    /**
+     * Amount in cents, rounded half up to two decimals
+     *
+     * @param amount Amount
+     * @return Amount in cents
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,44 @@
+-- Add Double-Entry Ledger Journal
+-- Version 23.0.0
+-- Append-only journal of balanced debit/credit legs plus per-account balance checkpoints
+
+-- Ledger entries table (append-only)
+CREATE TABLE ledger_entries (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT,
+    account_id BIGINT,
+    ledger_account VARCHAR(30) NOT NULL,
+    entry_type VARCHAR(10) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    currency_code VARCHAR(3) NOT NULL DEFAULT 'USD',
+    description VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_ledger_account FOREIGN KEY (account_id) REFERENCES accounts(id)
+);
+
+CREATE INDEX idx_ledger_account_entry ON ledger_entries(account_id, id);
+CREATE INDEX idx_ledger_account_created ON ledger_entries(account_id, created_at);
+CREATE INDEX idx_ledger_transaction ON ledger_entries(transaction_id);
+
+-- Ledger snapshots table (balance checkpoints)
+CREATE TABLE ledger_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    balance DECIMAL(19,2) NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    snapshot_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_ledger_snapshot_account FOREIGN KEY (account_id) REFERENCES accounts(id)
+);
+
+CREATE INDEX idx_ledger_snapshot_account ON ledger_snapshots(account_id, snapshot_at);
+CREATE INDEX idx_ledger_snapshot_entry ON ledger_snapshots(last_entry_id);
+
+-- Open the journal with existing balances so it reconciles with accounts.balance
+INSERT INTO ledger_entries (account_id, ledger_account, entry_type, amount, currency_code, description)
+SELECT id, 'WALLET', 'CREDIT', balance, currency_code, 'Opening balance'
+FROM accounts WHERE balance > 0;
+
+INSERT INTO ledger_entries (account_id, ledger_account, entry_type, amount, currency_code, description)
+SELECT NULL, 'OPENING_BALANCE', 'DEBIT', balance, currency_code, 'Opening balance'
+FROM accounts WHERE balance > 0;
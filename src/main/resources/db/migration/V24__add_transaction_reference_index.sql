@@ -0,0 +1,5 @@
+-- Add Transaction Reference Index
+-- Version 24.0.0
+-- Bulk payouts share a batch reference number and are looked up by it
+
+CREATE INDEX idx_transaction_reference ON transactions(reference_number);
@@ -0,0 +1,23 @@
+-- Add Transactional Outbox
+-- Version 26.0.0
+-- Side effects (notifications, webhooks, rewards, batch risk scoring) are recorded with the
+-- money movement and dispatched after commit
+
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT,
+    user_id BIGINT,
+    reference VARCHAR(100),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    completed_consumers VARCHAR(255),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    claim_token VARCHAR(36),
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE INDEX idx_outbox_dispatch ON outbox_events(status, next_attempt_at);
+CREATE INDEX idx_outbox_claim ON outbox_events(claim_token);
@@ -0,0 +1,18 @@
+-- Align Fee Schedule Defaults
+-- Version 27.0.0
+-- Wallet transfers and payments are now priced from the charges and taxes tables instead of a
+-- hard-coded 2.9% fee (min 0.30, max 2.99). Seeded rows that no admin has edited are aligned
+-- so existing installs keep charging exactly what they charged before.
+
+UPDATE charges
+SET percentage_rate = 2.90, min_amount = 0.30, max_amount = 2.99, updated_at = CURRENT_TIMESTAMP
+WHERE charge_code IN ('TRANSFER_FEE', 'PAYMENT_FEE')
+  AND charge_method = 'PERCENTAGE'
+  AND updated_by_id IS NULL;
+
+-- The seeded taxes apply to every transaction type but were never charged on any money movement;
+-- keep them inactive until an admin enables them deliberately
+UPDATE taxes
+SET is_active = FALSE, updated_at = CURRENT_TIMESTAMP
+WHERE tax_code IN ('VAT', 'TRANSACTION_TAX')
+  AND updated_by_id IS NULL;
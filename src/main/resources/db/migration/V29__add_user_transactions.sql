@@ -0,0 +1,30 @@
+-- Add User Transaction Participation Table
+-- Version 29.0.0
+-- One row per user taking part in a transaction (sender OUT, receiver IN, depositing account
+-- owner IN), so per-user history, reports and statements read one (user_id, created_at) range
+-- instead of filtering sender_id OR receiver_id
+
+CREATE TABLE user_transactions (
+    user_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    transaction_id BIGINT NOT NULL,
+    direction VARCHAR(10) NOT NULL,
+    PRIMARY KEY (user_id, created_at, transaction_id),
+    CONSTRAINT fk_user_transaction_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_user_transaction_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_user_transaction_transaction ON user_transactions(transaction_id);
+
+-- Backfill existing transactions
+INSERT INTO user_transactions (user_id, created_at, transaction_id, direction)
+SELECT sender_id, created_at, id, 'OUT' FROM transactions WHERE sender_id IS NOT NULL;
+
+INSERT INTO user_transactions (user_id, created_at, transaction_id, direction)
+SELECT receiver_id, created_at, id, 'IN' FROM transactions
+WHERE receiver_id IS NOT NULL AND (sender_id IS NULL OR sender_id <> receiver_id);
+
+INSERT INTO user_transactions (user_id, created_at, transaction_id, direction)
+SELECT a.user_id, t.created_at, t.id, 'IN' FROM transactions t
+JOIN accounts a ON a.id = t.account_id
+WHERE t.sender_id IS NULL AND t.receiver_id IS NULL;
@@ -0,0 +1,35 @@
+-- Add Archive Segments
+-- Version 31.0.0
+-- Rows past the archive horizon are moved out of the OLTP tables into compressed, checksummed
+-- segment files on disk. archive_segments catalogues the files; archive_segment_owners is a sparse
+-- index with one row per user or account per segment (not per archived row) and its time span
+
+CREATE TABLE archive_segments (
+    id BIGSERIAL PRIMARY KEY,
+    record_type VARCHAR(30) NOT NULL,
+    file_path VARCHAR(500) NOT NULL UNIQUE,
+    row_count INTEGER NOT NULL,
+    byte_size BIGINT NOT NULL,
+    checksum VARCHAR(64) NOT NULL,
+    min_created_at TIMESTAMP NOT NULL,
+    max_created_at TIMESTAMP NOT NULL,
+    min_key VARCHAR(50),
+    max_key VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_archive_segment_created ON archive_segments(record_type, min_created_at, max_created_at);
+CREATE INDEX idx_archive_segment_key ON archive_segments(record_type, min_key, max_key);
+
+CREATE TABLE archive_segment_owners (
+    owner_type VARCHAR(10) NOT NULL,
+    owner_id BIGINT NOT NULL,
+    segment_id BIGINT NOT NULL,
+    row_count INTEGER NOT NULL,
+    min_created_at TIMESTAMP NOT NULL,
+    max_created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (owner_type, owner_id, segment_id),
+    CONSTRAINT fk_archive_owner_segment FOREIGN KEY (segment_id) REFERENCES archive_segments(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_archive_owner_segment ON archive_segment_owners(segment_id);
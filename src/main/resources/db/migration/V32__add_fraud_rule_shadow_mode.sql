@@ -0,0 +1,6 @@
+-- Add Fraud Rule Shadow Mode
+-- Version 32.0.0
+-- Shadow rules are scored after commit against every transfer but never affect its outcome,
+-- so a new rule set can be observed before it goes live
+
+ALTER TABLE fraud_rules ADD COLUMN is_shadow BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,12 @@
+-- Add ID Generator Node Leases
+-- Version 34.0.0
+-- One row per identifier node ID: the instance holding it, until when (epoch millis),
+-- and up to when it may have issued identifiers, which the next holder waits out
+
+CREATE TABLE id_generator_nodes (
+    node_id INTEGER PRIMARY KEY,
+    host VARCHAR(255) NOT NULL,
+    instance_id VARCHAR(36) NOT NULL,
+    lease_until BIGINT NOT NULL,
+    reserved_until BIGINT NOT NULL
+);
@@ -0,0 +1,24 @@
+-- Add Risk Holds
+-- Version 35.0.0
+-- A transfer held after risk scoring keeps its amount held on the receiver's account until
+-- the reversal opened for it is rejected or processed; held funds cannot be debited.
+-- Holds are requested by the disabled 'compliance' system user, which cannot sign in.
+
+ALTER TABLE accounts ADD COLUMN held_amount DECIMAL(19,2) NOT NULL DEFAULT 0.00;
+
+ALTER TABLE transaction_reversals ADD COLUMN held_account_id BIGINT;
+ALTER TABLE transaction_reversals ADD CONSTRAINT fk_reversal_held_account FOREIGN KEY (held_account_id) REFERENCES accounts(id) ON DELETE SET NULL;
+
+INSERT INTO users (username, email, password, first_name, last_name, role, account_enabled, email_verified, created_at, updated_at)
+SELECT
+    'compliance',
+    'compliance@zimpaypal.com',
+    '!', -- matches no password
+    'Compliance',
+    'System',
+    'USER',
+    FALSE,
+    TRUE,
+    CURRENT_TIMESTAMP,
+    CURRENT_TIMESTAMP
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = 'compliance');
@@ -0,0 +1,72 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.OutboxEvent;
+import com.zim.paypal.model.entity.RiskScore;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.RiskScoreRepository;
+import com.zim.paypal.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that flagged bulk payout items are held like deferred transfers
+ */
+public class BatchTransferFollowUpServiceTest {
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final RiskScoreRepository riskScoreRepository = mock(RiskScoreRepository.class);
+    private final AmlService amlService = mock(AmlService.class);
+    private final RiskHoldHandler holdHandler = mock(RiskHoldHandler.class);
+
+    private final BatchTransferFollowUpService service = new BatchTransferFollowUpService(transactionRepository,
+            new DeferredRiskConsumer(transactionRepository, riskScoreRepository, mock(FraudDetectionService.class),
+                    amlService, mock(RiskContextLoader.class), List.of(holdHandler), mock(TransactionTemplate.class)));
+
+    private final OutboxEvent event = OutboxEvent.builder()
+            .eventType(OutboxEvent.EventType.BATCH_TRANSFER_COMPLETED).reference("BATCH1").build();
+
+    @Test
+    public void flaggedItemsAreHeld() {
+        Transaction clean = scored("TXN1", RiskScore.RiskLevel.LOW);
+        Transaction critical = scored("TXN2", RiskScore.RiskLevel.CRITICAL);
+        Transaction amlFailed = scored("TXN3", RiskScore.RiskLevel.LOW);
+        when(amlService.hasFailedCheck(amlFailed)).thenReturn(true);
+        when(transactionRepository.findByReferenceNumberWithParties("BATCH1"))
+                .thenReturn(List.of(clean, critical, amlFailed));
+
+        service.handle(event);
+
+        verify(holdHandler, never()).onHold(eq(clean), anyString());
+        verify(holdHandler).onHold(eq(critical), anyString());
+        verify(holdHandler).onHold(amlFailed, "failed AML compliance check");
+    }
+
+    @Test
+    public void failedItemsHaveTheEventRetried() {
+        Transaction critical = scored("TXN2", RiskScore.RiskLevel.CRITICAL);
+        Transaction broken = Transaction.builder().id(9L).transactionNumber("TXN9").build();
+        when(riskScoreRepository.findByTransaction(broken)).thenThrow(new IllegalStateException("down"));
+        when(transactionRepository.findByReferenceNumberWithParties("BATCH1")).thenReturn(List.of(broken, critical));
+
+        assertThrows(IllegalStateException.class, () -> service.handle(event));
+        verify(holdHandler).onHold(eq(critical), anyString());
+    }
+
+    private Transaction scored(String transactionNumber, RiskScore.RiskLevel riskLevel) {
+        Transaction transaction = Transaction.builder().transactionNumber(transactionNumber).build();
+        when(riskScoreRepository.findByTransaction(transaction))
+                .thenReturn(Optional.of(RiskScore.builder().transaction(transaction).riskLevel(riskLevel).build()));
+        return transaction;
+    }
+}
@@ -0,0 +1,132 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Currency;
+import com.zim.paypal.model.entity.ExchangeRate;
+import com.zim.paypal.repository.CurrencyRepository;
+import com.zim.paypal.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests direct and triangulated rates and the expiry of the rate matrix
+ */
+public class ExchangeRateEngineTest {
+
+    private static final Currency USD = currency(1L, "USD", true);
+    private static final Currency EUR = currency(2L, "EUR", false);
+    private static final Currency GBP = currency(3L, "GBP", false);
+    private static final Currency JPY = currency(4L, "JPY", false);
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final ExchangeRateRepository rateRepository = mock(ExchangeRateRepository.class);
+    private final CurrencyRepository currencyRepository = mock(CurrencyRepository.class);
+
+    @Test
+    public void latestOfOverlappingDirectRatesApplies() {
+        ExchangeRateEngine.RateMatrix matrix = matrix(
+                rate(USD, EUR, "0.800000", now.minusDays(2), null),
+                rate(USD, EUR, "0.900000", now.minusDays(1), null));
+
+        assertEquals(new BigDecimal("0.900000"), matrix.rate("USD", "EUR"));
+        assertEquals(new BigDecimal("90.00"), matrix.convert(new BigDecimal("100.00"), "USD", "EUR"));
+        assertEquals(1, matrix.getDirectRates());
+    }
+
+    @Test
+    public void missingLegToOrFromTheBaseIsTheInverseRate() {
+        ExchangeRateEngine.RateMatrix matrix = matrix(rate(USD, EUR, "0.900000", now.minusDays(1), null));
+
+        assertEquals(new BigDecimal("1.111111111111111"), matrix.rate("EUR", "USD"));
+    }
+
+    @Test
+    public void crossRatesAreTriangulatedThroughTheBase() {
+        ExchangeRateEngine.RateMatrix matrix = matrix(
+                rate(USD, EUR, "0.900000", now.minusDays(1), null),
+                rate(GBP, USD, "1.250000", now.minusDays(1), null));
+
+        assertEquals(new BigDecimal("1.125000000000"), matrix.rate("GBP", "EUR"));
+        assertEquals(new BigDecimal("112.50"), matrix.convert(new BigDecimal("100.00"), "GBP", "EUR"));
+        assertEquals(4, matrix.getTriangulatedRates(), "USD-GBP, EUR-USD, EUR-GBP and GBP-EUR");
+    }
+
+    @Test
+    public void missingRatesAndCurrenciesAreRejected() {
+        ExchangeRateEngine.RateMatrix matrix = matrix(rate(USD, EUR, "0.900000", now.minusDays(1), null));
+
+        assertEquals(BigDecimal.ONE, matrix.rate("JPY", "JPY"));
+        assertThrows(IllegalStateException.class, () -> matrix.rate("JPY", "USD"));
+        assertThrows(IllegalArgumentException.class, () -> matrix.rate("USD", "XYZ"));
+        assertThrows(IllegalArgumentException.class, () -> matrix.rate("XYZ", "USD"));
+    }
+
+    @Test
+    public void matrixExpiresWhenTheNextRateChangeIsDue() {
+        when(rateRepository.findNextEffectiveFrom(any())).thenReturn(now.plusHours(1));
+        ExchangeRateEngine.RateMatrix matrix = matrix(
+                rate(GBP, USD, "1.250000", now.minusDays(1), now.plusMinutes(30)));
+
+        assertEquals(now.plusMinutes(30).plusNanos(1), matrix.getValidUntil(), "The GBP rate ends first");
+        assertFalse(matrix.isExpired(now));
+        assertTrue(matrix.isExpired(now.plusMinutes(31)));
+    }
+
+    @Test
+    public void matrixWithoutScheduledChangesNeverExpires() {
+        ExchangeRateEngine.RateMatrix matrix = matrix(rate(USD, EUR, "0.900000", now.minusDays(1), null));
+
+        assertNull(matrix.getValidUntil());
+        assertFalse(matrix.isExpired(now.plusYears(1)));
+    }
+
+    @Test
+    public void failedRebuildOfAnExpiredMatrixKeepsTheCurrentOne() {
+        when(currencyRepository.findAll(any(Sort.class))).thenReturn(List.of(USD, EUR, GBP, JPY));
+        when(rateRepository.findEffectiveRates(any()))
+                .thenReturn(List.of(rate(USD, EUR, "0.900000", now.minusDays(1), null)))
+                .thenThrow(new DataAccessResourceFailureException("Database unavailable"));
+        when(rateRepository.findNextEffectiveFrom(any())).thenReturn(now.minusSeconds(1));
+        ExchangeRateEngine engine = new ExchangeRateEngine(rateRepository, currencyRepository);
+        engine.init();
+        ExchangeRateEngine.RateMatrix built = engine.getMatrix();
+
+        assertSame(built, engine.getMatrix());
+        assertEquals(new BigDecimal("0.900000"), engine.getMatrix().rate("USD", "EUR"));
+        verify(rateRepository, times(2)).findEffectiveRates(any());
+    }
+
+    private ExchangeRateEngine.RateMatrix matrix(ExchangeRate... rates) {
+        when(currencyRepository.findAll(any(Sort.class))).thenReturn(List.of(USD, EUR, GBP, JPY));
+        when(rateRepository.findEffectiveRates(any())).thenReturn(List.of(rates));
+        ExchangeRateEngine engine = new ExchangeRateEngine(rateRepository, currencyRepository);
+        engine.init();
+        return engine.getMatrix();
+    }
+
+    private static Currency currency(Long id, String code, boolean base) {
+        return Currency.builder().id(id).currencyCode(code).isBaseCurrency(base).isActive(true).build();
+    }
+
+    private static ExchangeRate rate(Currency from, Currency to, String rate, LocalDateTime effectiveFrom,
+                                     LocalDateTime effectiveTo) {
+        return ExchangeRate.builder().fromCurrency(from).toCurrency(to).rate(new BigDecimal(rate))
+                .effectiveFrom(effectiveFrom).effectiveTo(effectiveTo).isActive(true).build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Charge;
+import com.zim.paypal.model.entity.Tax;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.repository.ChargeRepository;
+import com.zim.paypal.repository.TaxRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the compiled fee schedule prices like the charge and tax entities
+ */
+public class FeeScheduleEngineTest {
+
+    @Test
+    public void quotesMatchEntityCalculations() {
+        List<Charge> charges = List.of(
+                Charge.builder().transactionType(Transaction.TransactionType.TRANSFER)
+                        .chargeMethod(Charge.ChargeMethod.PERCENTAGE).percentageRate(new BigDecimal("2.90"))
+                        .minAmount(new BigDecimal("0.30")).maxAmount(new BigDecimal("2.99")).build(),
+                Charge.builder().transactionType(Transaction.TransactionType.TRANSFER)
+                        .chargeMethod(Charge.ChargeMethod.FIXED_PLUS_PERCENTAGE).fixedAmount(new BigDecimal("0.25"))
+                        .percentageRate(new BigDecimal("0.35")).build(),
+                Charge.builder().transactionType(Transaction.TransactionType.WITHDRAWAL)
+                        .chargeMethod(Charge.ChargeMethod.FIXED).fixedAmount(new BigDecimal("2.00")).build());
+        List<Tax> taxes = List.of(
+                Tax.builder().taxRate(new BigDecimal("0.50")).build(),
+                Tax.builder().taxRate(new BigDecimal("15.00"))
+                        .effectiveFrom(LocalDateTime.now().plusDays(1)).build());
+
+        ChargeRepository chargeRepository = mock(ChargeRepository.class);
+        TaxRepository taxRepository = mock(TaxRepository.class);
+        when(chargeRepository.findByIsActiveTrue()).thenReturn(charges);
+        when(taxRepository.findByIsActiveTrue()).thenReturn(taxes);
+        FeeScheduleEngine engine = new FeeScheduleEngine(chargeRepository, taxRepository);
+        engine.init();
+
+        for (String value : new String[] {"0.01", "7.77", "50.00", "103.33", "250000.00"}) {
+            BigDecimal amount = new BigDecimal(value);
+            BigDecimal expected = BigDecimal.ZERO;
+            for (Charge charge : charges) {
+                if (charge.getTransactionType() == Transaction.TransactionType.TRANSFER) {
+                    expected = expected.add(charge.calculateCharge(amount));
+                }
+            }
+            for (Tax tax : taxes) {
+                expected = expected.add(tax.calculateTax(amount));
+            }
+            assertEquals(0, expected.compareTo(
+                    engine.calculateTotalFee(Transaction.TransactionType.TRANSFER, amount)), value);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.FraudRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of {@link FraudRuleEngine.RuleSet#evaluate} with no
+ * rule firing, the usual case, and with two rules firing. Not run by the
+ * tests; after {@code mvn test-compile} run the main method with the test
+ * classpath. It adds the GC profiler, the same as {@code -prof gc}, whose
+ * gc.alloc.rate.norm line is the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudRuleEngineBenchmark {
+
+    private FraudRuleEngine.RuleSet ruleSet;
+    private int[] quietCounts;
+    private int[] busyCounts;
+
+    @Setup
+    public void setUp() {
+        ruleSet = new FraudRuleEngine(null).compile(List.of(
+                rule(1L, FraudRule.RuleType.AMOUNT_THRESHOLD).thresholdAmount(new BigDecimal("1000.00")).build(),
+                rule(2L, FraudRule.RuleType.AMOUNT_THRESHOLD).thresholdAmount(new BigDecimal("5000.00")).build(),
+                rule(3L, FraudRule.RuleType.VELOCITY_CHECK).timeWindowMinutes(60).thresholdCount(5).build(),
+                rule(4L, FraudRule.RuleType.VELOCITY_CHECK).timeWindowMinutes(1440).thresholdCount(20).build(),
+                rule(5L, FraudRule.RuleType.STRUCTURING_DETECTION).thresholdAmount(new BigDecimal("10000.00")).build()));
+        quietCounts = new int[] {1, 3};
+        busyCounts = new int[] {6, 3};
+    }
+
+    @Benchmark
+    public FraudRuleEngine.Evaluation noRuleFires() {
+        return ruleSet.evaluate(2500, quietCounts);
+    }
+
+    @Benchmark
+    public FraudRuleEngine.Evaluation twoRulesFire() {
+        return ruleSet.evaluate(150000, busyCounts);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FraudRuleEngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    private static FraudRule.FraudRuleBuilder rule(Long id, FraudRule.RuleType ruleType) {
+        return FraudRule.builder().id(id).ruleName("Rule " + id).ruleCode("R" + id)
+                .ruleType(ruleType).actionType(FraudRule.ActionType.FLAG);
+    }
+}
@@ -0,0 +1,95 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.FraudRule;
+import com.zim.paypal.repository.FraudRuleRepository;
+import com.zim.paypal.util.MoneyUtils;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the compiled fraud rules score like the rule definitions
+ */
+public class FraudRuleEngineTest {
+
+    @Test
+    public void scoresFollowRuleThresholds() {
+        List<FraudRule> rules = new ArrayList<>(List.of(
+                rule(1L, FraudRule.RuleType.AMOUNT_THRESHOLD).thresholdAmount(new BigDecimal("1000.00")).build(),
+                rule(2L, FraudRule.RuleType.VELOCITY_CHECK).timeWindowMinutes(60).thresholdCount(5).build(),
+                rule(3L, FraudRule.RuleType.VELOCITY_CHECK).timeWindowMinutes(60).thresholdCount(10).build(),
+                rule(4L, FraudRule.RuleType.STRUCTURING_DETECTION).thresholdAmount(new BigDecimal("10000.00")).build(),
+                rule(5L, FraudRule.RuleType.GEOGRAPHIC_ANOMALY).build()));
+
+        FraudRuleRepository fraudRuleRepository = mock(FraudRuleRepository.class);
+        when(fraudRuleRepository.findByIsActiveTrue()).thenReturn(rules);
+        FraudRuleEngine engine = new FraudRuleEngine(fraudRuleRepository);
+        engine.init();
+
+        FraudRuleEngine.RuleSet ruleSet = engine.getRuleSet();
+        assertEquals(1, ruleSet.getVelocityWindowCount(), "Rules sharing a window share one count");
+        assertEquals(60, ruleSet.getVelocityWindow(0));
+
+        assertEquals(0, ruleSet.evaluate(cents("1000.00"), new int[] {4}).score());
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE,
+                ruleSet.evaluate(cents("1000.01"), new int[] {0}).score());
+        assertEquals(FraudRuleEngine.VELOCITY_SCORE,
+                ruleSet.evaluate(cents("10.00"), new int[] {5}).score());
+        assertEquals(2 * FraudRuleEngine.VELOCITY_SCORE,
+                ruleSet.evaluate(cents("10.00"), new int[] {10}).score());
+
+        // Structuring fires from 90% of the threshold up to just below it
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE,
+                ruleSet.evaluate(cents("8999.99"), new int[] {0}).score());
+        FraudRuleEngine.Evaluation structuring = ruleSet.evaluate(cents("9000.00"), new int[] {0});
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE + FraudRuleEngine.STRUCTURING_SCORE, structuring.score());
+        assertEquals(FraudRule.RuleType.STRUCTURING_DETECTION, structuring.firedRules()[1].ruleType());
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE,
+                ruleSet.evaluate(cents("10000.00"), new int[] {0}).score());
+
+        rules.add(rule(6L, FraudRule.RuleType.AMOUNT_THRESHOLD).thresholdAmount(new BigDecimal("5.00")).build());
+        engine.rebuild();
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE,
+                engine.getRuleSet().evaluate(cents("10.00"), new int[] {0}).score());
+    }
+
+    @Test
+    public void shadowRulesNeverReachTheLiveRuleSet() {
+        List<FraudRule> rules = new ArrayList<>(List.of(
+                rule(1L, FraudRule.RuleType.AMOUNT_THRESHOLD).thresholdAmount(new BigDecimal("1000.00")).build(),
+                rule(2L, FraudRule.RuleType.AMOUNT_THRESHOLD).thresholdAmount(new BigDecimal("50.00"))
+                        .isShadow(true).build()));
+
+        FraudRuleRepository fraudRuleRepository = mock(FraudRuleRepository.class);
+        when(fraudRuleRepository.findByIsActiveTrue()).thenReturn(rules);
+        FraudRuleEngine engine = new FraudRuleEngine(fraudRuleRepository);
+        engine.init();
+
+        assertEquals(0, engine.getRuleSet().evaluate(cents("100.00"), new int[0]).score());
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE,
+                engine.getShadowRuleSet().evaluate(cents("100.00"), new int[0]).score());
+
+        // Promoting the shadow rule moves it to the live rule set
+        rules.get(1).setIsShadow(false);
+        engine.rebuild();
+        assertEquals(FraudRuleEngine.AMOUNT_THRESHOLD_SCORE,
+                engine.getRuleSet().evaluate(cents("100.00"), new int[0]).score());
+        assertTrue(engine.getShadowRuleSet().isEmpty());
+    }
+
+    private static FraudRule.FraudRuleBuilder rule(Long id, FraudRule.RuleType ruleType) {
+        return FraudRule.builder().id(id).ruleName("Rule " + id).ruleCode("R" + id)
+                .ruleType(ruleType).actionType(FraudRule.ActionType.FLAG);
+    }
+
+    private static long cents(String amount) {
+        return MoneyUtils.toCents(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,84 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.IdempotencyKey;
+import com.zim.paypal.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that a key in progress is never claimed twice, even once its lease lapses
+ */
+public class IdempotencyServiceTest {
+
+    private static final String HASH = "hash";
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+
+    @Test
+    public void lapsedLeaseIsNotClaimedAgainAndTheFirstRequestStillCompletes() {
+        IdempotencyKey record = IdempotencyKey.builder().id(1L).scope("alice").idempotencyKey("k1")
+                .requestPath("/api/transactions/transfer").requestHash(HASH)
+                .expiresAt(LocalDateTime.now().plusMinutes(5)).build();
+        when(repository.saveAndFlush(any())).thenReturn(record)
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_scope_key"));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        IdempotencyService first = service();
+        IdempotencyService.Claim claim = first.claim("alice", "k1", "/api/transactions/transfer", HASH);
+        assertEquals(IdempotencyService.Outcome.PROCEED, claim.getOutcome());
+
+        // The first request is still running when its lease lapses, and a retry reaches another node
+        IdempotencyKey lapsed = IdempotencyKey.builder().id(1L).scope("alice").idempotencyKey("k1")
+                .requestPath("/api/transactions/transfer").requestHash(HASH)
+                .expiresAt(LocalDateTime.now().minusSeconds(1)).build();
+        when(repository.findByScopeAndIdempotencyKey("alice", "k1")).thenReturn(Optional.of(lapsed));
+        IdempotencyService other = service();
+        assertEquals(IdempotencyService.Outcome.IN_PROGRESS,
+                other.claim("alice", "k1", "/api/transactions/transfer", HASH).getOutcome());
+        verify(repository, never()).deleteById(anyLong());
+        verify(repository, never()).deleteIfExpired(anyLong(), any());
+
+        first.complete(claim, 200, "application/json", null, "{}");
+        when(repository.findByScopeAndIdempotencyKey("alice", "k1")).thenReturn(Optional.of(record));
+        assertEquals(IdempotencyService.Outcome.REPLAY,
+                other.claim("alice", "k1", "/api/transactions/transfer", HASH).getOutcome());
+    }
+
+    @Test
+    public void leasesAreRenewedOnlyWhileTheRequestRuns() {
+        IdempotencyKey record = IdempotencyKey.builder().id(7L).scope("alice").idempotencyKey("k2")
+                .requestPath("/api/transactions/transfer").requestHash(HASH)
+                .expiresAt(LocalDateTime.now().plusMinutes(5)).build();
+        when(repository.saveAndFlush(any())).thenReturn(record);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        IdempotencyService service = service();
+
+        IdempotencyService.Claim claim = service.claim("alice", "k2", "/api/transactions/transfer", HASH);
+        service.renewLeases();
+        verify(repository).renewLeases(any(), any());
+
+        service.complete(claim, 200, "application/json", null, "{}");
+        service.renewLeases();
+        verify(repository).renewLeases(any(), any());
+    }
+
+    private IdempotencyService service() {
+        IdempotencyService service = new IdempotencyService(repository);
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "waitTimeoutMs", 0L);
+        ReflectionTestUtils.setField(service, "inProgressLeaseMinutes", 5L);
+        return service;
+    }
+}
@@ -0,0 +1,128 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.AccountLimit;
+import com.zim.paypal.model.entity.User;
+import com.zim.paypal.repository.AccountLimitRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that resolved limit policies enforce the tightest active limits
+ */
+public class LimitPolicyEngineTest {
+
+    private static final SpendAggregateService.Totals NOTHING_SPENT = new SpendAggregateService.Totals(
+            spend("0.00", 0), spend("0.00", 0), spend("0.00", 0));
+
+    @Test
+    public void tightestLimitWins() {
+        LimitPolicyEngine.LimitPolicy policy = policy(
+                limit(AccountLimit.LimitType.TRANSACTION_AMOUNT).maxTransactionAmount(new BigDecimal("800.00")).build(),
+                limit(AccountLimit.LimitType.TRANSACTION_AMOUNT).maxTransactionAmount(new BigDecimal("500.00")).build());
+
+        assertEquals(50000, policy.maxTransactionCents());
+        assertTrue(policy.allows(new BigDecimal("500.00"), NOTHING_SPENT, new BigDecimal("500.00"), 1));
+        assertFalse(policy.allows(new BigDecimal("500.01"), NOTHING_SPENT, new BigDecimal("500.01"), 1));
+    }
+
+    @Test
+    public void unsetLimitsDoNotRestrict() {
+        LimitPolicyEngine.LimitPolicy policy = policy(
+                limit(AccountLimit.LimitType.TRANSACTION_AMOUNT).maxDailyAmount(new BigDecimal("1000.00")).build());
+
+        assertEquals(Long.MAX_VALUE, policy.maxTransactionCents());
+        assertEquals(Long.MAX_VALUE, policy.maxWeeklyCents());
+        assertEquals(Integer.MAX_VALUE, policy.maxDailyCount());
+        assertEquals(Integer.MAX_VALUE, policy.maxAccounts());
+        assertTrue(policy.allows(new BigDecimal("1000.00"), NOTHING_SPENT, new BigDecimal("1000.00"), 1000));
+    }
+
+    @Test
+    public void periodAmountsIncludeWhatWasAlreadySpent() {
+        LimitPolicyEngine.LimitPolicy policy = policy(
+                limit(AccountLimit.LimitType.TRANSACTION_AMOUNT).maxDailyAmount(new BigDecimal("1000.00"))
+                        .maxMonthlyAmount(new BigDecimal("5000.00")).build());
+        SpendAggregateService.Totals spent = new SpendAggregateService.Totals(
+                spend("600.00", 2), spend("600.00", 2), spend("4700.00", 9));
+
+        assertTrue(policy.allows(new BigDecimal("300.00"), spent, new BigDecimal("300.00"), 1));
+        assertFalse(policy.allows(new BigDecimal("300.00"), spent, new BigDecimal("400.01"), 2), "Above the daily amount");
+        SpendAggregateService.Totals lateInMonth = new SpendAggregateService.Totals(
+                spend("0.00", 0), spend("0.00", 0), spend("4800.00", 9));
+        assertFalse(policy.allows(new BigDecimal("300.00"), lateInMonth, new BigDecimal("300.00"), 1),
+                "Above the monthly amount");
+    }
+
+    @Test
+    public void periodCountsIncludeWhatWasAlreadySent() {
+        LimitPolicyEngine.LimitPolicy policy = policy(
+                limit(AccountLimit.LimitType.TRANSACTION_COUNT).maxDailyCount(3).maxWeeklyCount(10).build());
+        SpendAggregateService.Totals spent = new SpendAggregateService.Totals(
+                spend("20.00", 2), spend("90.00", 9), spend("90.00", 9));
+
+        assertTrue(policy.allows(new BigDecimal("10.00"), spent, new BigDecimal("10.00"), 1));
+        assertFalse(policy.allows(new BigDecimal("10.00"), spent, new BigDecimal("20.00"), 2), "Above the daily count");
+        SpendAggregateService.Totals busyWeek = new SpendAggregateService.Totals(
+                spend("0.00", 0), spend("100.00", 10), spend("100.00", 10));
+        assertFalse(policy.allows(new BigDecimal("10.00"), busyWeek, new BigDecimal("10.00"), 1),
+                "Above the weekly count");
+    }
+
+    @Test
+    public void eachLimitTypeSetsOnlyItsOwnFields() {
+        LimitPolicyEngine.LimitPolicy policy = policy(
+                limit(AccountLimit.LimitType.TRANSACTION_AMOUNT).maxTransactionAmount(new BigDecimal("500.00"))
+                        .maxDailyAmount(new BigDecimal("1000.00")).maxDailyCount(50).build(),
+                limit(AccountLimit.LimitType.TRANSACTION_COUNT).maxTransactionAmount(new BigDecimal("10.00"))
+                        .maxDailyAmount(new BigDecimal("20.00")).maxDailyCount(5).build(),
+                limit(AccountLimit.LimitType.COMBINED).maxMonthlyAmount(new BigDecimal("30.00"))
+                        .maxWeeklyCount(8).maxAccountsPerUser(1).build(),
+                limit(AccountLimit.LimitType.ACCOUNT_COUNT).maxAccountsPerUser(3)
+                        .maxTransactionAmount(new BigDecimal("1.00")).maxDailyCount(1).build());
+
+        assertEquals(50000, policy.maxTransactionCents(), "Only TRANSACTION_AMOUNT limits set amounts");
+        assertEquals(100000, policy.maxDailyCents());
+        assertEquals(Long.MAX_VALUE, policy.maxMonthlyCents());
+        assertEquals(5, policy.maxDailyCount(), "Only TRANSACTION_COUNT and COMBINED limits set counts");
+        assertEquals(8, policy.maxWeeklyCount());
+        assertEquals(3, policy.maxAccounts(), "Only ACCOUNT_COUNT limits set the account count");
+        assertTrue(policy.allows(new BigDecimal("400.00"), NOTHING_SPENT, new BigDecimal("400.00"), 1));
+    }
+
+    @Test
+    public void accountCountLimitAppliesToItsRoleOnly() {
+        LimitPolicyEngine engine = engine(limit(AccountLimit.LimitType.ACCOUNT_COUNT).maxAccountsPerUser(2).build());
+
+        assertTrue(engine.getPolicy(User.UserRole.USER).allowsAnotherAccount(1));
+        assertFalse(engine.getPolicy(User.UserRole.USER).allowsAnotherAccount(2));
+        assertTrue(engine.getPolicy(User.UserRole.ADMIN).allowsAnotherAccount(100), "A role without limits is unlimited");
+    }
+
+    private static LimitPolicyEngine.LimitPolicy policy(AccountLimit... limits) {
+        return engine(limits).getPolicy(User.UserRole.USER);
+    }
+
+    private static LimitPolicyEngine engine(AccountLimit... limits) {
+        AccountLimitRepository limitRepository = mock(AccountLimitRepository.class);
+        when(limitRepository.findByIsActiveTrue()).thenReturn(List.of(limits));
+        LimitPolicyEngine engine = new LimitPolicyEngine(limitRepository);
+        engine.init();
+        return engine;
+    }
+
+    private static AccountLimit.AccountLimitBuilder limit(AccountLimit.LimitType limitType) {
+        return AccountLimit.builder().limitType(limitType).userRole(User.UserRole.USER).isActive(true);
+    }
+
+    private static SpendAggregateService.Spend spend(String amount, int count) {
+        return new SpendAggregateService.Spend(new BigDecimal(amount), count);
+    }
+}
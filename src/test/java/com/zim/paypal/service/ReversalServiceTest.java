@@ -0,0 +1,97 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.entity.Account;
+import com.zim.paypal.model.entity.Transaction;
+import com.zim.paypal.model.entity.TransactionReversal;
+import com.zim.paypal.model.entity.User;
+import com.zim.paypal.repository.AccountRepository;
+import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.repository.TransactionReversalRepository;
+import com.zim.paypal.util.IdGenerator;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that a held transfer freezes the receiver's funds until its reversal is decided
+ */
+public class ReversalServiceTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("40.00");
+
+    private final TransactionReversalRepository reversalRepository = mock(TransactionReversalRepository.class);
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final UserService userService = mock(UserService.class);
+
+    private final User sender = User.builder().id(1L).username("alice").build();
+    private final User receiver = User.builder().id(2L).username("bob").build();
+    private final User compliance = User.builder().id(3L).username("compliance").build();
+    private final User admin = User.builder().id(4L).username("admin").role(User.UserRole.ADMIN).build();
+    private final Account receiverAccount = Account.builder().id(20L).user(receiver).balance(AMOUNT).build();
+
+    @Test
+    public void heldTransferHoldsTheReceiversFundsOnBehalfOfCompliance() {
+        Transaction transaction = transfer();
+        when(reversalRepository.findByTransaction(transaction)).thenReturn(Optional.empty());
+        when(accountRepository.findActiveAccountByUser(receiver)).thenReturn(Optional.of(receiverAccount));
+        when(userService.findByUsername("compliance")).thenReturn(compliance);
+
+        service().onHold(transaction, "critical fraud risk");
+
+        verify(accountRepository).hold(20L, AMOUNT);
+        ArgumentCaptor<TransactionReversal> saved = ArgumentCaptor.forClass(TransactionReversal.class);
+        verify(reversalRepository).save(saved.capture());
+        assertSame(compliance, saved.getValue().getRequestedBy());
+        assertSame(receiverAccount, saved.getValue().getHeldAccount());
+        assertEquals(TransactionReversal.ReversalStatus.PENDING, saved.getValue().getStatus());
+    }
+
+    @Test
+    public void rejectingTheReversalReleasesTheHold() {
+        TransactionReversal reversal = TransactionReversal.builder().id(9L).reversalNumber("REV1")
+                .transaction(transfer()).requestedBy(compliance).heldAccount(receiverAccount)
+                .reversalAmount(AMOUNT).reversalType(TransactionReversal.ReversalType.FULL)
+                .status(TransactionReversal.ReversalStatus.PENDING).build();
+        when(reversalRepository.findById(9L)).thenReturn(Optional.of(reversal));
+        when(userService.findById(4L)).thenReturn(admin);
+        when(reversalRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service().rejectReversal(9L, 4L, "legitimate");
+
+        verify(accountRepository).release(20L, AMOUNT);
+        assertNull(reversal.getHeldAccount());
+    }
+
+    @Test
+    public void heldFundsAreNotAvailable() {
+        Account account = Account.builder().balance(new BigDecimal("100.00")).heldAmount(AMOUNT).build();
+
+        assertEquals(new BigDecimal("60.00"), account.getAvailableBalance());
+        assertFalse(account.hasSufficientBalance(new BigDecimal("60.01")));
+    }
+
+    private Transaction transfer() {
+        return Transaction.builder().id(5L).transactionNumber("TXN1").sender(sender).receiver(receiver)
+                .amount(AMOUNT).transactionType(Transaction.TransactionType.TRANSFER).build();
+    }
+
+    private ReversalService service() {
+        ReversalService service = new ReversalService(reversalRepository, mock(TransactionRepository.class),
+                accountRepository, userService, mock(TransactionService.class), mock(NotificationService.class),
+                mock(IdGenerator.class));
+        ReflectionTestUtils.setField(service, "holdActor", "compliance");
+        return service;
+    }
+}
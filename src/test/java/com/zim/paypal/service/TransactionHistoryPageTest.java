@@ -0,0 +1,65 @@
+package com.zim.paypal.service;
+
+import com.zim.paypal.model.dto.CursorPage;
+import com.zim.paypal.model.dto.TransactionKey;
+import com.zim.paypal.model.dto.TransactionView;
+import com.zim.paypal.repository.TransactionRepository;
+import com.zim.paypal.util.PageCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the transaction history page when a transaction disappears between its two queries
+ */
+public class TransactionHistoryPageTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+
+    // Only the repository is used to read history
+    private final TransactionService service = new TransactionService(transactionRepository, null, null, null,
+            null, null, null, null, null, null, null, null, null, null, null, null, null);
+
+    @Test
+    public void missingViewsAreSkippedAndTheCursorStillAdvances() {
+        when(transactionRepository.findPageKeysByUserBefore(eq(1L), any(), anyLong(), anyInt()))
+                .thenReturn(List.of(key(3L, NOW), key(2L, NOW.minusHours(1)), key(1L, NOW.minusHours(2))));
+        when(transactionRepository.findViewsByIdIn(any(), any(), any()))
+                .thenReturn(List.of(TransactionView.builder().id(3L).createdAt(NOW).build()));
+
+        CursorPage<TransactionView> page = service.getTransactionsByUser(1L, null, 2);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(3L, page.getContent().get(0).getId());
+        assertTrue(page.isHasNext());
+        PageCursor next = PageCursor.decode(page.getNextCursor());
+        assertEquals(2L, next.getId());
+        assertEquals(NOW.minusHours(1), next.getCreatedAt());
+    }
+
+    private static TransactionKey key(Long id, LocalDateTime createdAt) {
+        return new TransactionKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.zim.paypal.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrations against PostgreSQL and checks that the partitioned
+ * transactions table keeps transaction numbers unique and its references
+ * intact. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class TransactionPartitionMigrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+                .load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void transactionsArePartitionedByMonth() {
+        TransactionPartitionService partitionService = new TransactionPartitionService(jdbcTemplate);
+        assertTrue(partitionService.isPartitioned());
+
+        YearMonth month = YearMonth.now().plusMonths(12);
+        assertEquals(1, partitionService.createPartitions(month, month));
+        assertTrue(partitionService.getAttachedPartitions().contains(TransactionPartitionService.partitionName(month)));
+    }
+
+    @Test
+    public void transactionNumbersAreUniqueAcrossPartitions() {
+        insertTransaction("TXNUNIQUE0001", LocalDateTime.now().minusMonths(1));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> insertTransaction("TXNUNIQUE0001", LocalDateTime.now()));
+    }
+
+    @Test
+    public void referencesToTransactionsKeepTheirActions() {
+        long userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        LocalDateTime createdAt = LocalDateTime.now().minusDays(3);
+        long transactionId = insertTransaction("TXNCASCADE0001", createdAt);
+        jdbcTemplate.update("INSERT INTO user_transactions (user_id, created_at, transaction_id, direction) " +
+                "VALUES (?, ?, ?, 'OUT')", userId, Timestamp.valueOf(createdAt), transactionId);
+
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO risk_scores (transaction_id, risk_score, risk_level, score_type) " +
+                "VALUES (?, 10, 'LOW', 'TRANSACTION')", transactionId + 1000000));
+
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", transactionId);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_transactions WHERE transaction_id = ?", Integer.class, transactionId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction_keys WHERE id = ?", Integer.class, transactionId));
+    }
+
+    @Test
+    public void transactionsCannotMoveBetweenPartitions() {
+        long transactionId = insertTransaction("TXNMOVE0001", LocalDateTime.now().minusMonths(1));
+
+        assertThrows(DataAccessException.class, () -> jdbcTemplate.update(
+                "UPDATE transactions SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), transactionId));
+    }
+
+    private static long insertTransaction(String transactionNumber, LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject("INSERT INTO transactions " +
+                "(transaction_number, amount, transaction_type, payment_method, created_at) " +
+                "VALUES (?, 10.00, 'TRANSFER', 'WALLET', ?) RETURNING id",
+                Long.class, transactionNumber, Timestamp.valueOf(createdAt));
+    }
+}
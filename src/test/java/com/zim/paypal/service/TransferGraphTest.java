@@ -0,0 +1,81 @@
+package com.zim.paypal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the transfer graph's pattern queries, decay and memory bounds
+ */
+public class TransferGraphTest {
+
+    private static final long MINUTE = 29_000_000L;
+    private static final double DAY = 24 * 60;
+
+    @Test
+    public void findsCyclesOfThreeOrMoreUsers() {
+        TransferGraph graph = new TransferGraph(100, 100, 7 * DAY, 60, 1.0);
+        graph.addTransfer(1, 2, 500, MINUTE);
+        graph.addTransfer(2, 1, 500, MINUTE);
+        assertNull(graph.findCycle(1, 4, 100, MINUTE), "Paying someone back is not a cycle");
+
+        graph.addTransfer(2, 3, 500, MINUTE);
+        graph.addTransfer(3, 4, 500, MINUTE);
+        assertNull(graph.findCycle(1, 4, 100, MINUTE));
+        graph.addTransfer(4, 1, 500, MINUTE);
+        assertArrayEquals(new long[] {1, 2, 3, 4}, graph.findCycle(1, 4, 100, MINUTE));
+        assertNull(graph.findCycle(1, 3, 100, MINUTE), "Cycle is longer than allowed");
+        assertNull(graph.findCycle(1, 4, 600, MINUTE), "Edges are lighter than the minimum");
+
+        // Four weeks on, the edges have decayed to a sixteenth
+        assertNull(graph.findCycle(1, 4, 100, MINUTE + (long) (28 * DAY)));
+        assertArrayEquals(new long[] {1, 2, 3, 4}, graph.findCycle(1, 4, 30, MINUTE + (long) (28 * DAY)));
+    }
+
+    @Test
+    public void countsHubsAndPassThrough() {
+        TransferGraph graph = new TransferGraph(100, 100, 7 * DAY, 60, 1.0);
+        for (long sender = 10; sender < 30; sender++) {
+            graph.addTransfer(sender, 1, 200, MINUTE);
+        }
+        graph.addTransfer(30, 1, 50, MINUTE);
+        graph.addTransfer(1, 2, 3500, MINUTE + 60);
+
+        TransferGraph.NodeStats stats = graph.stats(1, 100, MINUTE + 60);
+        assertEquals(20, stats.senders());
+        assertEquals(1, stats.receivers());
+        assertEquals(2025, stats.inflow(), 1.0, "Inflow halves after an hour");
+        assertEquals(3500, stats.outflow(), 1.0);
+        assertNull(graph.stats(99, 100, MINUTE));
+
+        long[] dirty = graph.drainDirty();
+        assertEquals(23, dirty.length);
+        assertEquals(0, graph.drainDirty().length);
+    }
+
+    @Test
+    public void staysWithinItsBoundsAndPrunesDecayedEdges() {
+        TransferGraph graph = new TransferGraph(3, 2, 60, 60, 10.0);
+        assertTrue(graph.addTransfer(1, 2, 100, MINUTE));
+        assertTrue(graph.addTransfer(2, 3, 100, MINUTE));
+        assertFalse(graph.addTransfer(3, 1, 100, MINUTE), "No room for a third edge");
+        assertFalse(graph.addTransfer(1, 4, 100, MINUTE), "No room for a fourth user");
+        assertEquals(3, graph.getUserCount());
+        assertEquals(2, graph.getEdgeCount());
+
+        // Five hours on, both edges are below the prune amount and make room
+        assertTrue(graph.addTransfer(4, 5, 100, MINUTE + 300));
+        assertEquals(1, graph.getEdgeCount());
+        assertEquals(2, graph.getUserCount());
+        assertNull(graph.stats(1, 0, MINUTE + 300));
+        assertEquals(1, graph.stats(5, 0, MINUTE + 300).senders());
+
+        graph.prune(MINUTE + 600);
+        assertEquals(0, graph.getEdgeCount());
+        assertEquals(0, graph.getUserCount());
+    }
+}
@@ -0,0 +1,61 @@
+package com.zim.paypal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that snapshot versions advance only when the content changes
+ */
+public class VersionedSnapshotTest {
+
+    @Test
+    public void firstSnapshotIsVersionOne() {
+        VersionedSnapshot<Content> snapshot = new VersionedSnapshot<>();
+        assertNull(snapshot.get());
+
+        assertTrue(snapshot.offer(new Content(0, "a")));
+        assertEquals(1, snapshot.get().getVersion());
+    }
+
+    @Test
+    public void unchangedContentKeepsTheCurrentSnapshot() {
+        VersionedSnapshot<Content> snapshot = new VersionedSnapshot<>();
+        snapshot.offer(new Content(0, "a"));
+        Content current = snapshot.get();
+
+        assertFalse(snapshot.offer(new Content(0, "a")));
+        assertSame(current, snapshot.get());
+    }
+
+    @Test
+    public void changedContentTakesTheNextVersion() {
+        VersionedSnapshot<Content> snapshot = new VersionedSnapshot<>();
+        snapshot.offer(new Content(0, "a"));
+
+        assertTrue(snapshot.offer(new Content(7, "b")));
+        assertEquals(new Content(2, "b"), snapshot.get(), "The candidate's own version is ignored");
+    }
+
+    private record Content(long version, String value) implements VersionedSnapshot.Versioned<Content> {
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public Content withVersion(long version) {
+            return new Content(version, value);
+        }
+
+        @Override
+        public boolean sameContentAs(Content other) {
+            return value.equals(other.value);
+        }
+    }
+}
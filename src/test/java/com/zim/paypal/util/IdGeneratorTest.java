@@ -0,0 +1,77 @@
+package com.zim.paypal.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for identifier format, uniqueness and ordering, and the node lease
+ */
+public class IdGeneratorTest {
+
+    private final IdNodeLeaseStore leaseStore = mock(IdNodeLeaseStore.class);
+
+    @Test
+    public void keepsFormatAndOrdersByCreation() {
+        when(leaseStore.extend(anyLong(), anyLong(), anyLong())).thenReturn(true);
+        IdGenerator generator = new IdGenerator(leaseStore);
+        generator.init();
+
+        assertTrue(generator.next(IdGenerator.IdType.TRANSACTION).matches("TXN[0-9A-F]{15}"));
+        assertTrue(generator.next(IdGenerator.IdType.STATEMENT).matches("STMT[0-9A-F]{15}"));
+        assertTrue(generator.next(IdGenerator.IdType.ACCOUNT).matches("ZIM[0-9A-F]{12}"));
+        assertTrue(generator.next(IdGenerator.IdType.BILL_SPLIT).matches("SPLIT[0-9A-F]{12}"));
+
+        for (IdGenerator.IdType type : IdGenerator.IdType.values()) {
+            Set<String> seen = new HashSet<>();
+            String previous = "";
+            for (int i = 0; i < 10000; i++) {
+                String id = generator.next(type);
+                assertTrue(id.compareTo(previous) > 0, "Identifiers should be increasing");
+                previous = id;
+                seen.add(id);
+            }
+            assertEquals(10000, seen.size());
+        }
+    }
+
+    @Test
+    public void waitsOutThePreviousReservation() {
+        long reservedUntil = System.currentTimeMillis() + 200;
+        when(leaseStore.claim(anyLong(), anyLong())).thenReturn(reservedUntil);
+        when(leaseStore.extend(anyLong(), anyLong(), anyLong())).thenReturn(true);
+        new IdGenerator(leaseStore).init();
+
+        assertTrue(System.currentTimeMillis() > reservedUntil);
+    }
+
+    @Test
+    public void stopsIssuingOnceTheLeaseIsLost() {
+        when(leaseStore.extend(anyLong(), anyLong(), anyLong())).thenReturn(true, false);
+        IdGenerator generator = new IdGenerator(leaseStore);
+        generator.init();
+
+        generator.heartbeat();
+        assertThrows(IllegalStateException.class, () -> generator.next(IdGenerator.IdType.TRANSACTION));
+    }
+
+    @Test
+    public void stopsIssuingOnceTheLeaseCannotBeConfirmed() {
+        when(leaseStore.extend(anyLong(), anyLong(), anyLong())).thenReturn(true);
+        IdGenerator generator = new IdGenerator(leaseStore);
+        generator.init();
+
+        // As if every renewal since the last success had failed or stalled
+        ReflectionTestUtils.setField(generator, "leaseConfirmedAt", System.currentTimeMillis() - 30000);
+        assertThrows(IllegalStateException.class, () -> generator.next(IdGenerator.IdType.TRANSACTION));
+    }
+}